@@ -0,0 +1,152 @@
+package com.michaelhradek.aurkitu.annotations.processing;
+
+import com.michaelhradek.aurkitu.annotations.FlatBufferEnum;
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Writes an index of the compiled types, among them the {@link FlatBufferTable} and {@link FlatBufferEnum} types, to
+ * {@link #INDEX}, so that the plugin can read it instead of scanning the classes of the jar or directory.
+ *
+ * The index is in the xml format of Reflections' XmlSerializer, and holds the runtime visible annotations and the
+ * super types of every top level and nested type of the compilation. It is written by every compilation, even one
+ * without annotated types, so that an index left by an earlier compilation never outlives the types it lists.
+ *
+ * The index only lists the types of its own compilation, and never anonymous classes, so it is only complete if the
+ * whole module is compiled at once. The plugin trusts it inside jars, but reads it from a class directory only if it
+ * lists exactly the class files of the directory, none of which is older than the index.
+ */
+@SupportedAnnotationTypes("*")
+public class IndexProcessor extends AbstractProcessor {
+
+    /**
+     * The path of the index, relative to the class output
+     */
+    public static final String INDEX = "META-INF/aurkitu/aurkitu-reflections.xml";
+
+    static final String TYPE_ANNOTATIONS = "TypeAnnotationsScanner";
+    static final String SUB_TYPES = "SubTypesScanner";
+
+    private final Map<String, Set<String>> typeAnnotations = new TreeMap<>();
+    private final Map<String, Set<String>> subTypes = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                record((TypeElement) element);
+            }
+        }
+
+        // Never claim the annotations; other processors may want them as well
+        return false;
+    }
+
+    private void record(TypeElement type) {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            if (retention == null || retention.value() != RetentionPolicy.RUNTIME) {
+                continue;
+            }
+
+            put(typeAnnotations, binaryName(annotation.getAnnotationType()), name);
+        }
+
+        // Interfaces are sub types of Object in class files as well
+        TypeMirror superclass = type.getSuperclass();
+        put(subTypes, superclass.getKind() == TypeKind.DECLARED ? binaryName(superclass) : Object.class.getName(),
+                name);
+        for (TypeMirror anInterface : type.getInterfaces()) {
+            put(subTypes, binaryName(anInterface), name);
+        }
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            ElementKind kind = enclosed.getKind();
+            if (kind.isClass() || kind.isInterface()) {
+                record((TypeElement) enclosed);
+            }
+        }
+    }
+
+    private String binaryName(TypeMirror type) {
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        return processingEnv.getElementUtils().getBinaryName(element).toString();
+    }
+
+    private static void put(Map<String, Set<String>> index, String key, String value) {
+        Set<String> values = index.get(key);
+        if (values == null) {
+            values = new TreeSet<>();
+            index.put(key, values);
+        }
+        values.add(value);
+    }
+
+    private void write() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                writer.write("<Reflections>\n");
+                write(writer, TYPE_ANNOTATIONS, typeAnnotations);
+                write(writer, SUB_TYPES, subTypes);
+                writer.write("</Reflections>\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Unable to write " + INDEX + "; the classes will be scanned instead: " + e.getMessage());
+        }
+    }
+
+    private static void write(Writer writer, String indexName, Map<String, Set<String>> index) throws IOException {
+        writer.write("  <" + indexName + ">\n");
+        for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+            writer.write("    <entry>\n");
+            writer.write("      <key>" + entry.getKey() + "</key>\n");
+            writer.write("      <values>\n");
+            for (String value : entry.getValue()) {
+                writer.write("        <value>" + value + "</value>\n");
+            }
+            writer.write("      </values>\n");
+            writer.write("    </entry>\n");
+        }
+        writer.write("  </" + indexName + ">\n");
+    }
+}
@@ -0,0 +1,114 @@
+package com.michaelhradek.aurkitu.annotations.processing;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class IndexProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testIndexIsWritten() throws IOException {
+        File output = compile(
+                "package sample;\n" +
+                "import com.michaelhradek.aurkitu.annotations.*;\n" +
+                "@FlatBufferTable\n" +
+                "public class Sample implements java.io.Serializable {\n" +
+                "    @FlatBufferEnum\n" +
+                "    public enum Kind { A, B }\n" +
+                "    public static class Nested extends Sample {}\n" +
+                "    public interface Marker {}\n" +
+                "}\n");
+
+        File index = new File(output, IndexProcessor.INDEX);
+        Assert.assertTrue(index.isFile());
+        String xml = new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8);
+
+        Assert.assertTrue(xml.contains("<" + IndexProcessor.TYPE_ANNOTATIONS + ">"));
+        Assert.assertTrue(xml.contains("<key>com.michaelhradek.aurkitu.annotations.FlatBufferTable</key>\n" +
+                "      <values>\n" +
+                "        <value>sample.Sample</value>\n"));
+        Assert.assertTrue(xml.contains("<key>com.michaelhradek.aurkitu.annotations.FlatBufferEnum</key>\n" +
+                "      <values>\n" +
+                "        <value>sample.Sample$Kind</value>\n"));
+
+        // Nested types and their super types are recorded as well
+        Assert.assertTrue(xml.contains("<key>sample.Sample</key>\n" +
+                "      <values>\n" +
+                "        <value>sample.Sample$Nested</value>\n"));
+        Assert.assertTrue(xml.contains("<key>java.io.Serializable</key>\n" +
+                "      <values>\n" +
+                "        <value>sample.Sample</value>\n"));
+        Assert.assertTrue(xml.contains("<value>sample.Sample$Marker</value>"));
+        Assert.assertTrue(xml.contains("<key>java.lang.Enum</key>"));
+    }
+
+    @Test
+    public void testIndexWithoutAnnotatedTypes() throws IOException {
+        File output = compile(
+                "package sample;\n" +
+                "@Deprecated\n" +
+                "public class Sample {}\n");
+
+        File index = new File(output, IndexProcessor.INDEX);
+        Assert.assertTrue(index.isFile());
+        String xml = new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(xml.contains("<key>java.lang.Deprecated</key>"));
+        Assert.assertFalse(xml.contains("FlatBufferTable"));
+    }
+
+    @Test
+    public void testIndexIsReplacedWhenAnnotationIsRemoved() throws IOException {
+        File output = folder.newFolder("output");
+        compile(output,
+                "package sample;\n" +
+                "@com.michaelhradek.aurkitu.annotations.FlatBufferTable\n" +
+                "public class Sample {}\n");
+        File index = new File(output, IndexProcessor.INDEX);
+        Assert.assertTrue(new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8)
+                .contains("FlatBufferTable"));
+
+        // The index of the first compilation must not outlive the annotation
+        compile(output,
+                "package sample;\n" +
+                "public class Sample {}\n");
+        Assert.assertTrue(index.isFile());
+        Assert.assertFalse(new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8)
+                .contains("FlatBufferTable"));
+    }
+
+    private File compile(String source) throws IOException {
+        return compile(folder.newFolder("output"), source);
+    }
+
+    private File compile(File output, String source) throws IOException {
+        File sources = folder.newFolder();
+        File file = new File(sources, "Sample.java");
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull("Tests must run on a JDK", compiler);
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+                    Arrays.asList("-d", output.getPath(), "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjectsFromFiles(Collections.singletonList(file)));
+            task.setProcessors(Collections.singletonList(new IndexProcessor()));
+            Assert.assertTrue(task.call());
+        }
+
+        return output;
+    }
+}
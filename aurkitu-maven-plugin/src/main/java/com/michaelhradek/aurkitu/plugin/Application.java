@@ -65,6 +65,9 @@ public class Application extends AbstractMojo {
     @Parameter(property = Application.MOJO_NAME + ".validate-schema", defaultValue = "true")
     private Boolean validateSchema;
 
+    @Parameter(property = Application.MOJO_NAME + ".validation-fail-fast", defaultValue = "false")
+    private Boolean validationFailFast;
+
     @Parameter(property = Application.MOJO_NAME + ".schema-name", required = true)
     private String schemaName;
 
@@ -86,6 +89,31 @@ public class Application extends AbstractMojo {
     @Parameter(property = Application.MOJO_NAME + ".ignore-static-members", defaultValue = "true")
     private Boolean ignoreStaticMembers;
 
+    @Parameter(property = Application.MOJO_NAME + ".shared-classpath-scan", defaultValue = "true")
+    private Boolean sharedClasspathScan;
+
+    @Parameter(property = Application.MOJO_NAME + ".build-parallelism", defaultValue = "1")
+    private Integer buildParallelism;
+
+    @Parameter(property = Application.MOJO_NAME + ".schema-parallelism", defaultValue = "1")
+    private Integer schemaParallelism;
+
+    // Turns off shared-classpath-scan and builds declarations serially; build-parallelism then applies to validation only
+    @Parameter(property = Application.MOJO_NAME + ".bytecode-extraction", defaultValue = "false")
+    private Boolean bytecodeExtraction;
+
+    @Parameter(property = Application.MOJO_NAME + ".scan-index-directory")
+    private File scanIndexDirectory;
+
+    @Parameter(property = Application.MOJO_NAME + ".annotation-pre-filter", defaultValue = "false")
+    private Boolean annotationPreFilter;
+
+    @Parameter(property = Application.MOJO_NAME + ".artifact-index-cache", defaultValue = "false")
+    private Boolean artifactIndexCache;
+
+    @Parameter(property = Application.MOJO_NAME + ".artifact-index-directory", defaultValue = "${user.home}/.m2/aurkitu-index")
+    private File artifactIndexDirectory;
+
     // Needs thought
     // @Parameter(property = Application.MOJO_NAME + ".build-base-schemas", defaultValue = "true")
     // private Boolean buildDependencySchemas;
@@ -101,7 +129,9 @@ public class Application extends AbstractMojo {
         // Log
         log();
 
-        ArtifactReference reference = new ArtifactReference(project, repoSystem, repoSession, repositories, specifiedDependencies);
+        ArtifactReference reference = new ArtifactReference(project, repoSystem, repoSession, repositories, specifiedDependencies,
+                scanIndexDirectory, Boolean.TRUE.equals(annotationPreFilter),
+                Boolean.TRUE.equals(artifactIndexCache) ? artifactIndexDirectory : null);
 
         // Setup
         List<Schema> schemas = setup(reference);
@@ -137,6 +167,7 @@ public class Application extends AbstractMojo {
         log.info(" schemaFileIdentifier: " + schemaFileIdentifier);
         log.info(" outputDirectory: " + outputDirectory.getAbsolutePath());
         log.info(" validateSchema: " + validateSchema);
+        log.info(" validationFailFast: " + validationFailFast);
         log.info(" generateVersion: " + generateVersion);
         log.info(" namespaceOverrideMap: " + (namespaceOverrideMap == null ? "null" : namespaceOverrideMap.toString()));
         log.info(" useSchemaCaching: " + useSchemaCaching);
@@ -144,6 +175,14 @@ public class Application extends AbstractMojo {
         log.info(" specifiedDependencies: " + (specifiedDependencies == null ? "null" : specifiedDependencies.toString()));
         log.info(" consolidatedSchemas: " + consolidatedSchemas);
         log.info(" ignoreStaticMembers: " + ignoreStaticMembers);
+        log.info(" sharedClasspathScan: " + sharedClasspathScan);
+        log.info(" buildParallelism: " + buildParallelism);
+        log.info(" schemaParallelism: " + schemaParallelism);
+        log.info(" bytecodeExtraction: " + bytecodeExtraction);
+        log.info(" scanIndexDirectory: " + (scanIndexDirectory == null ? "null" : scanIndexDirectory.getAbsolutePath()));
+        log.info(" annotationPreFilter: " + annotationPreFilter);
+        log.info(" artifactIndexCache: " + artifactIndexCache);
+        log.info(" artifactIndexDirectory: " + (artifactIndexDirectory == null ? "null" : artifactIndexDirectory.getAbsolutePath()));
     }
 
     /**
@@ -228,7 +267,12 @@ public class Application extends AbstractMojo {
                         .withSpecifiedDependencies(specifiedDependencies)
                         .withConsolidatedSchemas(consolidatedSchemas)
                         .withValidateSchemas(validateSchema)
-                        .withIgnoreStaticMembers(ignoreStaticMembers);
+                        .withValidationFailFast(validationFailFast)
+                        .withIgnoreStaticMembers(ignoreStaticMembers)
+                        .withSharedClasspathScan(sharedClasspathScan)
+                        .withBuildParallelism(buildParallelism)
+                        .withSchemaParallelism(schemaParallelism)
+                        .withBytecodeExtraction(bytecodeExtraction);
 
         // Add schemas
         processor.addAllSchemas(candidateSchemas);
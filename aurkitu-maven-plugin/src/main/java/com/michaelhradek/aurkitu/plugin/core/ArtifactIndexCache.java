@@ -0,0 +1,218 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.google.common.hash.Hashing;
+import com.michaelhradek.aurkitu.annotations.FlatBufferEnum;
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
+import com.michaelhradek.aurkitu.reflections.Reflections;
+import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.serializers.XmlSerializer;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.ArtifactUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * A cache of the scans of dependency jars, shared by every build and project which points at the same directory
+ * (e.g. {@code ~/.m2/aurkitu-index}). Released artifacts never change, so the scan of a jar is kept under its
+ * groupId:artifactId:version and its checksum and is read instead of scanning the jar again. The scans of jars without
+ * any {@link FlatBufferTable} or {@link FlatBufferEnum} type are kept apart, see {@link #hasAnnotatedTypes(Reflections)};
+ * they only matter through their sub types of annotated types elsewhere.
+ * <p>
+ * The checksum of a released jar is taken from the {@code .sha1} file the local repository keeps alongside it, if
+ * there is one; otherwise it is computed once and kept in the cache along with the size and time of the jar. Snapshot
+ * jars are hashed every time, as they are replaced in place.
+ * <p>
+ * Scans are saved in the xml format of Reflections' XmlSerializer, like the annotation index of the IndexProcessor.
+ *
+ * @author m.hradek
+ */
+@Slf4j
+public class ArtifactIndexCache {
+
+    // Bumped whenever what is scanned for the cache changes
+    private static final int VERSION = 2;
+    private static final String INDEX_SUFFIX = ".xml";
+    private static final String NONE_SUFFIX = ".none";
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+
+    @Getter
+    private final File directory;
+
+    /**
+     * @param directory Where the scans are kept; created as needed
+     */
+    public ArtifactIndexCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param reference The dependency the jar was resolved for
+     * @param jar       The jar of the dependency
+     * @param scan      Scans the jar on its own, if it is not cached yet
+     * @return The scan of the jar, read from the cache or saved to it
+     * @throws Exception if the jar is not cached and could not be scanned
+     */
+    public Reflections getOrScan(ClasspathReference reference, File jar, Callable<Reflections> scan) throws Exception {
+        File base = baseFile(reference, jar);
+        if (base == null) {
+            return scan.call();
+        }
+
+        // The scan of a jar without annotated types holds no more than its super types
+        for (String suffix : new String[]{INDEX_SUFFIX, NONE_SUFFIX}) {
+            File cached = new File(base.getPath() + suffix);
+            if (cached.isFile()) {
+                try (InputStream inputStream = Files.newInputStream(cached.toPath())) {
+                    log.debug("Cached: reading the scan of {}", jar.getName());
+                    return new XmlSerializer().read(inputStream);
+                } catch (Exception e) {
+                    log.warn("Unable to read the cached scan {}; scanning {} instead", cached, jar, e);
+                }
+            }
+        }
+
+        Reflections reflections = scan.call();
+        if (ArtifactUtils.isSnapshot(reference.getVersion())) {
+            removeStale(base, jar);
+        }
+        write(new File(base.getPath() + (hasAnnotatedTypes(reflections) ? INDEX_SUFFIX : NONE_SUFFIX)),
+                new XmlSerializer().toString(reflections));
+        return reflections;
+    }
+
+    /**
+     * Removes the scans of the earlier builds of a snapshot jar, which are keyed by checksums it no longer has
+     */
+    private static void removeStale(File base, File jar) {
+        File[] files = base.getParentFile().listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (file.getName().startsWith(jar.getName() + "-") && !file.getName().startsWith(base.getName())) {
+                try {
+                    Files.deleteIfExists(file.toPath());
+                } catch (IOException e) {
+                    log.debug("Unable to remove the stale scan {}", file, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The scan of a jar without annotated types only needs to be merged if one of its types is a sub type of an
+     * annotated type of another jar, as getTypesAnnotatedWith returns those as well
+     *
+     * @param reflections The scan of a jar
+     * @return Whether any of the scanned types is annotated with FlatBufferTable or FlatBufferEnum
+     */
+    static boolean hasAnnotatedTypes(Reflections reflections) {
+        String index = Utils.index(TypeAnnotationsScanner.class);
+        if (!reflections.getStore().keySet().contains(index)) {
+            return false;
+        }
+
+        return reflections.getStore().get(index).containsKey(FlatBufferTable.class.getName()) ||
+                reflections.getStore().get(index).containsKey(FlatBufferEnum.class.getName());
+    }
+
+    /**
+     * @param reference The dependency the jar was resolved for
+     * @param jar       The jar of the dependency
+     * @return The path of the cached scan of the jar, without suffix; otherwise null if the jar cannot be cached
+     */
+    File baseFile(ClasspathReference reference, File jar) {
+        if (reference.getVersion() == null || !jar.isFile()) {
+            return null;
+        }
+
+        // The jar name tells apart the classifiers of an artifact
+        File artifactDirectory = new File(directory, String.join(File.separator,
+                reference.getGroupId(), reference.getArtifactId(), reference.getVersion()));
+
+        String checksum;
+        try {
+            checksum = checksum(jar, ArtifactUtils.isSnapshot(reference.getVersion()),
+                    new File(artifactDirectory, jar.getName() + FINGERPRINT_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Unable to fingerprint {}; scanning it without the cache", jar, e);
+            return null;
+        }
+
+        return new File(artifactDirectory, jar.getName() + "-" + checksum + "-v" + VERSION);
+    }
+
+    /**
+     * @param jar         The jar to fingerprint
+     * @param snapshot    Whether the jar may be replaced in place
+     * @param fingerprint Where the checksum of a released jar without a {@code .sha1} file is kept, along with the size
+     *                    and time of the jar it was computed from
+     * @return The sha1 of the jar
+     * @throws IOException if the jar cannot be read
+     */
+    static String checksum(File jar, boolean snapshot, File fingerprint) throws IOException {
+        if (snapshot) {
+            return hash(jar);
+        }
+
+        File sidecar = new File(jar.getPath() + ".sha1");
+        if (sidecar.isFile()) {
+            // Only the checksum itself; some repositories append the file name
+            String content = new String(Files.readAllBytes(sidecar.toPath()), StandardCharsets.US_ASCII).trim();
+            int end = content.indexOf(' ');
+            String checksum = (end < 0 ? content : content.substring(0, end)).toLowerCase();
+            if (checksum.matches("[0-9a-f]{40}")) {
+                return checksum;
+            }
+        }
+
+        // Hashed once, as long as the jar keeps its size and time
+        String stamp = " " + jar.length() + " " + jar.lastModified();
+        if (fingerprint.isFile()) {
+            String content = new String(Files.readAllBytes(fingerprint.toPath()), StandardCharsets.US_ASCII);
+            String checksum = content.substring(0, Math.max(content.indexOf(' '), 0));
+            if (checksum.matches("[0-9a-f]{40}") && content.equals(checksum + stamp)) {
+                return checksum;
+            }
+        }
+
+        String checksum = hash(jar);
+        write(fingerprint, checksum + stamp);
+        return checksum;
+    }
+
+    private static String hash(File jar) throws IOException {
+        @SuppressWarnings("deprecation")
+        String checksum = com.google.common.io.Files.asByteSource(jar).hash(Hashing.sha1()).toString();
+        return checksum;
+    }
+
+    /**
+     * Writes the file through a temporary one, so that builds sharing the cache only ever see complete files
+     */
+    private static void write(File file, String content) {
+        File temp = new File(file.getPath() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(temp.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to save {} to the artifact index cache", file, e);
+        } finally {
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+}
@@ -0,0 +1,1433 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.annotations.*;
+import com.michaelhradek.aurkitu.annotations.FlatBufferEnum.EnumStructureType;
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable.TableStructureType;
+import com.michaelhradek.aurkitu.annotations.types.EnumType;
+import com.michaelhradek.aurkitu.annotations.types.FieldType;
+import com.michaelhradek.aurkitu.plugin.core.output.EnumDeclaration;
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property.PropertyOptionKey;
+import javassist.bytecode.*;
+import javassist.bytecode.annotation.Annotation;
+import javassist.bytecode.annotation.BooleanMemberValue;
+import javassist.bytecode.annotation.EnumMemberValue;
+import javassist.bytecode.annotation.MemberValue;
+import javassist.bytecode.annotation.StringMemberValue;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Builds declarations straight from the class files of the annotated classes as an alternative to the reflective
+ * build of the {@link Processor}. Field descriptors, Signature attributes, annotation attributes and the enum constant
+ * initialisers are read from the class file so user classes are never loaded, linked or initialised. Only platform
+ * types (i.e. the primitive wrappers and collections) are resolved to classes so type checks match the reflective
+ * build.
+ * <p>
+ * Enum constants are named by their declared name rather than a (possibly overridden) toString(). When the value of
+ * an enum's @FlatBufferEnumTypeField cannot be followed from constants passed to its constructor that one enum is
+ * built by reflection instead.
+ *
+ * @author m.hradek
+ */
+@Slf4j
+public class ClassFileExtractor {
+
+    // Platform types are resolved through this loader; it never defines a class from the project classpath
+    private static final ClassLoader PLATFORM_CLASS_LOADER = ClassLoader.getSystemClassLoader().getParent();
+
+    // Guards against constructors which delegate to each other without end
+    private static final int MAX_CONSTRUCTOR_DEPTH = 8;
+
+    // Symbolic values used while following enum constant initialisers
+    private static final Object THIS = new Object();
+    private static final Object UNKNOWN = new Object();
+    private static final Object UNSUPPORTED = new Object();
+
+    private Processor processor;
+    private Map<String, Class<?>> platformClasses;
+    private Set<String> nonPlatformClassNames;
+
+    /**
+     * @param processor The processor whose settings and schema state the declarations are built with
+     */
+    public ClassFileExtractor(Processor processor) {
+        this.processor = processor;
+        this.platformClasses = new HashMap<>();
+        this.nonPlatformClassNames = new HashSet<>();
+    }
+
+    /**
+     * @param schema    The schema the declarations are added to
+     * @param className The target class to build the declarations of; including its inner classes
+     * @return The name of the type if it was declared as the root type; otherwise null
+     * @throws MojoExecutionException if a class file cannot be read or the external class definition lookup fails
+     */
+    public String buildDeclarations(Schema schema, String className) throws MojoExecutionException {
+        ClassFile classFile = readClassFile(className);
+        if (classFile == null) {
+            log.warn("Unable to locate class file for annotated class: " + className);
+            return null;
+        }
+
+        if (isEnumWorkaround(classFile) && (processor.isConsolidatedSchemas() || !processor.getExternalClassDefinitionDetails(className).locatedOutside)) {
+            schema.addEnumDeclaration(buildEnumDeclaration(classFile));
+            return null;
+        }
+
+        TypeDeclaration temp = buildTypeDeclaration(classFile);
+        String rootType = null;
+        if (temp.isRoot()) {
+            log.debug("  Found root: " + temp.getName());
+            rootType = temp.getName();
+        }
+
+        if (processor.isConsolidatedSchemas() || !processor.getExternalClassDefinitionDetails(className).locatedOutside) {
+            schema.addTypeDeclaration(temp);
+        } else {
+            // Don't get the inner stuff of this class if we're not consolidated.
+            return rootType;
+        }
+
+        // Now examine inner classes
+        for (String innerClassName : getDeclaredClassNames(classFile)) {
+            ClassFile inner = readClassFile(innerClassName);
+            if (inner == null) {
+                log.warn("Unable to locate class file for inner class: " + innerClassName);
+                continue;
+            }
+
+            log.debug("  Processing inner class: " + getSimpleName(inner));
+            if ((inner.getAccessFlags() & AccessFlag.SYNTHETIC) != 0) {
+                log.debug("  Found synthetic...");
+                continue;
+            }
+
+            if (isEnumWorkaround(inner)) {
+                log.debug("  Found enum...");
+                schema.addEnumDeclaration(buildEnumDeclaration(inner));
+                continue;
+            }
+
+            log.debug("  Found type...");
+            // Inner classes cannot be root type
+            schema.addTypeDeclaration(buildTypeDeclaration(inner));
+        }
+
+        return rootType;
+    }
+
+    /**
+     * @param classFile Class file which is being considered for an EnumDeclaration
+     * @return an EnumDeclaration
+     * @throws MojoExecutionException if a class file cannot be read
+     */
+    public EnumDeclaration buildEnumDeclaration(ClassFile classFile) throws MojoExecutionException {
+        log.debug("Building Enum: " + classFile.getName());
+
+        EnumDeclaration enumD = new EnumDeclaration();
+        enumD.setName(getSimpleName(classFile));
+
+        Annotation annotation = getAnnotation(classFile.getAttribute(AnnotationsAttribute.visibleTag), FlatBufferEnum.class);
+        if (annotation != null) {
+            enumD.setStructure((EnumStructureType) getMemberValue(annotation, FlatBufferEnum.class, "value"));
+            log.debug("Enum structure: " + enumD.getStructure());
+            enumD.setType((EnumType) getMemberValue(annotation, FlatBufferEnum.class, "enumType"));
+            log.debug("Enum type: " + enumD.getType());
+        } else {
+            log.debug("Not FlatBufferEnum (likely inner class); Generic enum created");
+        }
+
+        String comment = getComment(classFile.getAttribute(AnnotationsAttribute.visibleTag));
+        if (comment != null) {
+            log.debug("Found a comment assign to enum: " + comment);
+            enumD.setComment(comment);
+        }
+
+        // Find what field was annotated as the value we need to use for the declared type
+        FieldInfo valueField = null;
+        int numFlatBufferEnumTypeFieldAnnotations = 0;
+        for (FieldInfo field : getFields(classFile)) {
+            log.debug("  Field: " + field.getName() + " descriptor:" + field.getDescriptor());
+            if (getAnnotation(field.getAttribute(AnnotationsAttribute.visibleTag), FlatBufferEnumTypeField.class) != null) {
+                log.debug("    Annotated field (aforementioned field)");
+
+                // Verify the declaration on the enum matches the declaration of the field
+                if (enumD.getType() == null) {
+                    throw new IllegalArgumentException(
+                            "Missing @FlatBufferEnum(enumType = EnumType.<SELECT>) declaration or remove @FlatBufferEnumTypeField for: "
+                                    + classFile.getName());
+                }
+
+                Class<?> fieldType = getPlatformClassForDescriptor(field.getDescriptor());
+                if (fieldType != null && fieldType.isAssignableFrom(enumD.getType().targetClass)) {
+                    valueField = field;
+                }
+
+                numFlatBufferEnumTypeFieldAnnotations++;
+            }
+        }
+
+        if (numFlatBufferEnumTypeFieldAnnotations > 1) {
+            throw new IllegalArgumentException(
+                    "Can only declare one @FlatBufferEnumTypeField for Enum: " + classFile.getName());
+        }
+
+        List<String> constants = new ArrayList<>();
+        for (FieldInfo field : getFields(classFile)) {
+            if ((field.getAccessFlags() & AccessFlag.ENUM) != 0) {
+                constants.add(field.getName());
+            }
+        }
+
+        Map<String, Number> values = null;
+        if (valueField != null) {
+            values = readEnumConstantValues(classFile, constants, valueField.getName());
+            if (values == null) {
+                log.warn("Unable to follow the values of enum [{}] in its class file; building it by reflection",
+                        classFile.getName());
+                return buildEnumDeclarationByReflection(classFile.getName());
+            }
+        }
+
+        for (String constant : constants) {
+            log.debug("Adding value to Enum: " + constant);
+
+            if (values == null) {
+                // Otherwise, just use the name of the constant
+                enumD.addValue(constant);
+                continue;
+            }
+
+            final String temp = constant + " = ";
+            final Number value = values.get(constant);
+
+            if (enumD.getType() == EnumType.BYTE || enumD.getType() == EnumType.UBYTE) {
+                enumD.addValue(temp + value.byteValue());
+                continue;
+            }
+
+            if (enumD.getType() == EnumType.SHORT || enumD.getType() == EnumType.USHORT) {
+                enumD.addValue(temp + value.shortValue());
+                continue;
+            }
+
+            if (enumD.getType() == EnumType.LONG || enumD.getType() == EnumType.ULONG) {
+                enumD.addValue(temp + value.longValue());
+                continue;
+            }
+
+            if (enumD.getType() == EnumType.INT || enumD.getType() == EnumType.UINT) {
+                enumD.addValue(temp + value.intValue());
+                continue;
+            }
+
+            throw new IllegalArgumentException(
+                    "Enum type must be integral (i.e. byte, ubyte, short, ushort, int, unint, long, or ulong");
+        }
+
+        return enumD;
+    }
+
+    /**
+     * @param classFile Class file which is being considered for an TypeDeclaration
+     * @return a TypeDeclaration
+     * @throws MojoExecutionException if a class file cannot be read
+     */
+    public TypeDeclaration buildTypeDeclaration(ClassFile classFile) throws MojoExecutionException {
+        log.debug("Building Type: " + classFile.getName());
+
+        TypeDeclaration type = new TypeDeclaration();
+        type.setName(getSimpleName(classFile));
+
+        Annotation annotation = getAnnotation(classFile.getAttribute(AnnotationsAttribute.visibleTag), FlatBufferTable.class);
+        if (annotation != null) {
+            type.setRoot((Boolean) getMemberValue(annotation, FlatBufferTable.class, "rootType"));
+            log.debug("Declared root: " + type.isRoot());
+            type.setStructure((TableStructureType) getMemberValue(annotation, FlatBufferTable.class, "value"));
+            log.debug("Table structure: " + type.getStructure());
+        } else {
+            log.debug("Not FlatBufferTable (likely inner class); Generic table created");
+        }
+
+        String comment = getComment(classFile.getAttribute(AnnotationsAttribute.visibleTag));
+        if (comment != null) {
+            log.debug("Found a comment assign to type: " + comment);
+            type.setComment(comment);
+        }
+
+        // Declared fields first and then those inherited; same as the reflective build
+        ClassFile declaringClass = classFile;
+        while (declaringClass != null) {
+            for (FieldInfo field : getFields(declaringClass)) {
+                if ((field.getAccessFlags() & AccessFlag.SYNTHETIC) != 0) {
+                    continue;
+                }
+
+                if (getAnnotation(field.getAttribute(AnnotationsAttribute.visibleTag), FlatBufferIgnore.class) != null) {
+                    log.debug("Ignoring property marked FlatBufferIgnore: " + field.getName());
+                    continue;
+                }
+
+                // Skip static fields in classes
+                if (processor.isIgnoreStaticMembers() && (field.getAccessFlags() & AccessFlag.STATIC) != 0) {
+                    log.debug("Ignoring property marked static: " + field.getName());
+                    continue;
+                }
+
+                log.debug("Adding property to Type: " + field.getName());
+                type.addProperty(getPropertyForField(declaringClass, field));
+            }
+
+            String superclassName = declaringClass.getSuperclass();
+            if (superclassName == null || superclassName.equals(Object.class.getName())) {
+                break;
+            }
+
+            declaringClass = readClassFile(superclassName);
+            if (declaringClass == null) {
+                log.warn("Unable to locate class file for superclass: " + superclassName);
+            }
+        }
+
+        return type;
+    }
+
+    /**
+     * @param declaringClass The class file which declares the field
+     * @param field          A field of the class file
+     * @return A type declaration Property. This contains the name of the field and type {@link FieldType}. When
+     * encountering an array or ident (Indentifier) the options property is used to store additional information.
+     * @throws MojoExecutionException if a class file cannot be read
+     */
+    public Property getPropertyForField(ClassFile declaringClass, FieldInfo field) throws MojoExecutionException {
+        Property property = new Property();
+
+        // Some uses in which we reference other namespaces require us to declare the entirety of the name
+        Annotation annotation = getAnnotation(field.getAttribute(AnnotationsAttribute.visibleTag), FlatBufferFieldOptions.class);
+        boolean useFullName = false;
+        String defaultValue = null;
+        FieldType fieldTypeOverride = null;
+
+        // Process overrides for the field
+        if (annotation != null) {
+            useFullName = (Boolean) getMemberValue(annotation, FlatBufferFieldOptions.class, "useFullName");
+            defaultValue = (String) getMemberValue(annotation, FlatBufferFieldOptions.class, "defaultValue");
+            fieldTypeOverride = (FieldType) getMemberValue(annotation, FlatBufferFieldOptions.class, "fieldType");
+        }
+
+        // Apply a comment if the annotation exists
+        String comment = getComment(field.getAttribute(AnnotationsAttribute.visibleTag));
+        if (comment != null) {
+            log.debug("Found a comment assign to field: " + comment);
+            property.options.put(PropertyOptionKey.COMMENT, comment);
+        }
+
+        // Apply the default value if it was set
+        if (!StringUtils.isEmpty(defaultValue)) {
+            log.debug("Found a default value to assign to field: " + defaultValue);
+            property.options.put(PropertyOptionKey.DEFAULT_VALUE, defaultValue);
+        }
+
+        final String descriptor = field.getDescriptor();
+        final Class<?> fieldType = getPlatformClassForDescriptor(descriptor);
+        if (fieldType != null) {
+            FieldType scalarType = getScalarFieldType(fieldType);
+            if (scalarType != null) {
+                property.name = field.getName();
+                property.type = fieldTypeOverride == null ? scalarType : fieldTypeOverride;
+                return property;
+            }
+        }
+
+        // EX: String[], SomeClass[]
+        if (descriptor.charAt(0) == '[') {
+            return processArray(property, field, useFullName);
+        }
+
+        // EX: List<String>, List<SomeClass>, and Sets<E>
+        if (fieldType != null && (fieldType.isAssignableFrom(List.class) || fieldType.isAssignableFrom(Set.class))) {
+            return processList(property, field, useFullName);
+        }
+
+        // EX: Map<String, Object>
+        if (fieldType != null && fieldType.isAssignableFrom(Map.class)) {
+            return processMap(property, declaringClass, field, useFullName);
+        }
+
+        // Anything else - enum, class, etc.
+        return processClass(property, field, useFullName);
+    }
+
+    /**
+     * @param type A platform type
+     * @return The scalar field type the reflective build would use for the type; null if it is not a scalar
+     */
+    private static FieldType getScalarFieldType(Class<?> type) {
+        if (type.isAssignableFrom(int.class) || type.isAssignableFrom(Integer.class)) {
+            return FieldType.INT;
+        }
+
+        if (type.isAssignableFrom(String.class)) {
+            return FieldType.STRING;
+        }
+
+        if (type.isAssignableFrom(long.class) || type.isAssignableFrom(Long.class)) {
+            return FieldType.LONG;
+        }
+
+        if (type.isAssignableFrom(short.class) || type.isAssignableFrom(Short.class)) {
+            return FieldType.SHORT;
+        }
+
+        if (type.isAssignableFrom(boolean.class) || type.isAssignableFrom(Boolean.class)) {
+            return FieldType.BOOL;
+        }
+
+        if (type.isAssignableFrom(byte.class) || type.isAssignableFrom(Byte.class)) {
+            return FieldType.BYTE;
+        }
+
+        if (type.isAssignableFrom(float.class) || type.isAssignableFrom(Float.class)) {
+            return FieldType.FLOAT;
+        }
+
+        if (type.isAssignableFrom(double.class) || type.isAssignableFrom(Double.class)) {
+            return FieldType.DOUBLE;
+        }
+
+        return null;
+    }
+
+    /**
+     * See {@link com.michaelhradek.aurkitu.plugin.core.processing.ArrayProperties}
+     */
+    private Property processArray(Property property, FieldInfo field, boolean useFullName) throws MojoExecutionException {
+        log.debug("Found array (e.g. int[]) type. Setting FieldType.ARRAY and processing: " + field.getName());
+        property.name = field.getName();
+        property.type = FieldType.ARRAY;
+
+        // Determine type of the array
+        final String componentDescriptor = field.getDescriptor().substring(1);
+        final Class<?> componentType = getPlatformClassForDescriptor(componentDescriptor);
+        String name;
+        if (componentType != null && Utilities.isPrimitiveOrWrapperType(componentType)) {
+            log.debug("Array parameter is primitive, wrapper, or String: " + field.getName());
+            name = Utilities.getPrimitiveNameForWrapperType(componentType);
+        } else if (useFullName) {
+            // Same as Class#getName() of the component type
+            name = componentDescriptor.charAt(0) == '['
+                    ? componentDescriptor.replace('/', '.') : Descriptor.toClassName(componentDescriptor);
+
+            String simpleName = name.substring(name.lastIndexOf(".") + 1);
+            String packageName = name.substring(0, name.lastIndexOf(".") + 1);
+            log.debug(String.format("Using full name; reviewing simpleName: %s and package: %s", simpleName, packageName));
+
+            if (processor.getNamespaceOverrideMap() != null && processor.getNamespaceOverrideMap().containsKey(packageName)) {
+                name = processor.getNamespaceOverrideMap().get(packageName) + simpleName;
+                log.debug("Override located; using it: " + name);
+            }
+        } else {
+            name = getSimpleNameForDescriptor(componentDescriptor);
+        }
+
+        // In the end Array[] and List<?> are represented the same way.
+        property.options.put(PropertyOptionKey.ARRAY, name);
+        return property;
+    }
+
+    /**
+     * See {@link com.michaelhradek.aurkitu.plugin.core.processing.ListProperties}
+     */
+    private Property processList(Property property, FieldInfo field, boolean useFullName) throws MojoExecutionException {
+        log.debug("Found set or list type. Setting FieldType.ARRAY and processing: " + field.getName());
+        property.name = field.getName();
+        property.type = FieldType.ARRAY;
+
+        String listTypeName;
+        try {
+            // Get type class name
+            String[] typeClassNames = getTypeClassNamesFromSignature(field);
+            if (typeClassNames.length > 1) {
+                log.warn("Field " + field.getName()
+                        + " has more than one type class; only first one supported. Type classes: "
+                        + String.join(",", typeClassNames));
+            }
+
+            listTypeName = typeClassNames[0];
+            if (!classExists(listTypeName)) {
+                throw new ClassNotFoundException(listTypeName);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to find class for List<?> parameter, using String instead (field name): " + field.getName());
+            log.warn("Exception:", e);
+            listTypeName = String.class.getName();
+        }
+
+        // Consolidated versus separated schema check
+        String name = getName(listTypeName, field, useFullName);
+        try {
+            if (!processor.isConsolidatedSchemas()) {
+                log.debug("Separated schemas requested; reviewing class");
+                Processor.ExternalClassDefinition externalClassDefinition = processor.getExternalClassDefinitionDetails(listTypeName);
+                if (externalClassDefinition.locatedOutside) {
+                    log.debug(" Located outside this schema; using other namespace");
+                    name = externalClassDefinition.targetNamespace + "." + getSimpleName(listTypeName);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to get external class definition for unconsolidated schema", e);
+        }
+
+        property.options.put(PropertyOptionKey.ARRAY, name);
+        return property;
+    }
+
+    /**
+     * See {@link com.michaelhradek.aurkitu.plugin.core.processing.MapProperties}
+     */
+    private Property processMap(Property property, ClassFile declaringClass, FieldInfo field, boolean useFullName)
+            throws MojoExecutionException {
+        log.debug("Found map type. Setting FieldType.MAP and processing: " + field.getName());
+        property.name = field.getName();
+        property.type = FieldType.MAP;
+
+        // Stuff the types into this list
+        List<Property> properties = new ArrayList<>();
+
+        // Get the type for the key and value
+        String[] typeClassNames = new String[]{String.class.getName(), String.class.getName()};
+        try {
+            typeClassNames = getTypeClassNamesFromSignature(field);
+        } catch (Exception e) {
+            log.warn("Unable to determine classes for Map<?, ?> parameter types", e);
+        }
+
+        // Look up each type (usually will run twice as in A and B in example Map<A, B>)
+        for (int i = 0; i < typeClassNames.length; i++) {
+            String mapTypeName;
+            Property mapTypeProperty = new Property();
+
+            if (typeClassNames[i].equals(Object.class.getName())) {
+                log.warn("Using Map<?, ?> where either `?` is `java.lang.Object` is not permitted; using `java.lang.String`");
+                mapTypeName = String.class.getName();
+            } else if (classExists(typeClassNames[i])) {
+                mapTypeName = typeClassNames[i];
+            } else {
+                log.warn("Unable to find class [" + typeClassNames[i] + "] for Map<?, ?> parameter, using <String, String> instead");
+                mapTypeName = String.class.getName();
+            }
+
+            String name;
+            try {
+                if (!processor.isConsolidatedSchemas()) {
+                    log.debug("Separated schemas requested; reviewing class");
+                    Processor.ExternalClassDefinition externalClassDefinition = processor.getExternalClassDefinitionDetails(mapTypeName);
+                    if (externalClassDefinition.locatedOutside) {
+                        name = externalClassDefinition.targetNamespace + "." + getSimpleName(mapTypeName);
+                    } else {
+                        name = getName(mapTypeName, field, useFullName);
+                    }
+                } else {
+                    name = getName(mapTypeName, field, useFullName);
+                }
+            } catch (MojoExecutionException e) {
+                name = getName(mapTypeName, field, useFullName);
+            }
+
+            // Stuffing...
+            if (i == 0) {
+                mapTypeProperty.name = "key";
+            } else {
+                mapTypeProperty.name = "value";
+            }
+
+            mapTypeProperty.type = FieldType.IDENT;
+            mapTypeProperty.options.put(PropertyOptionKey.IDENT, name);
+
+            // We can only have 2. If there's more than 2 then we're dealing with complex types inside the map
+            if (i > 1) {
+                Property tempProperty = properties.get(1);
+
+                // Handle lists
+                if (tempProperty.options.get(PropertyOptionKey.IDENT).equalsIgnoreCase("list") && i == 2) {
+                    tempProperty.type = FieldType.ARRAY;
+                    tempProperty.options.put(PropertyOptionKey.ARRAY, name);
+                    properties.set(1, tempProperty);
+                }
+            } else {
+                properties.add(mapTypeProperty);
+            }
+        }
+
+        // Create a new type and add it to the list of types
+        TypeDeclaration mapType = new TypeDeclaration();
+        final String mapTypeName = TypeDeclaration.MapValueSet.class.getSimpleName() + "_"
+                + getSimpleName(declaringClass) + "_" + field.getName();
+        mapType.setName(mapTypeName);
+        mapType.setComment("Auto-generated type for use with Map<?, ?>");
+
+        // Set in this type the various types for the K/Vs used in this map
+        mapType.setProperties(properties);
+
+        try {
+            if (processor.isConsolidatedSchemas() || !processor.getExternalClassDefinitionDetails(declaringClass.getName()).locatedOutside) {
+                processor.getDeclarationSchema().addTypeDeclaration(mapType);
+            }
+        } catch (MojoExecutionException e) {
+            log.debug("Unable to determine if declaring class is located outside - skipped adding type [{}] to schema [{}] type definition list",
+                    mapType.getName(), processor.getCurrentSchema().getName());
+        }
+
+        // Need a way to reference back to the new generated type
+        property.options.put(PropertyOptionKey.MAP, mapTypeName);
+        return property;
+    }
+
+    /**
+     * See {@link com.michaelhradek.aurkitu.plugin.core.processing.ClassProperties}
+     */
+    private Property processClass(Property property, FieldInfo field, boolean useFullName) throws MojoExecutionException {
+        String name = field.getName();
+        log.debug("Found unrecognized type; assuming FieldType.IDENT(IFIER) and running processClass(...): " + name);
+
+        property.name = name;
+        property.type = FieldType.IDENT;
+
+        final String typeName = getGenericTypeName(field);
+        String identName;
+
+        try {
+            if (!classExists(typeName)) {
+                throw new ClassNotFoundException(typeName);
+            }
+
+            final String simpleName = getSimpleName(typeName);
+
+            // Consolidated versus separated schema check
+            if (!processor.isConsolidatedSchemas()) {
+                log.debug("Separated schemas requested; reviewing class");
+                Processor.ExternalClassDefinition externalClassDefinition = processor.getExternalClassDefinitionDetails(typeName);
+                if (externalClassDefinition.locatedOutside) {
+                    identName = externalClassDefinition.targetNamespace + "." + simpleName;
+                } else {
+                    identName = useFullName ? typeName : simpleName;
+                }
+            } else {
+                identName = useFullName ? typeName : simpleName;
+            }
+
+            if (useFullName) {
+                String packageName = typeName.substring(0, typeName.lastIndexOf(".") + 1);
+                if (processor.getNamespaceOverrideMap() != null && processor.getNamespaceOverrideMap().containsKey(packageName)) {
+                    identName = processor.getNamespaceOverrideMap().get(packageName) + typeName.substring(typeName.lastIndexOf(".") + 1);
+                    log.debug("Override located; using it: " + identName);
+                }
+            }
+        } catch (Exception e) {
+            if (!processor.getWarnedTypeNames().contains(typeName)) {
+                if (e instanceof ClassNotFoundException) {
+                    log.warn("Class not found for type name: " + typeName);
+                } else {
+                    log.warn("Unable to get class for name: " + typeName, e);
+                }
+                processor.getWarnedTypeNames().add(typeName);
+            }
+
+            if (useFullName) {
+                identName = typeName;
+                String simpleName = identName.substring(identName.lastIndexOf(".") + 1);
+                String packageName = identName.substring(0, identName.lastIndexOf(".") + 1);
+                if (processor.getNamespaceOverrideMap() != null && processor.getNamespaceOverrideMap().containsKey(packageName)) {
+                    identName = processor.getNamespaceOverrideMap().get(packageName) + simpleName;
+                }
+            } else {
+                identName = typeName.substring(typeName.lastIndexOf(".") + 1);
+
+                if (identName.contains("$")) {
+                    identName = identName.substring(identName.lastIndexOf("$"));
+                }
+
+                log.debug("Trimmed: " + typeName + " to " + identName);
+            }
+        }
+
+        property.options.put(PropertyOptionKey.IDENT, identName);
+        return property;
+    }
+
+    /**
+     * See {@link Processor#getName(Class, java.lang.reflect.Field, boolean)}
+     */
+    private String getName(String className, FieldInfo field, boolean useFullName) throws MojoExecutionException {
+        String name = getSimpleName(className);
+        if (useFullName) {
+            name = className;
+
+            String simpleName = className.substring(className.lastIndexOf(".") + 1);
+            String packageName = className.substring(0, className.lastIndexOf(".") + 1);
+            log.debug(String.format("Using full name; reviewing simpleName: %s and package: %s", simpleName, packageName));
+
+            if (processor.getNamespaceOverrideMap() != null && processor.getNamespaceOverrideMap().containsKey(packageName)) {
+                name = processor.getNamespaceOverrideMap().get(packageName) + simpleName;
+                log.debug("Override located; using it: " + name);
+            }
+        }
+
+        Class<?> platformClass = getPlatformClass(className);
+        if (platformClass != null && Utilities.isPrimitiveOrWrapperType(platformClass)) {
+            log.debug("Array parameter is primitive, wrapper, or String: " + field.getName());
+            name = Utilities.getPrimitiveNameForWrapperType(platformClass);
+        }
+
+        return name;
+    }
+
+    /**
+     * Same as {@link Processor#getTypeClassNamesFromParameterizedType(java.lang.reflect.Field)} but read from the
+     * Signature attribute of the field.
+     *
+     * @param field The field of a parameterized type for which we want the actual type class names
+     * @return A list of the names of all actual type classes in the parameterized type
+     * @throws BadBytecode              if the Signature attribute is malformed
+     * @throws IllegalArgumentException if the type of field is not a parameterized type
+     */
+    private static String[] getTypeClassNamesFromSignature(FieldInfo field) throws BadBytecode {
+        SignatureAttribute signature = (SignatureAttribute) field.getAttribute(SignatureAttribute.tag);
+        SignatureAttribute.ObjectType type = signature == null ? null : SignatureAttribute.toFieldSignature(signature.getSignature());
+        if (!(type instanceof SignatureAttribute.ClassType) || ((SignatureAttribute.ClassType) type).getTypeArguments() == null) {
+            throw new IllegalArgumentException("field " + field.getName() + " is not a parameterized type");
+        }
+
+        List<String> typeNames = new ArrayList<>();
+        for (SignatureAttribute.TypeArgument typeArgument : ((SignatureAttribute.ClassType) type).getTypeArguments()) {
+            SignatureAttribute.ObjectType argumentType = typeArgument.getType();
+            if (!typeArgument.isWildcard() && argumentType instanceof SignatureAttribute.ClassType
+                    && ((SignatureAttribute.ClassType) argumentType).getTypeArguments() != null) {
+                // we only descend one level and only grab the first type class from there.
+                SignatureAttribute.ClassType parameterizedType = (SignatureAttribute.ClassType) argumentType;
+                typeNames.add(getRawName(parameterizedType));
+                typeNames.add(getTypeName(parameterizedType.getTypeArguments()[0]));
+            } else {
+                typeNames.add(getTypeName(typeArgument));
+            }
+        }
+
+        return typeNames.toArray(new String[0]);
+    }
+
+    /**
+     * @param field A field
+     * @return The same name as java.lang.reflect.Type#getTypeName() of the generic type of the field
+     * @throws MojoExecutionException if the Signature attribute is malformed
+     */
+    private static String getGenericTypeName(FieldInfo field) throws MojoExecutionException {
+        SignatureAttribute signature = (SignatureAttribute) field.getAttribute(SignatureAttribute.tag);
+        if (signature == null) {
+            return Descriptor.toClassName(field.getDescriptor());
+        }
+
+        try {
+            return getTypeName(SignatureAttribute.toFieldSignature(signature.getSignature()));
+        } catch (BadBytecode e) {
+            throw new MojoExecutionException("Malformed signature of field: " + field.getName(), e);
+        }
+    }
+
+    /**
+     * @param type A type read from a Signature attribute
+     * @return The same name as java.lang.reflect.Type#getTypeName() of the equivalent reflected type
+     */
+    private static String getTypeName(SignatureAttribute.Type type) {
+        if (type instanceof SignatureAttribute.ClassType) {
+            SignatureAttribute.ClassType classType = (SignatureAttribute.ClassType) type;
+
+            // Member classes are read as nested in their (possibly parameterized) declaring class
+            String name = classType.getDeclaringClass() == null
+                    ? classType.getName() : getTypeName(classType.getDeclaringClass()) + "$" + classType.getName();
+            if (classType.getTypeArguments() == null) {
+                return name;
+            }
+
+            StringJoiner typeArguments = new StringJoiner(", ", "<", ">");
+            for (SignatureAttribute.TypeArgument typeArgument : classType.getTypeArguments()) {
+                typeArguments.add(getTypeName(typeArgument));
+            }
+
+            return name + typeArguments;
+        }
+
+        if (type instanceof SignatureAttribute.ArrayType) {
+            SignatureAttribute.ArrayType arrayType = (SignatureAttribute.ArrayType) type;
+            StringBuilder name = new StringBuilder(getTypeName(arrayType.getComponentType()));
+            for (int i = 0; i < arrayType.getDimension(); i++) {
+                name.append("[]");
+            }
+
+            return name.toString();
+        }
+
+        if (type instanceof SignatureAttribute.TypeVariable) {
+            return ((SignatureAttribute.TypeVariable) type).getName();
+        }
+
+        return Descriptor.toClassName(String.valueOf(((SignatureAttribute.BaseType) type).getDescriptor()));
+    }
+
+    /**
+     * @param classType A class type read from a Signature attribute
+     * @return The binary name of the class, without type arguments; the same as Class#getName()
+     */
+    private static String getRawName(SignatureAttribute.ClassType classType) {
+        SignatureAttribute.ClassType declaringClass = classType.getDeclaringClass();
+        return declaringClass == null ? classType.getName() : getRawName(declaringClass) + "$" + classType.getName();
+    }
+
+    /**
+     * @param typeArgument A type argument read from a Signature attribute
+     * @return The same name as java.lang.reflect.Type#getTypeName() of the equivalent reflected type (or wildcard)
+     */
+    private static String getTypeName(SignatureAttribute.TypeArgument typeArgument) {
+        switch (typeArgument.getKind()) {
+            case '*':
+                return "?";
+            case '-':
+                return "? super " + getTypeName(typeArgument.getType());
+            case '+':
+                String bound = getTypeName(typeArgument.getType());
+                return bound.equals(Object.class.getName()) ? "?" : "? extends " + bound;
+            default:
+                return getTypeName(typeArgument.getType());
+        }
+    }
+
+    /**
+     * @param className The binary name of a class
+     * @return true if the class is a platform type or its class file can be located on the schema's classpath
+     * @throws MojoExecutionException if the class file cannot be read
+     */
+    private boolean classExists(String className) throws MojoExecutionException {
+        // Generic, wildcard and array type names never name a class; the same as a failed class lookup
+        if (className.isEmpty()) {
+            return false;
+        }
+
+        for (char c : "<>[]?, ".toCharArray()) {
+            if (className.indexOf(c) >= 0) {
+                return false;
+            }
+        }
+
+        return getPlatformClass(className) != null || readClassFile(className) != null;
+    }
+
+    /**
+     * @param className The binary name of a class
+     * @return The simple name of the class; the same as Class#getSimpleName()
+     * @throws MojoExecutionException if the class file cannot be read
+     */
+    private String getSimpleName(String className) throws MojoExecutionException {
+        Class<?> platformClass = getPlatformClass(className);
+        if (platformClass != null) {
+            return platformClass.getSimpleName();
+        }
+
+        ClassFile classFile = readClassFile(className);
+        if (classFile != null) {
+            return getSimpleName(classFile);
+        }
+
+        String simpleName = className.substring(className.lastIndexOf(".") + 1);
+        return simpleName.substring(simpleName.lastIndexOf("$") + 1);
+    }
+
+    /**
+     * @param descriptor A field descriptor
+     * @return The simple name of the type; the same as Class#getSimpleName()
+     * @throws MojoExecutionException if the class file cannot be read
+     */
+    private String getSimpleNameForDescriptor(String descriptor) throws MojoExecutionException {
+        Class<?> platformClass = getPlatformClassForDescriptor(descriptor);
+        if (platformClass != null) {
+            return platformClass.getSimpleName();
+        }
+
+        if (descriptor.charAt(0) == '[') {
+            return getSimpleNameForDescriptor(descriptor.substring(1)) + "[]";
+        }
+
+        return getSimpleName(Descriptor.toClassName(descriptor));
+    }
+
+    /**
+     * @param classFile A class file
+     * @return The simple name of the class; the same as Class#getSimpleName()
+     */
+    private static String getSimpleName(ClassFile classFile) {
+        InnerClassesAttribute innerClasses = (InnerClassesAttribute) classFile.getAttribute(InnerClassesAttribute.tag);
+        if (innerClasses != null) {
+            for (int i = 0; i < innerClasses.tableLength(); i++) {
+                if (classFile.getName().equals(innerClasses.innerClass(i))) {
+                    // Anonymous classes have no name
+                    return innerClasses.innerName(i) == null ? "" : innerClasses.innerName(i);
+                }
+            }
+        }
+
+        return classFile.getName().substring(classFile.getName().lastIndexOf(".") + 1);
+    }
+
+    /**
+     * @param classFile A class file
+     * @return The binary names of the member classes; the same classes as Class#getDeclaredClasses()
+     */
+    private static List<String> getDeclaredClassNames(ClassFile classFile) {
+        List<String> result = new ArrayList<>();
+        InnerClassesAttribute innerClasses = (InnerClassesAttribute) classFile.getAttribute(InnerClassesAttribute.tag);
+        if (innerClasses != null) {
+            for (int i = 0; i < innerClasses.tableLength(); i++) {
+                if (classFile.getName().equals(innerClasses.outerClass(i))) {
+                    result.add(innerClasses.innerClass(i));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param classFile Class file to test if it is an Enum; an anonymous class is tested by its superclass
+     * @return boolean
+     * @throws MojoExecutionException if the class file of the superclass cannot be read
+     */
+    private boolean isEnumWorkaround(ClassFile classFile) throws MojoExecutionException {
+        ClassFile temp = classFile;
+        if (getSimpleName(classFile).isEmpty() && classFile.getName().contains("$")) {
+            temp = readClassFile(classFile.getSuperclass());
+            if (temp == null) {
+                return false;
+            }
+        }
+
+        return (temp.getAccessFlags() & AccessFlag.ENUM) != 0 && Enum.class.getName().equals(temp.getSuperclass());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<FieldInfo> getFields(ClassFile classFile) {
+        return (List<FieldInfo>) classFile.getFields();
+    }
+
+    /**
+     * @param attribute      The RuntimeVisibleAnnotations attribute of a class or field; may be null
+     * @param annotationType The annotation to look for
+     * @return The annotation; null if it is not present
+     */
+    private static Annotation getAnnotation(AttributeInfo attribute, Class<? extends java.lang.annotation.Annotation> annotationType) {
+        if (!(attribute instanceof AnnotationsAttribute)) {
+            return null;
+        }
+
+        return ((AnnotationsAttribute) attribute).getAnnotation(annotationType.getName());
+    }
+
+    /**
+     * @param attribute The RuntimeVisibleAnnotations attribute of a class or field; may be null
+     * @return The comment of the FlatBufferComment annotation; null if it is not present or empty
+     */
+    private static String getComment(AttributeInfo attribute) {
+        Annotation annotation = getAnnotation(attribute, FlatBufferComment.class);
+        if (annotation == null) {
+            return null;
+        }
+
+        String comment = (String) getMemberValue(annotation, FlatBufferComment.class, "comment");
+        return StringUtils.isEmpty(comment) ? null : comment;
+    }
+
+    /**
+     * @param annotation     An annotation read from a class file
+     * @param annotationType The type of the annotation
+     * @param memberName     The member to read
+     * @return The value of the member as the annotation type would return it; the member's default if not present
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object getMemberValue(Annotation annotation, Class<? extends java.lang.annotation.Annotation> annotationType,
+                                         String memberName) {
+        Method member;
+        try {
+            member = annotationType.getMethod(memberName);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Unknown member: " + annotationType.getName() + "." + memberName, e);
+        }
+
+        MemberValue value = annotation.getMemberValue(memberName);
+        if (value == null) {
+            return member.getDefaultValue();
+        }
+
+        if (value instanceof EnumMemberValue) {
+            return Enum.valueOf((Class<Enum>) member.getReturnType(), ((EnumMemberValue) value).getValue());
+        }
+
+        if (value instanceof BooleanMemberValue) {
+            return ((BooleanMemberValue) value).getValue();
+        }
+
+        if (value instanceof StringMemberValue) {
+            return ((StringMemberValue) value).getValue();
+        }
+
+        throw new IllegalArgumentException("Unsupported value for member: " + annotationType.getName() + "." + memberName);
+    }
+
+    /**
+     * @param className The binary name of a class
+     * @return The class if it is a platform type (i.e. java.lang.Integer); otherwise null
+     */
+    private Class<?> getPlatformClass(String className) {
+        Class<?> result = platformClasses.get(className);
+        if (result != null || nonPlatformClassNames.contains(className)) {
+            return result;
+        }
+
+        try {
+            result = Class.forName(className, false, PLATFORM_CLASS_LOADER);
+        } catch (ClassNotFoundException | LinkageError e) {
+            nonPlatformClassNames.add(className);
+            return null;
+        }
+
+        platformClasses.put(className, result);
+        return result;
+    }
+
+    /**
+     * @param descriptor A field descriptor
+     * @return The class if it is a primitive, a platform type or an array of those; otherwise null
+     */
+    private Class<?> getPlatformClassForDescriptor(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'Z':
+                return boolean.class;
+            case 'B':
+                return byte.class;
+            case 'C':
+                return char.class;
+            case 'S':
+                return short.class;
+            case 'I':
+                return int.class;
+            case 'J':
+                return long.class;
+            case 'F':
+                return float.class;
+            case 'D':
+                return double.class;
+            case '[':
+                Class<?> componentType = getPlatformClassForDescriptor(descriptor.substring(1));
+                return componentType == null ? null : Array.newInstance(componentType, 0).getClass();
+            default:
+                return getPlatformClass(Descriptor.toClassName(descriptor));
+        }
+    }
+
+    /**
+     * @param className The binary name of a class
+     * @return The class file; null if it cannot be located
+     * @throws MojoExecutionException if the class file cannot be read
+     */
+    private ClassFile readClassFile(String className) throws MojoExecutionException {
+        try {
+            return processor.readClassFile(className);
+        } catch (DependencyResolutionRequiredException | IOException e) {
+            throw new MojoExecutionException("Unable to read class file of: " + className, e);
+        }
+    }
+
+    /**
+     * @param className The enum which could not be followed in its class file
+     * @return an EnumDeclaration built by reflection
+     * @throws MojoExecutionException if the class cannot be loaded
+     */
+    private EnumDeclaration buildEnumDeclarationByReflection(String className) throws MojoExecutionException {
+        try {
+            return processor.buildEnumDeclaration(processor.resolveClass(className));
+        } catch (ClassNotFoundException | DependencyResolutionRequiredException | IOException e) {
+            throw new MojoExecutionException("Unable to load enum: " + className, e);
+        }
+    }
+
+    /**
+     * Follows the static initialiser of an enum which constructs each constant from constant arguments, and then
+     * the constructors to the assignment of the value field.
+     *
+     * @param enumClass      The class file of the enum
+     * @param constants      The names of the enum constants
+     * @param valueFieldName The name of the field annotated with FlatBufferEnumTypeField
+     * @return The value of the field for each constant; null if the initialiser could not be followed
+     * @throws MojoExecutionException if a class file cannot be read
+     */
+    private Map<String, Number> readEnumConstantValues(ClassFile enumClass, List<String> constants, String valueFieldName)
+            throws MojoExecutionException {
+        MethodInfo staticInitializer = enumClass.getStaticInitializer();
+        if (staticInitializer == null || staticInitializer.getCodeAttribute() == null) {
+            return null;
+        }
+
+        Map<String, Number> values = new HashMap<>();
+        ConstPool constPool = enumClass.getConstPool();
+        Deque<Object> stack = new ArrayDeque<>();
+        CodeIterator iterator = staticInitializer.getCodeAttribute().iterator();
+
+        // The constants are constructed first; the rest of the initialiser is of no interest
+        while (values.size() < constants.size() && iterator.hasNext()) {
+            int pos;
+            try {
+                pos = iterator.next();
+            } catch (BadBytecode e) {
+                return null;
+            }
+
+            int opcode = iterator.byteAt(pos);
+            if (followCommon(iterator, pos, opcode, constPool, stack)) {
+                continue;
+            }
+
+            switch (opcode) {
+                case Opcode.NEW:
+                    stack.push(new Construction());
+                    break;
+                case Opcode.INVOKESPECIAL: {
+                    int index = iterator.u16bitAt(pos + 1);
+                    List<Object> arguments = popArguments(stack, constPool.getMethodrefType(index));
+                    if (arguments == null || stack.isEmpty() || !(stack.peek() instanceof Construction)) {
+                        return null;
+                    }
+
+                    Construction construction = (Construction) stack.pop();
+                    construction.className = constPool.getMethodrefClassName(index);
+                    construction.descriptor = constPool.getMethodrefType(index);
+                    construction.arguments = arguments;
+                    break;
+                }
+                case Opcode.PUTSTATIC: {
+                    int index = iterator.u16bitAt(pos + 1);
+                    String fieldName = constPool.getFieldrefName(index);
+                    if (stack.isEmpty() || !enumClass.getName().equals(constPool.getFieldrefClassName(index))
+                            || !constants.contains(fieldName) || !(stack.peek() instanceof Construction)) {
+                        return null;
+                    }
+
+                    Construction construction = (Construction) stack.pop();
+                    if (construction.arguments == null) {
+                        return null;
+                    }
+
+                    Object value = followConstructor(construction.className, construction.descriptor,
+                            construction.arguments, valueFieldName, 0);
+                    if (!(value instanceof Number)) {
+                        return null;
+                    }
+
+                    values.put(fieldName, (Number) value);
+                    break;
+                }
+                default:
+                    return null;
+            }
+        }
+
+        return values.size() == constants.size() ? values : null;
+    }
+
+    /**
+     * @param className      The class declaring the constructor
+     * @param descriptor     The descriptor of the constructor
+     * @param arguments      The symbolic arguments passed to the constructor
+     * @param valueFieldName The name of the field annotated with FlatBufferEnumTypeField
+     * @param depth          The number of constructors followed so far
+     * @return The value last assigned to the value field; null if it is not assigned, UNSUPPORTED if the constructor
+     * could not be followed
+     * @throws MojoExecutionException if a class file cannot be read
+     */
+    private Object followConstructor(String className, String descriptor, List<Object> arguments, String valueFieldName,
+                                     int depth) throws MojoExecutionException {
+        ClassFile classFile = depth > MAX_CONSTRUCTOR_DEPTH ? null : readClassFile(className);
+        if (classFile == null) {
+            return UNSUPPORTED;
+        }
+
+        MethodInfo constructor = null;
+        for (Object method : classFile.getMethods()) {
+            MethodInfo methodInfo = (MethodInfo) method;
+            if (methodInfo.isConstructor() && methodInfo.getDescriptor().equals(descriptor)) {
+                constructor = methodInfo;
+            }
+        }
+
+        if (constructor == null || constructor.getCodeAttribute() == null) {
+            return UNSUPPORTED;
+        }
+
+        // Parameters follow this; long and double take two slots
+        Object[] locals = new Object[Math.max(constructor.getCodeAttribute().getMaxLocals(), 1)];
+        locals[0] = THIS;
+        int slot = 1;
+        List<String> parameterDescriptors = getParameterDescriptors(descriptor);
+        for (int i = 0; i < parameterDescriptors.size() && slot < locals.length; i++) {
+            locals[slot] = arguments.get(i);
+            slot += parameterDescriptors.get(i).equals("J") || parameterDescriptors.get(i).equals("D") ? 2 : 1;
+        }
+
+        Object assigned = null;
+        ConstPool constPool = classFile.getConstPool();
+        Deque<Object> stack = new ArrayDeque<>();
+        CodeIterator iterator = constructor.getCodeAttribute().iterator();
+        while (iterator.hasNext()) {
+            int pos;
+            try {
+                pos = iterator.next();
+            } catch (BadBytecode e) {
+                return UNSUPPORTED;
+            }
+
+            int opcode = iterator.byteAt(pos);
+            if (followCommon(iterator, pos, opcode, constPool, stack)) {
+                continue;
+            }
+
+            int localIndex = getLoadedLocal(iterator, pos, opcode);
+            if (localIndex >= 0) {
+                if (localIndex >= locals.length) {
+                    return UNSUPPORTED;
+                }
+
+                stack.push(locals[localIndex] == null ? UNKNOWN : locals[localIndex]);
+                continue;
+            }
+
+            switch (opcode) {
+                case Opcode.INVOKESPECIAL: {
+                    // Only this(...) and super(...) are followed
+                    int index = iterator.u16bitAt(pos + 1);
+                    List<Object> invokeArguments = popArguments(stack, constPool.getMethodrefType(index));
+                    if (invokeArguments == null || stack.isEmpty() || stack.pop() != THIS
+                            || !"<init>".equals(constPool.getMethodrefName(index))) {
+                        return UNSUPPORTED;
+                    }
+
+                    String owner = constPool.getMethodrefClassName(index);
+                    if (owner.equals(Enum.class.getName()) || owner.equals(Object.class.getName())) {
+                        break;
+                    }
+
+                    Object result = followConstructor(owner, constPool.getMethodrefType(index), invokeArguments,
+                            valueFieldName, depth + 1);
+                    if (result == UNSUPPORTED) {
+                        return UNSUPPORTED;
+                    }
+
+                    if (result != null) {
+                        assigned = result;
+                    }
+                    break;
+                }
+                case Opcode.PUTFIELD: {
+                    int index = iterator.u16bitAt(pos + 1);
+                    if (stack.size() < 2) {
+                        return UNSUPPORTED;
+                    }
+
+                    Object value = stack.pop();
+                    if (stack.pop() == THIS && valueFieldName.equals(constPool.getFieldrefName(index))) {
+                        assigned = value;
+                    }
+                    break;
+                }
+                case Opcode.RETURN:
+                    return assigned;
+                default:
+                    return UNSUPPORTED;
+            }
+        }
+
+        return UNSUPPORTED;
+    }
+
+    /**
+     * Follows the instructions shared by static initialisers and constructors: constants, dup, checkcast, integral
+     * conversions and boxing.
+     *
+     * @return true if the instruction was followed
+     */
+    private static boolean followCommon(CodeIterator iterator, int pos, int opcode, ConstPool constPool, Deque<Object> stack) {
+        switch (opcode) {
+            case Opcode.ACONST_NULL:
+                stack.push(UNKNOWN);
+                return true;
+            case Opcode.ICONST_M1:
+            case Opcode.ICONST_0:
+            case Opcode.ICONST_1:
+            case Opcode.ICONST_2:
+            case Opcode.ICONST_3:
+            case Opcode.ICONST_4:
+            case Opcode.ICONST_5:
+                stack.push(opcode - Opcode.ICONST_0);
+                return true;
+            case Opcode.LCONST_0:
+            case Opcode.LCONST_1:
+                stack.push((long) (opcode - Opcode.LCONST_0));
+                return true;
+            case Opcode.BIPUSH:
+                stack.push(iterator.signedByteAt(pos + 1));
+                return true;
+            case Opcode.SIPUSH:
+                stack.push(iterator.s16bitAt(pos + 1));
+                return true;
+            case Opcode.LDC:
+                stack.push(getLdcValue(constPool, iterator.byteAt(pos + 1)));
+                return true;
+            case Opcode.LDC_W:
+            case Opcode.LDC2_W:
+                stack.push(getLdcValue(constPool, iterator.u16bitAt(pos + 1)));
+                return true;
+            case Opcode.DUP:
+                if (stack.isEmpty()) {
+                    return false;
+                }
+
+                stack.push(stack.peek());
+                return true;
+            case Opcode.CHECKCAST:
+                return !stack.isEmpty();
+            case Opcode.I2L:
+            case Opcode.I2B:
+            case Opcode.I2S:
+            case Opcode.I2C:
+            case Opcode.L2I:
+                if (stack.isEmpty()) {
+                    return false;
+                }
+
+                stack.push(convert(opcode, stack.pop()));
+                return true;
+            case Opcode.INVOKESTATIC: {
+                // Boxing (i.e. Byte.valueOf(byte)) keeps the value
+                int index = iterator.u16bitAt(pos + 1);
+                return "valueOf".equals(constPool.getMethodrefName(index)) && !stack.isEmpty()
+                        && constPool.getMethodrefClassName(index).startsWith("java.lang.")
+                        && getParameterDescriptors(constPool.getMethodrefType(index)).size() == 1
+                        && constPool.getMethodrefType(index).charAt(1) != 'L';
+            }
+            default:
+                return false;
+        }
+    }
+
+    private static Object getLdcValue(ConstPool constPool, int index) {
+        Object value = constPool.getLdcValue(index);
+        return value == null ? UNKNOWN : value;
+    }
+
+    private static Object convert(int opcode, Object value) {
+        if (!(value instanceof Number)) {
+            return UNKNOWN;
+        }
+
+        Number number = (Number) value;
+        switch (opcode) {
+            case Opcode.I2L:
+                return number.longValue();
+            case Opcode.I2B:
+                return (int) (byte) number.intValue();
+            case Opcode.I2S:
+                return (int) (short) number.intValue();
+            case Opcode.I2C:
+                return (int) (char) number.intValue();
+            default:
+                return number.intValue();
+        }
+    }
+
+    /**
+     * @return The index of the local loaded by the instruction; -1 if it does not load a local
+     */
+    private static int getLoadedLocal(CodeIterator iterator, int pos, int opcode) {
+        switch (opcode) {
+            case Opcode.ALOAD:
+            case Opcode.ILOAD:
+            case Opcode.LLOAD:
+            case Opcode.FLOAD:
+            case Opcode.DLOAD:
+                return iterator.byteAt(pos + 1);
+            default:
+                break;
+        }
+
+        if (opcode >= Opcode.ILOAD_0 && opcode <= Opcode.ALOAD_3) {
+            // iload_<n>, lload_<n>, fload_<n>, dload_<n> and aload_<n> are laid out in groups of four
+            return (opcode - Opcode.ILOAD_0) % 4;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return The arguments popped off the stack, in declaration order; null if the stack holds too few values
+     */
+    private static List<Object> popArguments(Deque<Object> stack, String methodDescriptor) {
+        int count = getParameterDescriptors(methodDescriptor).size();
+        if (stack.size() < count) {
+            return null;
+        }
+
+        LinkedList<Object> arguments = new LinkedList<>();
+        for (int i = 0; i < count; i++) {
+            arguments.addFirst(stack.pop());
+        }
+
+        return arguments;
+    }
+
+    /**
+     * @param methodDescriptor A method descriptor (i.e. (Ljava/lang/String;IB)V)
+     * @return The descriptor of each parameter
+     */
+    private static List<String> getParameterDescriptors(String methodDescriptor) {
+        List<String> result = new ArrayList<>();
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            int start = i;
+            while (methodDescriptor.charAt(i) == '[') {
+                i++;
+            }
+
+            if (methodDescriptor.charAt(i) == 'L') {
+                i = methodDescriptor.indexOf(';', i);
+            }
+
+            i++;
+            result.add(methodDescriptor.substring(start, i));
+        }
+
+        return result;
+    }
+
+    /**
+     * An object being constructed by the static initialiser of an enum
+     */
+    private static class Construction {
+        private String className;
+        private String descriptor;
+        private List<Object> arguments;
+    }
+}
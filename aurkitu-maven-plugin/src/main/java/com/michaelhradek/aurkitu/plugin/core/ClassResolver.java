@@ -0,0 +1,143 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import javassist.bytecode.ClassFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves class names for a single schema against one class loader which lives for the duration of a
+ * {@link Processor} execution. Successful and failed lookups are both remembered so each type name is only ever
+ * loaded (or searched for) once. Class files can also be read without loading (or initialising) the class.
+ *
+ * @author m.hradek
+ */
+@Slf4j
+public class ClassResolver implements Closeable {
+
+    private final ClassLoader classLoader;
+    private final URLClassLoader ownedClassLoader;
+    private final Map<String, Class<?>> resolvedClasses;
+    private final Set<String> unresolvedClassNames;
+    private final Map<String, ClassFile> classFiles;
+    private final Set<String> missingClassFileNames;
+
+    /**
+     * @param parent The class loader to resolve against; it is not closed by this resolver
+     */
+    public ClassResolver(ClassLoader parent) {
+        this(null, parent);
+    }
+
+    /**
+     * @param urls   The classpath to resolve against. If null, the parent class loader is used directly.
+     * @param parent The parent of the class loader created for the given urls
+     */
+    public ClassResolver(URL[] urls, ClassLoader parent) {
+        if (urls == null) {
+            ownedClassLoader = null;
+            classLoader = parent;
+        } else {
+            ownedClassLoader = new URLClassLoader(urls, parent);
+            classLoader = ownedClassLoader;
+        }
+
+        // Shared by the threads building declarations in parallel
+        resolvedClasses = new ConcurrentHashMap<>();
+        unresolvedClassNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        classFiles = new ConcurrentHashMap<>();
+        missingClassFileNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+
+    /**
+     * @param className The name of the class we need to locate
+     * @return The class we located
+     * @throws ClassNotFoundException if the class cannot be located, now or during a previous lookup
+     */
+    public Class<?> loadClass(String className) throws ClassNotFoundException {
+        Class<?> result = resolvedClasses.get(className);
+        if (result != null) {
+            return result;
+        }
+
+        if (unresolvedClassNames.contains(className)) {
+            throw new ClassNotFoundException(className);
+        }
+
+        try {
+            result = classLoader.loadClass(className);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("Unable to resolve class: " + className);
+            unresolvedClassNames.add(className);
+            throw e;
+        }
+
+        resolvedClasses.put(className, result);
+        return result;
+    }
+
+    /**
+     * Reads the class file of a class as a resource of the class loader. The class is not defined by the class loader.
+     *
+     * @param className The binary name of the class we need the class file of
+     * @return The parsed class file; null if the class file cannot be located, now or during a previous lookup
+     * @throws IOException if the class file cannot be read
+     */
+    public ClassFile getClassFile(String className) throws IOException {
+        ClassFile result = classFiles.get(className);
+        if (result != null) {
+            return result;
+        }
+
+        if (missingClassFileNames.contains(className)) {
+            return null;
+        }
+
+        InputStream inputStream = classLoader.getResourceAsStream(className.replace('.', '/') + ".class");
+        if (inputStream == null) {
+            log.debug("Unable to locate class file: " + className);
+            missingClassFileNames.add(className);
+            return null;
+        }
+
+        try (DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(inputStream))) {
+            result = new ClassFile(dataInputStream);
+        }
+
+        classFiles.put(className, result);
+        return result;
+    }
+
+    /**
+     * @return The class loader lookups are made against
+     */
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Closes the class loader if it was created by this resolver. Classes which were already resolved remain usable.
+     *
+     * @throws IOException if the underlying class loader cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        resolvedClasses.clear();
+        unresolvedClassNames.clear();
+        classFiles.clear();
+        missingClassFileNames.clear();
+        if (ownedClassLoader != null) {
+            ownedClassLoader.close();
+        }
+    }
+}
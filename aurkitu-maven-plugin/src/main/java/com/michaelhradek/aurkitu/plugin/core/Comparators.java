@@ -11,6 +11,19 @@ public class Comparators {
     // Static class
     private Comparators() {}
 
+    // Ignores case like the declaration comparators; names which only differ by case are then ordered by case
+    public static Comparator<String> DECLARATION_NAME = new Comparator<String>() {
+        @Override
+        public int compare(String o1, String o2) {
+            if (o1 == null || o2 == null) {
+                return o1 == null ? (o2 == null ? 0 : -1) : 1;
+            }
+
+            int result = o1.compareToIgnoreCase(o2);
+            return result != 0 ? result : o1.compareTo(o2);
+        }
+    };
+
     public static Comparator<TypeDeclaration> TYPE_DECLARATION = new Comparator<TypeDeclaration>() {
         @Override
         public int compare(TypeDeclaration o1, TypeDeclaration o2) {
@@ -18,6 +18,8 @@ import com.michaelhradek.aurkitu.plugin.core.processing.ListProperties;
 import com.michaelhradek.aurkitu.plugin.core.processing.MapProperties;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import javassist.bytecode.ClassFile;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -27,17 +29,19 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * @author m.hradek
@@ -56,12 +60,38 @@ public class Processor {
     private List<Schema> candidateSchemas;
     private List<Schema> processedSchemas;
     private boolean validateSchemas = false;
+    private boolean validationFailFast;
     private Validator validator;
     private boolean ignoreStaticMembers;
+    private boolean sharedClasspathScan;
+    private int buildParallelism = 1;
+    private int schemaParallelism = 1;
+    private boolean bytecodeExtraction;
 
-    // Internal member
+    // Internal member; the schema most recently built. See getCurrentSchema()
     private Schema currentSchema;
 
+    // Class name to the candidate schemas (in candidate order) whose jars contain it; built once per execute()
+    private Map<String, List<Schema>> classOwnershipIndex;
+
+    // Annotated classes per schema from one shared scan of all candidate schemas; identity keyed
+    private Map<Schema, Set<Class<?>>> sharedScanClasses;
+
+    // The context of the schema (or schema fragment) the calling thread is building
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<SchemaContext> schemaContext = new ThreadLocal<>();
+
+    // One class resolver per schema for the duration of execute(); identity keyed as Schema equality is by value
+    private Map<Schema, ClassResolver> classResolvers;
+
+    // The one worker pool of an execute() shared by all parallel work; null when everything runs serially
+    @Getter(AccessLevel.NONE)
+    private ForkJoinPool forkJoinPool;
+
+    // Inherited fields and resolved properties; reused across the schemas of an execution
+    @Getter(AccessLevel.NONE)
+    private final PropertyCache propertyCache = new PropertyCache();
+
     /**
      * An unconsolidated schema means that we do not grab and build all the various inherited models into the target
      * schema.
@@ -76,25 +106,41 @@ public class Processor {
 
     public Processor() {
         sourceAnnotations = new ArrayList<>();
-        warnedTypeNames = new HashSet<>();
+        warnedTypeNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
         // This could be null as the value via Application could be overriden here
         namespaceOverrideMap = new HashMap<>();
         candidateSchemas = new ArrayList<>();
+        classResolvers = new IdentityHashMap<>();
+    }
+
+    /**
+     * @return The schema being built by the calling thread; otherwise the schema most recently built
+     */
+    public Schema getCurrentSchema() {
+        SchemaContext context = schemaContext.get();
+        return context == null ? currentSchema : context.getSchema();
+    }
+
+    /**
+     * @return The target classes of the schema being built by the calling thread; otherwise those of the schema most
+     * recently built
+     */
+    public Set<Class<?>> getTargetClasses() {
+        SchemaContext context = schemaContext.get();
+        return context == null ? targetClasses : context.getTargetClasses();
     }
 
     /**
      * @param mavenProject The project details for class loader functionality
-     * @param schema       The schema currently being considered while reviewing this class
-     * @param className    The name of the class we need to locate
-     * @return The class we located
-     * @throws ClassNotFoundException                if the class cannot be located
+     * @param schema       The schema currently being considered
+     * @return The compiled classpath elements of the project followed by the classpath references of the schema
      * @throws IOException                           if one of the classpathElements are a malformed URL
      * @throws DependencyResolutionRequiredException if MavenProject is unable to resolve the
      *                                               compiled classpath elements
      */
-    public static Class<?> getClassForClassName(MavenProject mavenProject, Schema schema, String className)
-            throws ClassNotFoundException, DependencyResolutionRequiredException, IOException {
+    private static URL[] buildSchemaClasspath(MavenProject mavenProject, Schema schema)
+            throws DependencyResolutionRequiredException, IOException {
 
         List<String> classpathElements = mavenProject.getCompileClasspathElements();
         List<URL> projectClasspathList = new ArrayList<>();
@@ -103,16 +149,86 @@ public class Processor {
             projectClasspathList.add(new File(element).toURI().toURL());
         }
 
-        for (ClasspathReference reference : schema.getClasspathReferenceList()) {
-            log.debug("Adding classpath reference (via currentSchema): " + reference.getUrl());
-            projectClasspathList.add(reference.getUrl());
+        if (schema != null) {
+            for (ClasspathReference reference : schema.getClasspathReferenceList()) {
+                log.debug("Adding classpath reference (via currentSchema): " + reference.getUrl());
+                projectClasspathList.add(reference.getUrl());
+            }
         }
 
-        URLClassLoader urlClassLoader = new URLClassLoader(projectClasspathList.toArray(new URL[]{}), Thread.currentThread().getContextClassLoader());
+        return projectClasspathList.toArray(new URL[]{});
+    }
+
+    /**
+     * Resolves a class name against the shared, cached class loader of the current schema. The class loader is
+     * created on first use and kept until the end of {@link #execute()}.
+     *
+     * @param className The name of the class we need to locate
+     * @return The class we located
+     * @throws ClassNotFoundException                if the class cannot be located
+     * @throws IOException                           if one of the classpathElements are a malformed URL
+     * @throws DependencyResolutionRequiredException if MavenProject is unable to resolve the
+     *                                               compiled classpath elements
+     */
+    public Class<?> resolveClass(String className)
+            throws ClassNotFoundException, DependencyResolutionRequiredException, IOException {
+        return getClassResolver(getCurrentSchema()).loadClass(className);
+    }
 
-        Class<?> result = urlClassLoader.loadClass(className);
-        urlClassLoader.close();
-        return result;
+    /**
+     * Reads a class file from the shared, cached class loader of the current schema without loading the class.
+     *
+     * @param className The binary name of the class we need the class file of
+     * @return The class file; null if it cannot be located
+     * @throws IOException                           if one of the classpathElements are a malformed URL or the class
+     *                                               file cannot be read
+     * @throws DependencyResolutionRequiredException if MavenProject is unable to resolve the
+     *                                               compiled classpath elements
+     */
+    public ClassFile readClassFile(String className) throws DependencyResolutionRequiredException, IOException {
+        return getClassResolver(getCurrentSchema()).getClassFile(className);
+    }
+
+    /**
+     * @param schema The schema whose classpath the resolver should search
+     * @return The class resolver for the schema; created if this is the first request for it
+     * @throws IOException                           if one of the classpathElements are a malformed URL
+     * @throws DependencyResolutionRequiredException if MavenProject is unable to resolve the
+     *                                               compiled classpath elements
+     */
+    private synchronized ClassResolver getClassResolver(Schema schema) throws DependencyResolutionRequiredException, IOException {
+        ClassResolver classResolver = classResolvers.get(schema);
+        if (classResolver != null) {
+            return classResolver;
+        }
+
+        ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        if (artifactReference == null || artifactReference.getMavenProject() == null) {
+            log.debug("MavenProject is null; resolving classes with the context class loader");
+            classResolver = new ClassResolver(parent);
+        } else {
+            classResolver = new ClassResolver(buildSchemaClasspath(artifactReference.getMavenProject(), schema), parent);
+        }
+
+        classResolvers.put(schema, classResolver);
+        return classResolver;
+    }
+
+    /**
+     * Closes every class resolver opened during the current execution and forgets what was resolved with them
+     */
+    private synchronized void closeClassResolvers() {
+        propertyCache.clear();
+
+        for (ClassResolver classResolver : classResolvers.values()) {
+            try {
+                classResolver.close();
+            } catch (IOException e) {
+                log.warn("Unable to close class resolver: " + e.getMessage());
+            }
+        }
+
+        classResolvers.clear();
     }
 
     /**
@@ -162,6 +278,8 @@ public class Processor {
      * @return an instance of the Processor object
      */
     public Processor withArtifactReference(ArtifactReference artifactReference) {
+        // Resolvers were built against the previous project's classpath
+        closeClassResolvers();
         this.artifactReference = artifactReference;
         return this;
     }
@@ -187,6 +305,8 @@ public class Processor {
                     item.getValue().endsWith(".") ? item.getValue() : item.getValue() + ".");
         }
 
+        // Previously resolved names may no longer apply
+        propertyCache.clear();
         this.namespaceOverrideMap = temp;
         return this;
     }
@@ -213,6 +333,7 @@ public class Processor {
             return this;
         }
 
+        propertyCache.clear();
         this.consolidatedSchemas = consolidatedSchemas;
         return this;
     }
@@ -230,6 +351,70 @@ public class Processor {
         return this;
     }
 
+    /**
+     * Only applies to unconsolidated schemas. When set, the classpath references of all candidate schemas are scanned
+     * once together and the annotated classes are partitioned back to the schemas which contain them, rather than
+     * scanning each schema separately.
+     *
+     * @param sharedClasspathScan boolean if we should scan all candidate schemas in a single pass
+     * @return an instance of the Processor object
+     */
+    public Processor withSharedClasspathScan(Boolean sharedClasspathScan) {
+        if (sharedClasspathScan == null) {
+            return this;
+        }
+
+        this.sharedClasspathScan = sharedClasspathScan;
+        return this;
+    }
+
+    /**
+     * @param buildParallelism The number of threads used to build the type and enum declarations of a schema. A value
+     *                         of 1 or less builds them serially. Sending null does not alter the setting
+     * @return an instance of the Processor object
+     */
+    public Processor withBuildParallelism(Integer buildParallelism) {
+        if (buildParallelism == null) {
+            return this;
+        }
+
+        this.buildParallelism = buildParallelism;
+        return this;
+    }
+
+    /**
+     * @param schemaParallelism The number of candidate schemas built and validated concurrently. A value of 1 or less
+     *                          processes them one after another. The schemas share the pool of the execution, which is
+     *                          sized by the larger of this and the build parallelism. Sending null does not alter the
+     *                          setting
+     * @return an instance of the Processor object
+     */
+    public Processor withSchemaParallelism(Integer schemaParallelism) {
+        if (schemaParallelism == null) {
+            return this;
+        }
+
+        this.schemaParallelism = schemaParallelism;
+        return this;
+    }
+
+    /**
+     * When set, declarations are built from the class files of the annotated classes rather than by reflection so that
+     * user classes are never loaded or initialised. See {@link ClassFileExtractor}. The shared classpath scan is not used
+     * and the declarations of each schema are built serially; a warning is logged when either was requested.
+     *
+     * @param bytecodeExtraction boolean if we should build declarations from class files
+     * @return an instance of the Processor object
+     */
+    public Processor withBytecodeExtraction(Boolean bytecodeExtraction) {
+        if (bytecodeExtraction == null) {
+            return this;
+        }
+
+        this.bytecodeExtraction = bytecodeExtraction;
+        return this;
+    }
+
     /**
      * @param schema Set the processor to use this schema. Clear any previously added schemas
      * @return an instance of the Processor object
@@ -281,6 +466,20 @@ public class Processor {
         return this;
     }
 
+    /**
+     * @param validationFailFast Set whether or not validation stops at the first table or enum with errors. Sending
+     *                           null does not alter the setting
+     * @return an instance of the Processor object
+     */
+    public Processor withValidationFailFast(Boolean validationFailFast) {
+        if (validationFailFast == null) {
+            return this;
+        }
+
+        this.validationFailFast = validationFailFast;
+        return this;
+    }
+
     /**
      * Executes the processor against the settings and schemas specified
      *
@@ -288,117 +487,453 @@ public class Processor {
      */
     public void execute() throws MojoExecutionException {
         log.debug("Processor: Execution commencing...");
-        List<Schema> processedSchemas = new ArrayList<>();
         log.debug("    Number of schemas to process: " + candidateSchemas.size());
+
+        // Candidate schemas may have changed since the last run
+        this.classOwnershipIndex = null;
+        this.sharedScanClasses = null;
+        if (bytecodeExtraction) {
+            warnBytecodeExtractionOverrides();
+        }
+
+        if (sharedClasspathScan && !bytecodeExtraction && !consolidatedSchemas && candidateSchemas.size() > 1 && !sourceAnnotations.isEmpty()
+                && artifactReference != null && artifactReference.getMavenProject() != null) {
+            log.debug("    Scanning all candidate schemas at once");
+            this.sharedScanClasses = AnnotationParser.findAnnotatedClassesBySchema(artifactReference,
+                    candidateSchemas, sourceAnnotations);
+        }
+
+        List<SchemaContext> schemaContexts = new ArrayList<>(candidateSchemas.size());
         for (Schema schema : candidateSchemas) {
-            log.debug("      Current schema: " + schema.getNamespace());
-            this.currentSchema = schema;
-            this.targetClasses = new HashSet<>();
+            schemaContexts.add(new SchemaContext(schema));
+        }
+
+        int parallelism = Math.max(buildParallelism, schemaParallelism);
+        if (parallelism > 1) {
+            this.forkJoinPool = new ForkJoinPool(parallelism);
+        }
 
-            Schema builtSchema = buildSchema(schema);
-            if (!builtSchema.isEmpty()) {
+        try {
+            process(schemaContexts);
+        } finally {
+            if (forkJoinPool != null) {
+                forkJoinPool.shutdownNow();
+                this.forkJoinPool = null;
+            }
+        }
+
+        log.debug("Processor: Execution complete");
+    }
+
+    /**
+     * Bytecode extraction scans each schema separately and builds its declarations serially, so the settings which would
+     * do otherwise are reported rather than silently dropped
+     */
+    private void warnBytecodeExtractionOverrides() {
+        if (sharedClasspathScan && !consolidatedSchemas && candidateSchemas.size() > 1) {
+            log.warn("Shared classpath scan is not supported with bytecode extraction; scanning each schema separately");
+        }
+
+        if (buildParallelism > 1) {
+            log.warn("Build parallelism is not supported with bytecode extraction; building declarations serially and "
+                    + "validating tables with parallelism: {}", buildParallelism);
+        }
+    }
+
+    /**
+     * Builds and then validates the candidate schemas, on the processor's pool where parallelism is enabled
+     *
+     * @param schemaContexts The contexts of the candidate schemas, in candidate order
+     * @throws MojoExecutionException if anything goes wrong
+     */
+    private void process(List<SchemaContext> schemaContexts) throws MojoExecutionException {
+        try {
+            if (forkJoinPool != null && schemaParallelism > 1 && schemaContexts.size() > 1) {
+                buildSchemasInParallel(schemaContexts);
+            } else {
+                for (SchemaContext context : schemaContexts) {
+                    buildSchema(context);
+                }
+            }
+        } finally {
+            closeClassResolvers();
+        }
+
+        // Includes found through cross-schema lookups are merged once every schema has been built
+        List<Schema> processedSchemas = new ArrayList<>();
+        for (SchemaContext context : schemaContexts) {
+            context.mergeIncludes();
+            if (!context.getSchema().isEmpty()) {
                 // Only put schemas that have declarations in them.
-                processedSchemas.add(builtSchema);
+                processedSchemas.add(context.getSchema());
             }
         }
 
+        if (!schemaContexts.isEmpty()) {
+            SchemaContext lastContext = schemaContexts.get(schemaContexts.size() - 1);
+            this.currentSchema = lastContext.getSchema();
+            this.targetClasses = lastContext.getTargetClasses();
+        }
+
         if (validateSchemas) {
             log.debug("    Validating schemas");
 
+            List<Validator> validators = validateSchemas(processedSchemas);
             for (int i = 0; i < processedSchemas.size(); i++) {
                 Schema validationSchema = processedSchemas.get(i);
-                validator = new Validator().withSchema(validationSchema);
-                validator.validateSchema();
+                validator = validators.get(i);
                 validationSchema.setIsValid(validator.getErrors().isEmpty());
                 validationSchema.setValidator(validator);
                 log.info("Validation result for schema: " + validationSchema.getName());
                 log.info(validator.getErrorComments());
-                processedSchemas.set(i, validationSchema);
             }
         }
 
         this.processedSchemas = processedSchemas;
-        log.debug("Processor: Execution complete");
     }
 
     /**
+     * @param contexts The contexts of the schemas to build, each as its own task on the processor's pool
+     * @throws MojoExecutionException if building one of the schemas fails; the first failure in candidate order is
+     *                                thrown
+     */
+    private void buildSchemasInParallel(List<SchemaContext> contexts) throws MojoExecutionException {
+        log.debug("    Building [{}] schemas with parallelism: {}", contexts.size(), schemaParallelism);
+
+        List<Future<Schema>> futures = new ArrayList<>(contexts.size());
+        for (final SchemaContext context : contexts) {
+            futures.add(forkJoinPool.submit(() -> buildSchema(context)));
+        }
+
+        for (Future<Schema> future : futures) {
+            getResult(future);
+        }
+    }
+
+    /**
+     * @param schemas The built schemas to validate
+     * @return A validator for each of the schemas, in the same order
+     * @throws MojoExecutionException if validating one of the schemas is interrupted
+     */
+    private List<Validator> validateSchemas(List<Schema> schemas) throws MojoExecutionException {
+        List<Validator> validators = new ArrayList<>(schemas.size());
+        if (forkJoinPool == null || schemaParallelism <= 1 || schemas.size() <= 1) {
+            for (Schema schema : schemas) {
+                validators.add(validateSchema(schema));
+            }
+
+            return validators;
+        }
+
+        List<Future<Validator>> futures = new ArrayList<>(schemas.size());
+        for (final Schema schema : schemas) {
+            futures.add(forkJoinPool.submit(() -> validateSchema(schema)));
+        }
+
+        for (Future<Validator> future : futures) {
+            validators.add(getResult(future));
+        }
+
+        return validators;
+    }
+
+    /**
+     * @param schema The built schema to validate; its tables are validated on the processor's pool when the build
+     *               parallelism is enabled
+     * @return The validator once it has validated the schema
+     */
+    private Validator validateSchema(Schema schema) {
+        Validator validator = new Validator()
+                .withSchema(schema)
+                .withExecutor(buildParallelism > 1 ? forkJoinPool : null)
+                .withFailFast(validationFailFast);
+        validator.validateSchema();
+        return validator;
+    }
+
+    /**
+     * Builds the schema using the processor's target classes. Includes found through cross-schema lookups are merged
+     * into the schema straight away.
+     *
      * @param schema a preconfigured schema
      * @return a completed schema
      * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
      */
     private Schema buildSchema(Schema schema) throws MojoExecutionException {
-        log.debug("Start building schema: " + schema.getName());
-        for (Class<? extends Annotation> source : sourceAnnotations) {
-            if (artifactReference == null || artifactReference.getMavenProject() == null) {
+        if (targetClasses == null) {
+            targetClasses = new HashSet<>();
+        }
+
+        SchemaContext context = new SchemaContext(schema, targetClasses);
+        buildSchema(context);
+        context.mergeIncludes();
+        return schema;
+    }
+
+    /**
+     * @param context The context of a preconfigured schema
+     * @return a completed schema
+     * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
+     */
+    private Schema buildSchema(SchemaContext context) throws MojoExecutionException {
+        final Schema schema = context.getSchema();
+        final Set<Class<?>> targetClasses = context.getTargetClasses();
+
+        SchemaContext previousContext = schemaContext.get();
+        schemaContext.set(context);
+        try {
+            log.debug("Start building schema: " + schema.getName());
+            if (bytecodeExtraction) {
+                return buildSchemaFromClassFiles(context);
+            }
+
+            // Scan the classpath once and query it for all of the source annotations
+            if (sourceAnnotations.isEmpty()) {
+                log.debug("No source annotations registered; skipping classpath scan");
+            } else if (sharedScanClasses != null && sharedScanClasses.containsKey(schema)) {
+                log.debug("Using annotated classes from the shared classpath scan");
+                targetClasses.addAll(sharedScanClasses.get(schema));
+            } else if (artifactReference == null || artifactReference.getMavenProject() == null) {
                 log.debug("MavenProject is null; falling back to built in class scanner");
-                targetClasses.addAll(AnnotationParser.findAnnotatedClasses(source));
+                targetClasses.addAll(AnnotationParser.findAnnotatedClasses(sourceAnnotations));
             } else {
                 targetClasses.addAll(AnnotationParser.findAnnotatedClasses(artifactReference,
-                        schema.getClasspathReferenceList(), source));
+                        schema.getClasspathReferenceList(), sourceAnnotations));
             }
+
+            log.debug("   Got target [{}] classes for schema: {}", targetClasses.size(), schema.getName());
+            for (Class<?> targetClass : targetClasses) {
+                log.debug("  Target class to use in schema: " + targetClass.getName());
+            }
+
+            if (targetClasses.size() < 1) {
+                log.debug("  No target classes found; skipping schema creation");
+                schema.isEmpty(true);
+                return schema;
+            }
+
+            // The targetClasses includes ALL annotated classes including those inside dependencies
+            if (forkJoinPool != null && buildParallelism > 1 && targetClasses.size() > 1) {
+                buildDeclarationsInParallel(context, new ArrayList<>(targetClasses));
+                return schema;
+            }
+
+            int rootTypeCount = 0;
+            for (Class<?> clazz : targetClasses) {
+                String rootType = buildDeclarations(schema, clazz);
+                if (rootType != null) {
+                    rootTypeCount++;
+                    if (rootTypeCount > 1) {
+                        throw new IllegalArgumentException("Only one rootType declaration is allowed");
+                    }
+
+                    schema.setRootType(rootType);
+                }
+            }
+
+            return schema;
+        } finally {
+            restoreSchemaContext(previousContext);
         }
+    }
 
-        log.debug("   Got target [{}] classes for schema: {}", targetClasses.size(), schema.getName());
-        for (Class<?> targetClass : targetClasses) {
-            log.debug("  Target class to use in schema: " + targetClass.getName());
+    /**
+     * Builds the schema from the class files of the annotated classes; the classes are never loaded.
+     *
+     * @param context The context of a preconfigured schema
+     * @return a completed schema
+     * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
+     */
+    private Schema buildSchemaFromClassFiles(SchemaContext context) throws MojoExecutionException {
+        final Schema schema = context.getSchema();
+
+        Set<String> targetClassNames;
+        if (sourceAnnotations.isEmpty()) {
+            log.debug("No source annotations registered; skipping classpath scan");
+            targetClassNames = Collections.emptySet();
+        } else if (artifactReference == null || artifactReference.getMavenProject() == null) {
+            log.debug("MavenProject is null; falling back to built in class scanner");
+            targetClassNames = AnnotationParser.findAnnotatedClassNames(sourceAnnotations);
+        } else {
+            targetClassNames = AnnotationParser.findAnnotatedClassNames(artifactReference,
+                    schema.getClasspathReferenceList(), sourceAnnotations);
         }
 
-        if (targetClasses.size() < 1) {
+        log.debug("   Got target [{}] class names for schema: {}", targetClassNames.size(), schema.getName());
+        if (targetClassNames.size() < 1) {
             log.debug("  No target classes found; skipping schema creation");
             schema.isEmpty(true);
             return schema;
         }
 
-        // The targetClasses includes ALL annotated classes including those inside dependencies
+        ClassFileExtractor extractor = new ClassFileExtractor(this);
         int rootTypeCount = 0;
-        for (Class<?> clazz : targetClasses) {
-            if (isEnumWorkaround(clazz) && (consolidatedSchemas || !getExternalClassDefinitionDetails(clazz).locatedOutside)) {
-                schema.addEnumDeclaration(buildEnumDeclaration(clazz));
-                continue;
+        for (String className : targetClassNames) {
+            String rootType = extractor.buildDeclarations(schema, className);
+            if (rootType != null) {
+                rootTypeCount++;
+                if (rootTypeCount > 1) {
+                    throw new IllegalArgumentException("Only one rootType declaration is allowed");
+                }
+
+                schema.setRootType(rootType);
             }
+        }
 
-            if (clazz instanceof Class) {
-                TypeDeclaration temp = buildTypeDeclaration(schema, clazz);
-                if (temp.isRoot()) {
-                    log.debug("  Found root: " + temp.getName());
-                    rootTypeCount++;
-                    if (rootTypeCount > 1) {
-                        throw new IllegalArgumentException("Only one rootType declaration is allowed");
-                    }
+        return schema;
+    }
 
-                    schema.setRootType(temp.getName());
-                }
+    /**
+     * @param previousContext The context to restore on the calling thread; null removes it
+     */
+    private void restoreSchemaContext(SchemaContext previousContext) {
+        if (previousContext == null) {
+            schemaContext.remove();
+        } else {
+            schemaContext.set(previousContext);
+        }
+    }
 
-                if (consolidatedSchemas || !getExternalClassDefinitionDetails(clazz).locatedOutside) {
-                    schema.addTypeDeclaration(temp);
-                } else {
-                    // Don't get the inner stuff of this class if we're not consolidated.
-                    continue;
+    /**
+     * Builds the declarations of each class on the processor's pool. Each class is built into its own fragment which
+     * are then merged into the schema in the same order as the serial build would add them, so the output is identical.
+     *
+     * @param context The context of the schema the declarations are merged into
+     * @param classes The target classes, in the order they would be built serially
+     * @throws MojoExecutionException if building the declarations of a class fails
+     */
+    private void buildDeclarationsInParallel(final SchemaContext context, List<Class<?>> classes) throws MojoExecutionException {
+        log.debug("  Building declarations for [{}] classes with parallelism: {}", classes.size(), buildParallelism);
+        final Schema schema = context.getSchema();
+
+        List<Future<SchemaContext>> futures = new ArrayList<>(classes.size());
+        for (final Class<?> clazz : classes) {
+            futures.add(forkJoinPool.submit(() -> {
+                Schema fragment = new Schema();
+                SchemaContext fragmentContext = context.forFragment(fragment);
+
+                SchemaContext previousContext = schemaContext.get();
+                schemaContext.set(fragmentContext);
+                try {
+                    fragment.setRootType(buildDeclarations(fragment, clazz));
+                } finally {
+                    restoreSchemaContext(previousContext);
                 }
+                return fragmentContext;
+            }));
+        }
 
-                // Now examine inner classes
-                Class<?>[] innerClasses = clazz.getDeclaredClasses();
-                for (Class<?> inner : innerClasses) {
-                    log.debug("  Processing inner class: " + inner.getSimpleName());
-                    if (inner.isSynthetic()) {
-                        log.debug("  Found synthetic...");
-                        continue;
-                    }
+        int rootTypeCount = 0;
+        for (Future<SchemaContext> future : futures) {
+            SchemaContext fragmentContext = getResult(future);
+            Schema fragment = fragmentContext.getDeclarationSchema();
+            for (EnumDeclaration enumD : fragment.getEnumDeclarations()) {
+                schema.addEnumDeclaration(enumD);
+            }
 
-                    if (isEnumWorkaround(inner)) {
-                        log.debug("  Found enum...");
-                        schema.addEnumDeclaration(buildEnumDeclaration(inner));
-                        continue;
-                    }
+            for (TypeDeclaration type : fragment.getTypeDeclarations()) {
+                schema.addTypeDeclaration(type);
+            }
 
-                    log.debug("  Found type...");
-                    // Inner classes cannot be root type
-                    schema.addTypeDeclaration(buildTypeDeclaration(schema, inner));
+            context.getIncludes().addAll(fragmentContext.getIncludes());
+
+            if (fragment.getRootType() != null) {
+                rootTypeCount++;
+                if (rootTypeCount > 1) {
+                    throw new IllegalArgumentException("Only one rootType declaration is allowed");
                 }
+
+                schema.setRootType(fragment.getRootType());
             }
         }
+    }
 
-        return schema;
+    /**
+     * @param future The pending result of a worker
+     * @param <T>    The type of the result
+     * @return The result once complete
+     * @throws MojoExecutionException if the worker was interrupted or failed with a checked exception
+     */
+    private static <T> T getResult(Future<T> future) throws MojoExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while building schemas", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            }
+
+            throw new MojoExecutionException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * @param schema The schema (or schema fragment) the declarations are added to
+     * @param clazz  The target class to build the declarations of; including its inner classes
+     * @return The name of the type if it was declared as the root type; otherwise null
+     * @throws MojoExecutionException if the external class definition lookup fails
+     */
+    private String buildDeclarations(Schema schema, Class<?> clazz) throws MojoExecutionException {
+        if (isEnumWorkaround(clazz) && (consolidatedSchemas || !getExternalClassDefinitionDetails(clazz).locatedOutside)) {
+            schema.addEnumDeclaration(buildEnumDeclaration(clazz));
+            return null;
+        }
+
+        TypeDeclaration temp = buildTypeDeclaration(schema, clazz);
+        String rootType = null;
+        if (temp.isRoot()) {
+            log.debug("  Found root: " + temp.getName());
+            rootType = temp.getName();
+        }
+
+        if (consolidatedSchemas || !getExternalClassDefinitionDetails(clazz).locatedOutside) {
+            schema.addTypeDeclaration(temp);
+        } else {
+            // Don't get the inner stuff of this class if we're not consolidated.
+            return rootType;
+        }
+
+        // Now examine inner classes
+        Class<?>[] innerClasses = clazz.getDeclaredClasses();
+        for (Class<?> inner : innerClasses) {
+            log.debug("  Processing inner class: " + inner.getSimpleName());
+            if (inner.isSynthetic()) {
+                log.debug("  Found synthetic...");
+                continue;
+            }
+
+            if (isEnumWorkaround(inner)) {
+                log.debug("  Found enum...");
+                schema.addEnumDeclaration(buildEnumDeclaration(inner));
+                continue;
+            }
+
+            log.debug("  Found type...");
+            // Inner classes cannot be root type
+            schema.addTypeDeclaration(buildTypeDeclaration(schema, inner));
+        }
+
+        return rootType;
+    }
+
+    /**
+     * @return The schema that declarations discovered while processing fields (e.g. map helper types) and includes
+     * should be added to. While building declarations in parallel this is the worker's fragment of the current schema.
+     */
+    public Schema getDeclarationSchema() {
+        SchemaContext context = schemaContext.get();
+        return context == null ? currentSchema : context.getDeclarationSchema();
     }
 
     /**
@@ -583,22 +1118,27 @@ public class Processor {
     /**
      * @param type Class which needs to be traversed up to determine which fields are to be
      *             considered as candidates for declaration
-     * @return A list of valid fields
+     * @return A list of valid fields. Superclasses shared by several classes are only walked once.
      */
     private List<Field> getDeclaredAndInheritedPrivateFields(Class<?> type) {
-        List<Field> result = new ArrayList<>();
+        if (type == null || type == Object.class) {
+            return Collections.emptyList();
+        }
 
-        Class<?> clazz = type;
-        while (clazz != null && clazz != Object.class) {
-            for (Field field : clazz.getDeclaredFields()) {
-                if (!field.isSynthetic()) {
-                    Collections.addAll(result, field);
-                }
+        List<Field> result = propertyCache.getInheritedFields(type);
+        if (result != null) {
+            return result;
+        }
+
+        result = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!field.isSynthetic()) {
+                Collections.addAll(result, field);
             }
-            clazz = clazz.getSuperclass();
         }
+        result.addAll(getDeclaredAndInheritedPrivateFields(type.getSuperclass()));
 
-        return result;
+        return propertyCache.putInheritedFields(type, result);
     }
 
     /**
@@ -609,6 +1149,36 @@ public class Processor {
      * property is used to store additional information.
      */
     public Property getPropertyForField(Schema schema, final Field field) {
+        final Schema cacheSchema = getCurrentSchema();
+        PropertyCache.ResolvedProperty resolved = propertyCache.getProperty(cacheSchema, field);
+        if (resolved != null) {
+            log.debug("Reusing property previously resolved for field: " + field.getName());
+
+            // The helper type of a map still has to be declared wherever this field is being declared
+            if (resolved.getMapType() != null) {
+                getDeclarationSchema().addTypeDeclaration(resolved.getMapType());
+            }
+
+            return PropertyCache.copy(resolved.getProperty());
+        }
+
+        Property property = resolvePropertyForField(cacheSchema, field);
+
+        TypeDeclaration mapType = null;
+        if (property.type == FieldType.MAP && getDeclarationSchema() != null) {
+            mapType = getDeclarationSchema().getTypeDeclaration(property.options.get(PropertyOptionKey.MAP));
+        }
+
+        propertyCache.putProperty(cacheSchema, field, property, mapType);
+        return property;
+    }
+
+    /**
+     * @param cacheSchema The schema being built; resolved types are remembered against it
+     * @param field       A class field
+     * @return A type declaration Property for the field
+     */
+    private Property resolvePropertyForField(Schema cacheSchema, final Field field) {
         Property property = new Property();
 
         // Some uses in which we reference other namespaces require us to declare the entirety of
@@ -689,23 +1259,33 @@ public class Processor {
             return property;
         }
 
-        // EX: String[], SomeClass[]
-        if (field.getType().isArray() && !field.getType().isAssignableFrom(List.class)) {
-            return new ArrayProperties(this).process(property, field, useFullName);
-        }
-
-        // EX: List<String>, List<SomeClass>, and Sets<E>
-        if (field.getType().isAssignableFrom(List.class) || field.getType().isAssignableFrom(Set.class)) {
-            return new ListProperties(this).process(property, field, useFullName);
+        // Every other field of the same generic type has resolved the same way (maps are never remembered by type)
+        final Type genericType = field.getGenericType();
+        Property template = propertyCache.getTypeProperty(cacheSchema, genericType, useFullName);
+        if (template != null) {
+            log.debug("Reusing property previously resolved for type: " + genericType.getTypeName());
+            property.name = field.getName();
+            property.type = template.type;
+            property.options.putAll(template.options);
+            return property;
         }
 
-        // EX: Map<String, Object>
-        if (field.getType().isAssignableFrom(Map.class)) {
+        if (field.getType().isArray() && !field.getType().isAssignableFrom(List.class)) {
+            // EX: String[], SomeClass[]
+            property = new ArrayProperties(this).process(property, field, useFullName);
+        } else if (field.getType().isAssignableFrom(List.class) || field.getType().isAssignableFrom(Set.class)) {
+            // EX: List<String>, List<SomeClass>, and Sets<E>
+            property = new ListProperties(this).process(property, field, useFullName);
+        } else if (field.getType().isAssignableFrom(Map.class)) {
+            // EX: Map<String, Object>; the helper type is named after the declaring class and field
             return new MapProperties(this).process(property, field, useFullName);
+        } else {
+            // Anything else - enum, class, etc.
+            property = new ClassProperties(this).process(property, field, useFullName);
         }
 
-        // Anything else - enum, class, etc.
-        return new ClassProperties(this).process(property, field, useFullName);
+        propertyCache.putTypeProperty(cacheSchema, genericType, useFullName, property);
+        return property;
     }
 
     /**
@@ -749,25 +1329,87 @@ public class Processor {
      * @throws MojoExecutionException if something goes wrong
      */
     public ExternalClassDefinition getExternalClassDefinitionDetails(Class<?> clazz) throws MojoExecutionException {
+        return getExternalClassDefinitionDetails(clazz.getName());
+    }
+
+    /**
+     * Enables multi-schemas support
+     *
+     * @param className the binary name of the class we want to examine and determine where it is defined
+     * @return ExternalClassDefinition which is populated with the target schema namespace and if it is externally defined
+     * @throws MojoExecutionException if something goes wrong
+     */
+    public ExternalClassDefinition getExternalClassDefinitionDetails(String className) throws MojoExecutionException {
         ExternalClassDefinition externalClassDefinition = new ExternalClassDefinition();
+        final Schema schema = getCurrentSchema();
 
-        if (currentSchema.isDependency()) {
-            log.debug("This [{}] is a dependency. Therefor, skipping external class check for [{}]. This assumes that a base schema is the sum of its self and its dependencies.", currentSchema.getName(), clazz.getName());
+        if (schema.isDependency()) {
+            log.debug("This [{}] is a dependency. Therefor, skipping external class check for [{}]. This assumes that a base schema is the sum of its self and its dependencies.", schema.getName(), className);
             // Consider if we want to recursively add more schemas as we find them.
             return externalClassDefinition;
         }
 
         log.debug("Determining if class was defined outside this schema");
-        final String currentClazzPackageName = clazz
-                .getPackage()
-                .getName();
-        log.debug("  Class namespace for review: " + currentClazzPackageName);
+        log.debug("  Class for review: " + className);
         boolean classLocatedOutside = false;
 
-        for (Schema oneOfSchemas : candidateSchemas) {
-            log.debug(" Iterating schemas: " + oneOfSchemas.getNamespace());
+        List<Schema> owningSchemas = loadClassOwnershipIndex().get(className);
+        if (owningSchemas != null) {
+            for (Schema oneOfSchemas : owningSchemas) {
+                log.debug(" Iterating owning schemas: " + oneOfSchemas.getNamespace());
+                // Identity; other schemas may be being built concurrently
+                if (oneOfSchemas != schema) {
+                    log.debug("  Found location of class which is outside current schema");
+                    externalClassDefinition.targetNamespace = oneOfSchemas.getNamespace();
+
+                    SchemaContext context = schemaContext.get();
+                    if (context == null) {
+                        schema.addInclude(oneOfSchemas.getName());
+                    } else {
+                        context.getIncludes().add(oneOfSchemas.getName());
+                    }
+
+                    classLocatedOutside = true;
+                    break;
+                }
+            }
+        }
 
-            List<String> classNames = new ArrayList<>();
+        if (!classLocatedOutside) {
+            log.debug("  Did not find class outside schema; continue processing");
+        }
+
+        externalClassDefinition.locatedOutside = classLocatedOutside;
+        return externalClassDefinition;
+    }
+
+    /**
+     * @return the class ownership index; built on first use during an execution
+     * @throws MojoExecutionException if one of the jars cannot be read
+     */
+    private synchronized Map<String, List<Schema>> loadClassOwnershipIndex() throws MojoExecutionException {
+        if (classOwnershipIndex == null) {
+            classOwnershipIndex = buildClassOwnershipIndex();
+        }
+
+        return classOwnershipIndex;
+    }
+
+    /**
+     * Reads the central directory of every jar referenced by the candidate schemas exactly once and indexes which
+     * schemas contain each class. Schemas are kept in candidate order so lookups resolve the same way as a linear
+     * walk of the candidate schemas would.
+     *
+     * @return a map of fully qualified class name to the candidate schemas which contain that class
+     * @throws MojoExecutionException if one of the jars cannot be read
+     */
+    private Map<String, List<Schema>> buildClassOwnershipIndex() throws MojoExecutionException {
+        log.debug("Building class ownership index for {} candidate schemas", candidateSchemas.size());
+        Map<String, List<Schema>> index = new HashMap<>();
+
+        // The project schema references the same dependency jars as the dependency schemas; only read each once
+        Map<String, List<String>> classNamesByJar = new HashMap<>();
+        for (Schema oneOfSchemas : candidateSchemas) {
             for (ClasspathReference reference : oneOfSchemas.getClasspathReferenceList()) {
 
                 final String jarPath = reference.getUrl().toString();
@@ -775,43 +1417,50 @@ public class Processor {
                     continue;
                 }
 
-                try {
-                    JarInputStream jarInputStream = new JarInputStream(new FileInputStream(jarPath.substring("jar:file:".length(), jarPath.indexOf("!/"))));
-                    JarEntry jarEntry;
-
-                    while (true) {
-                        jarEntry = jarInputStream.getNextJarEntry();
-                        if (jarEntry == null) {
-                            break;
-                        }
-
-                        if ((jarEntry.getName().endsWith(".class"))) {
-                            String classNameWithExtension = jarEntry.getName().replaceAll("/", "\\.");
-                            String className = classNameWithExtension.substring(0, classNameWithExtension.lastIndexOf('.'));
-                            classNames.add(className);
-                        }
-                    }
-                } catch (IOException e) {
-                    throw new MojoExecutionException(e.getMessage());
+                List<String> classNames = classNamesByJar.get(jarPath);
+                if (classNames == null) {
+                    classNames = readJarClassNames(jarPath.substring("jar:file:".length(), jarPath.indexOf("!/")));
+                    classNamesByJar.put(jarPath, classNames);
                 }
-            }
 
-            if (classNames.contains(clazz.getName()) && !oneOfSchemas.equals(currentSchema)) {
-                log.debug("  Found location of class which is outside current schema");
-                externalClassDefinition.targetNamespace = oneOfSchemas.getNamespace();
-                currentSchema.addInclude(oneOfSchemas.getName());
+                for (String className : classNames) {
+                    List<Schema> owningSchemas = index.get(className);
+                    if (owningSchemas == null) {
+                        owningSchemas = new ArrayList<>(2);
+                        index.put(className, owningSchemas);
+                    }
 
-                classLocatedOutside = true;
-                break;
+                    if (!owningSchemas.contains(oneOfSchemas)) {
+                        owningSchemas.add(oneOfSchemas);
+                    }
+                }
             }
         }
 
-        if (!classLocatedOutside) {
-            log.debug("  Did not find class outside schema; continue processing");
+        log.debug("  Indexed {} classes from {} jars", index.size(), classNamesByJar.size());
+        return index;
+    }
+
+    /**
+     * @param jarFilePath The file system path of the jar
+     * @return the fully qualified names of all classes listed in the jar's central directory
+     * @throws MojoExecutionException if the jar cannot be read
+     */
+    private static List<String> readJarClassNames(String jarFilePath) throws MojoExecutionException {
+        List<String> classNames = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(jarFilePath)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(".class")) {
+                    classNames.add(entryName.substring(0, entryName.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage());
         }
 
-        externalClassDefinition.locatedOutside = classLocatedOutside;
-        return externalClassDefinition;
+        return classNames;
     }
 
     /**
@@ -0,0 +1,160 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property.PropertyOptionKey;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what the {@link Processor} has already worked out about classes and fields during an execution: the
+ * flattened (declared and inherited) fields of each class, and the resolved {@link Property} of each field. Resolved
+ * properties depend on the schema they were resolved for (class loader, external lookups), so they are kept per
+ * schema. Arrays, lists and other classes are additionally kept by generic field type, as every field of the same
+ * generic type resolves the same way.
+ * <p>
+ * Cached properties are templates; callers are always handed a copy.
+ *
+ * @author m.hradek
+ */
+public class PropertyCache {
+
+    private final Map<Class<?>, List<Field>> inheritedFields;
+    private final Map<Schema, SchemaProperties> schemaProperties;
+
+    public PropertyCache() {
+        // Shared by the threads building declarations in parallel
+        inheritedFields = new ConcurrentHashMap<>();
+
+        // Schemas are compared by identity; their equality changes as declarations are added
+        schemaProperties = Collections.synchronizedMap(new IdentityHashMap<Schema, SchemaProperties>());
+    }
+
+    /**
+     * @param type The class whose fields were flattened
+     * @return The declared and inherited fields of the class; otherwise null if not yet cached
+     */
+    public List<Field> getInheritedFields(Class<?> type) {
+        return inheritedFields.get(type);
+    }
+
+    /**
+     * @param type   The class whose fields were flattened
+     * @param fields The declared and inherited fields of the class
+     * @return The fields cached for the class; those of a concurrent caller if it got there first
+     */
+    public List<Field> putInheritedFields(Class<?> type, List<Field> fields) {
+        List<Field> unmodifiableFields = Collections.unmodifiableList(fields);
+        List<Field> existing = inheritedFields.putIfAbsent(type, unmodifiableFields);
+        return existing == null ? unmodifiableFields : existing;
+    }
+
+    /**
+     * @param schema The schema the field is being resolved for
+     * @param field  A class field
+     * @return The property previously resolved for the field; otherwise null
+     */
+    public ResolvedProperty getProperty(Schema schema, Field field) {
+        return getSchemaProperties(schema).fields.get(field);
+    }
+
+    /**
+     * @param schema   The schema the field was resolved for
+     * @param field    A class field
+     * @param property The property resolved for the field
+     * @param mapType  The helper type declared while resolving a map field; otherwise null
+     */
+    public void putProperty(Schema schema, Field field, Property property, TypeDeclaration mapType) {
+        getSchemaProperties(schema).fields.putIfAbsent(field, new ResolvedProperty(copy(property), mapType));
+    }
+
+    /**
+     * @param schema      The schema the field is being resolved for
+     * @param genericType The generic type of the field
+     * @param useFullName Whether the field asked for the full name of its type
+     * @return The name-less property previously resolved for the generic type; otherwise null
+     */
+    public Property getTypeProperty(Schema schema, Type genericType, boolean useFullName) {
+        return getSchemaProperties(schema).types.get(new TypeKey(genericType, useFullName));
+    }
+
+    /**
+     * @param schema      The schema the field was resolved for
+     * @param genericType The generic type of the field
+     * @param useFullName Whether the field asked for the full name of its type
+     * @param property    The property resolved for a field of the generic type. Field specific details (name,
+     *                    comment and default value) are not kept.
+     */
+    public void putTypeProperty(Schema schema, Type genericType, boolean useFullName, Property property) {
+        Property template = copy(property);
+        template.name = null;
+        template.options.remove(PropertyOptionKey.COMMENT);
+        template.options.remove(PropertyOptionKey.DEFAULT_VALUE);
+
+        getSchemaProperties(schema).types.putIfAbsent(new TypeKey(genericType, useFullName), template);
+    }
+
+    /**
+     * Forget everything; cached classes belong to class loaders which are about to be closed.
+     */
+    public void clear() {
+        inheritedFields.clear();
+        schemaProperties.clear();
+    }
+
+    /**
+     * @param property The property to copy
+     * @return A copy of the property which can be changed without affecting the original
+     */
+    public static Property copy(Property property) {
+        Property result = new Property();
+        result.name = property.name;
+        result.type = property.type;
+        result.options.putAll(property.options);
+        return result;
+    }
+
+    private SchemaProperties getSchemaProperties(Schema schema) {
+        synchronized (schemaProperties) {
+            SchemaProperties properties = schemaProperties.get(schema);
+            if (properties == null) {
+                properties = new SchemaProperties();
+                schemaProperties.put(schema, properties);
+            }
+
+            return properties;
+        }
+    }
+
+    /**
+     * A property resolved for a field along with any helper type that had to be declared for it
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ResolvedProperty {
+        private final Property property;
+        private final TypeDeclaration mapType;
+    }
+
+    private static class SchemaProperties {
+        private final Map<Field, ResolvedProperty> fields = new ConcurrentHashMap<>();
+        private final Map<TypeKey, Property> types = new ConcurrentHashMap<>();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class TypeKey {
+        private final Type genericType;
+        private final boolean useFullName;
+    }
+}
@@ -0,0 +1,79 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The state of a single schema while the {@link Processor} builds it. Each schema (and each parallel declaration
+ * worker of a schema) is built against its own context so that schemas can be built concurrently.
+ *
+ * @author m.hradek
+ */
+@Getter
+public class SchemaContext {
+
+    // The schema being built
+    private final Schema schema;
+
+    // The annotated classes found for the schema
+    private final Set<Class<?>> targetClasses;
+
+    // Where declarations found while processing fields (i.e. map helper types) are added; the schema or a fragment
+    private final Schema declarationSchema;
+
+    // Includes found through cross-schema lookups; merged into the schema once every schema has been built
+    private final Set<String> includes;
+
+    /**
+     * @param schema The schema to build
+     */
+    public SchemaContext(Schema schema) {
+        this(schema, new HashSet<>());
+    }
+
+    /**
+     * @param schema        The schema to build
+     * @param targetClasses The set the annotated classes for the schema are collected in
+     */
+    public SchemaContext(Schema schema, Set<Class<?>> targetClasses) {
+        this(schema, targetClasses, schema);
+    }
+
+    private SchemaContext(Schema schema, Set<Class<?>> targetClasses, Schema declarationSchema) {
+        this.schema = schema;
+        this.targetClasses = targetClasses;
+        this.declarationSchema = declarationSchema;
+        this.includes = new LinkedHashSet<>();
+    }
+
+    /**
+     * @param fragment The fragment a parallel worker builds declarations into
+     * @return A context for the same schema which adds declarations to the given fragment
+     */
+    public SchemaContext forFragment(Schema fragment) {
+        return new SchemaContext(schema, targetClasses, fragment);
+    }
+
+    /**
+     * Adds the includes found through cross-schema lookups to the schema.
+     */
+    public void mergeIncludes() {
+        if (includes.isEmpty()) {
+            return;
+        }
+
+        if (schema.getIncludes() == null) {
+            schema.setIncludes(new HashSet<>());
+        }
+
+        for (String include : includes) {
+            schema.addInclude(include);
+        }
+
+        includes.clear();
+    }
+}
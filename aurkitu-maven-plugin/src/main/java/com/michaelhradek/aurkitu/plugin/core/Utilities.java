@@ -1,19 +1,29 @@
 package com.michaelhradek.aurkitu.plugin.core;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.Multimap;
+import com.michaelhradek.aurkitu.annotations.FlatBufferEnum;
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+import com.michaelhradek.aurkitu.annotations.processing.IndexProcessor;
 import com.michaelhradek.aurkitu.plugin.Config;
 import com.michaelhradek.aurkitu.plugin.core.output.Schema;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ArtifactReference;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathSearchType;
 import com.michaelhradek.aurkitu.reflections.Reflections;
-import com.michaelhradek.aurkitu.reflections.adapters.JavassistAdapter;
+import com.michaelhradek.aurkitu.reflections.Store;
+import com.michaelhradek.aurkitu.reflections.adapters.ClassFileAdapter;
 import com.michaelhradek.aurkitu.reflections.scanners.FieldAnnotationsScanner;
 import com.michaelhradek.aurkitu.reflections.scanners.MethodAnnotationsScanner;
 import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
 import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.serializers.XmlSerializer;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.ConstantPoolFilter;
 import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -27,12 +37,28 @@ import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * @author m.hradek
@@ -95,7 +121,24 @@ public class Utilities {
      * @throws DependencyResolutionRequiredException if unable to MavenProject#getCompileClasspathElements()
      * @throws MojoExecutionException                if getting NULL from MavenProject#getCompileClasspathElements()
      */
-    public static synchronized Reflections buildReflections(ArtifactReference artifactReference, List<ClasspathReference> classpathReferenceList)
+    public static Reflections buildReflections(ArtifactReference artifactReference, List<ClasspathReference> classpathReferenceList)
+            throws DependencyResolutionRequiredException, MojoExecutionException {
+        return buildReflections(artifactReference, classpathReferenceList, false);
+    }
+
+    /**
+     * @param artifactReference      Our helper which contains all the goodies needed from the MavenProject and the other
+     *                               artifact handling stuff
+     * @param classpathReferenceList List of classpath references to consider when building the class list
+     * @param recordOrigins          Whether the returned Reflections should record which URL each type was scanned from
+     * @return initialized Reflections object. Jars of the classpath references with an index written by the
+     * IndexProcessor are read rather than scanned, as are class directories whose index matches their class files,
+     * and dependency jars found in the {@link ArtifactIndexCache}
+     * @throws DependencyResolutionRequiredException if unable to MavenProject#getCompileClasspathElements()
+     * @throws MojoExecutionException                if getting NULL from MavenProject#getCompileClasspathElements()
+     */
+    public static Reflections buildReflections(ArtifactReference artifactReference, List<ClasspathReference> classpathReferenceList,
+                                               boolean recordOrigins)
             throws DependencyResolutionRequiredException, MojoExecutionException {
 
         List<String> classpathElements;
@@ -111,9 +154,8 @@ public class Utilities {
         ClassLoader urlClassLoader = URLClassLoader.newInstance(arrayForClasspathReferenceList(classpathReferenceList),
                 Thread.currentThread().getContextClassLoader());
 
-        // Retain annotations
-        JavassistAdapter javassistAdapter = new JavassistAdapter();
-        JavassistAdapter.includeInvisibleTag = false;
+        // Retain annotations; only the runtime visible ones are read, and method bodies are skipped
+        ClassFileAdapter classFileAdapter = new ClassFileAdapter(false);
 
         FilterBuilder filterBuilder = null;
         if (artifactReference.getSpecifiedDependencies() != null && artifactReference.getSpecifiedDependencies().size() > 0) {
@@ -124,10 +166,55 @@ public class Utilities {
             }
         }
 
-        return new Reflections(
+        // Resolved dependency jars are cached across builds and projects, if a cache directory is set
+        ArtifactIndexCache artifactIndexCache = artifactReference.getArtifactIndexDirectory() == null ? null :
+                new ArtifactIndexCache(artifactReference.getArtifactIndexDirectory());
+        Map<String, ClasspathReference> dependencies = new LinkedHashMap<>();
+        Set<String> projectUrls = new HashSet<>();
+        if (classpathReferenceList != null) {
+            for (ClasspathReference reference : classpathReferenceList) {
+                projectUrls.add(reference.getUrl().toExternalForm());
+                if (reference.getVersion() != null) {
+                    dependencies.put(reference.getUrl().toExternalForm(), reference);
+                }
+            }
+        }
+
+        // Jars and directories of the project compiled with the annotation processor carry an index; read it instead
+        // of scanning. The urls of the parent class loaders are not looked into, as they are hardly ever indexed
+        List<URL> scannedUrls = new ArrayList<>();
+        Map<URL, Reflections> indexedUrls = new LinkedHashMap<>();
+        Map<URL, Reflections> unannotatedUrls = new LinkedHashMap<>();
+        for (URL url : ClasspathHelper.forClassLoader(urlClassLoader)) {
+            Reflections index = projectUrls.contains(url.toExternalForm()) ? readAnnotationIndex(url) : null;
+            ClasspathReference dependency = dependencies.get(url.toExternalForm());
+            File jar = index == null && artifactIndexCache != null && dependency != null ? Vfs.getFile(url) : null;
+            if (jar != null && jar.isFile()) {
+                try {
+                    index = artifactIndexCache.getOrScan(dependency, jar, () -> scanArtifact(url));
+                    if (!ArtifactIndexCache.hasAnnotatedTypes(index)) {
+                        // Only merged if it inherits from annotated types, which are known once all else is merged
+                        unannotatedUrls.put(url, index);
+                        continue;
+                    }
+                } catch (Exception e) {
+                    log.warn("Unable to scan {} for the artifact index cache; scanning it with the rest", url, e);
+                }
+            }
+
+            if (index != null) {
+                indexedUrls.put(url, index);
+            } else {
+                scannedUrls.add(url);
+            }
+        }
+        log.debug("Reading {} annotation indexes and {} scans without annotated types, and scanning {} urls",
+                indexedUrls.size(), unannotatedUrls.size(), scannedUrls.size());
+
+        Reflections reflections = new Reflections(
                 new ConfigurationBuilder()
                         .filterInputsBy(filterBuilder)
-                        .setUrls(ClasspathHelper.forClassLoader(urlClassLoader))
+                        .setUrls(scannedUrls)
                         .addClassLoader(urlClassLoader)
                         .setScanners(
                                 new SubTypesScanner(false),
@@ -135,9 +222,232 @@ public class Utilities {
                                 new FieldAnnotationsScanner(),
                                 new MethodAnnotationsScanner()
                         )
-                        .setMetadataAdapter(javassistAdapter)
-                        .useParallelExecutor()
+                        .setMetadataAdapter(classFileAdapter)
+                        .setRecordOrigins(recordOrigins)
+                        .setScanIndexDirectory(artifactReference.getScanIndexDirectory())
+                        .setConstantPoolFilter(artifactReference.isAnnotationPreFilter() ?
+                                ConstantPoolFilter.forAnnotations(FlatBufferTable.class, FlatBufferEnum.class) : null)
+                        .setExecutorService(ScanExecutors.SCANNING)
+                        .setOpeningExecutorService(ScanExecutors.OPENING)
+                        .setSharedExecutors(true)
         );
+
+        for (Map.Entry<URL, Reflections> entry : indexedUrls.entrySet()) {
+            mergeAnnotationIndex(reflections, entry.getKey(), entry.getValue(), filterBuilder, recordOrigins);
+        }
+        int inheritingUrls = mergeInheritingScans(reflections, unannotatedUrls, filterBuilder, recordOrigins);
+        log.debug("Merged {} of the scans without annotated types; skipped the rest", inheritingUrls);
+        if (!indexedUrls.isEmpty() || inheritingUrls > 0) {
+            reflections.expandSuperTypes();
+        }
+
+        // Only queried from here on; getTypesAnnotatedWith is then a lookup per annotation
+        reflections.getStore().computeTransitiveClosures();
+        reflections.getStore().compact();
+        return reflections;
+    }
+
+    /**
+     * Scans a dependency jar on its own for the {@link ArtifactIndexCache}. Only classes which mention FlatBufferTable or
+     * FlatBufferEnum are parsed, and neither the inputs filter nor origins apply; both are applied when the scan is
+     * merged, as for an annotation index.
+     *
+     * @param url The url of the jar
+     * @return The scan of the jar
+     */
+    static Reflections scanArtifact(URL url) {
+        return new Reflections(
+                new ConfigurationBuilder()
+                        .setUrls(url)
+                        .setScanners(
+                                new SubTypesScanner(false),
+                                new TypeAnnotationsScanner(),
+                                new FieldAnnotationsScanner(),
+                                new MethodAnnotationsScanner()
+                        )
+                        .setMetadataAdapter(new ClassFileAdapter(false))
+                        .setConstantPoolFilter(ConstantPoolFilter.forAnnotations(FlatBufferTable.class, FlatBufferEnum.class))
+                        .setExpandSuperTypes(false)
+                        .setExecutorService(ScanExecutors.SCANNING)
+                        .setSharedExecutors(true)
+        );
+    }
+
+    /**
+     * @param url A classpath url
+     * @return The annotation index written into the jar or directory by the IndexProcessor, or null if there is none,
+     * it cannot be read, or it is not the index of the class files of the directory
+     */
+    static Reflections readAnnotationIndex(URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+
+        try {
+            File file = new File(url.toURI());
+            if (file.isDirectory()) {
+                File index = new File(file, IndexProcessor.INDEX);
+                if (!index.isFile()) {
+                    return null;
+                }
+                Reflections reflections;
+                try (InputStream inputStream = new FileInputStream(index)) {
+                    reflections = new XmlSerializer().read(inputStream);
+                }
+                if (!isIndexOfClassFiles(file, index, reflections)) {
+                    log.debug("The annotation index of {} does not match its class files; scanning it instead", url);
+                    return null;
+                }
+                return reflections;
+            }
+
+            if (file.isFile()) {
+                try (ZipFile zipFile = new ZipFile(file)) {
+                    ZipEntry entry = zipFile.getEntry(IndexProcessor.INDEX);
+                    if (entry == null) {
+                        return null;
+                    }
+                    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                        return new XmlSerializer().read(inputStream);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read the annotation index of {}; scanning it instead", url, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * An index left in a class directory is only complete if it was written by the compilation of the whole module, and
+     * only current if no class was compiled since. Incremental and IDE compilations leave indices of only the recompiled
+     * types, and anonymous classes are never indexed.
+     *
+     * @param directory   A class directory
+     * @param indexFile   The annotation index file of the directory
+     * @param index       The annotation index read from it
+     * @return Whether the index lists exactly the classes of the directory, and each of them was written after the
+     * index, as the compilation which wrote the index does
+     * @throws IOException if the directory cannot be walked
+     */
+    static boolean isIndexOfClassFiles(File directory, File indexFile, Reflections index) throws IOException {
+        String subTypes = Utils.index(SubTypesScanner.class);
+        // Every indexed type has a super type, if only Object
+        Set<String> indexed = index.getStore().keySet().contains(subTypes) ?
+                new HashSet<>(index.getStore().get(subTypes).values()) : new HashSet<>();
+        long indexModified = indexFile.lastModified();
+
+        Path root = directory.toPath();
+        Set<String> classes = new HashSet<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String relativePath = root.relativize(path).toString().replace('\\', '/');
+                if (!relativePath.endsWith(".class") || relativePath.startsWith("META-INF/")
+                        || relativePath.endsWith("package-info.class") || relativePath.endsWith("module-info.class")) {
+                    continue;
+                }
+                if (path.toFile().lastModified() < indexModified) {
+                    return false;
+                }
+                classes.add(relativePath.substring(0, relativePath.length() - ".class".length()).replace('/', '.'));
+            }
+        }
+
+        return classes.equals(indexed);
+    }
+
+    /**
+     * Adds the entries of an annotation index to the indices of the scanned Reflections, as if the url was scanned
+     *
+     * @param reflections   The Reflections to add to
+     * @param url           The url the index was read from
+     * @param index         The annotation index
+     * @param inputsFilter  The filter the scanned types had to pass, if any
+     * @param recordOrigins Whether the url should be recorded as the origin of the indexed types
+     */
+    private static void mergeAnnotationIndex(Reflections reflections, URL url, Reflections index,
+                                             Predicate<String> inputsFilter, boolean recordOrigins) {
+        Store store = reflections.getStore();
+        for (String indexName : index.getStore().keySet()) {
+            if (!store.keySet().contains(indexName)) {
+                continue;
+            }
+
+            Multimap<String, String> target = store.get(indexName);
+            for (Map.Entry<String, String> entry : index.getStore().get(indexName).entries()) {
+                String typeName = entry.getValue();
+                if (inputsFilter != null && !inputsFilter.apply(typeName + ".class")) {
+                    continue;
+                }
+
+                target.put(entry.getKey(), typeName);
+                if (recordOrigins && indexName.equals(Utils.index(SubTypesScanner.class))) {
+                    store.get(Reflections.ORIGINS_INDEX).put(url.toExternalForm(), typeName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the scans of the jars without annotated types which have sub types of annotated types, as
+     * getTypesAnnotatedWith returns those sub types as well. A jar may only inherit from annotated types through
+     * another such jar, so the annotated types and their sub types are followed until no more scans are merged.
+     *
+     * @param reflections   The Reflections to add to, with every other url scanned or merged
+     * @param scans         The scans of the jars without annotated types, by url
+     * @param inputsFilter  The filter the scanned types had to pass, if any
+     * @param recordOrigins Whether the url should be recorded as the origin of the merged types
+     * @return The number of scans merged
+     */
+    private static int mergeInheritingScans(Reflections reflections, Map<URL, Reflections> scans,
+                                            Predicate<String> inputsFilter, boolean recordOrigins) {
+        String subTypesIndex = Utils.index(SubTypesScanner.class);
+        Multimap<String, String> subTypes = reflections.getStore().get(subTypesIndex);
+        Multimap<String, String> typeAnnotations = reflections.getStore().get(Utils.index(TypeAnnotationsScanner.class));
+
+        Deque<String> pending = new ArrayDeque<>();
+        pending.addAll(typeAnnotations.get(FlatBufferTable.class.getName()));
+        pending.addAll(typeAnnotations.get(FlatBufferEnum.class.getName()));
+        Set<String> inheriting = new HashSet<>();
+        Map<URL, Reflections> unmerged = new LinkedHashMap<>(scans);
+        int merged = 0;
+        while (true) {
+            while (!pending.isEmpty()) {
+                String type = pending.poll();
+                if (inheriting.add(type)) {
+                    pending.addAll(subTypes.get(type));
+                }
+            }
+
+            for (Iterator<Map.Entry<URL, Reflections>> iterator = unmerged.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<URL, Reflections> entry = iterator.next();
+                Store store = entry.getValue().getStore();
+                if (!store.keySet().contains(subTypesIndex)) {
+                    iterator.remove();
+                    continue;
+                }
+
+                boolean inherits = false;
+                Multimap<String, String> scannedSubTypes = store.get(subTypesIndex);
+                for (String superType : scannedSubTypes.keySet()) {
+                    if (inheriting.contains(superType)) {
+                        // Followed, along with their own sub types, on the next pass
+                        pending.addAll(scannedSubTypes.get(superType));
+                        inherits = true;
+                    }
+                }
+                if (inherits) {
+                    mergeAnnotationIndex(reflections, entry.getKey(), entry.getValue(), inputsFilter, recordOrigins);
+                    iterator.remove();
+                    merged++;
+                }
+            }
+
+            if (pending.isEmpty()) {
+                return merged;
+            }
+        }
     }
 
     /**
@@ -227,7 +537,8 @@ public class Utilities {
                 final ClasspathReference classpathReference = new ClasspathReference(
                         new URL(jarPath),
                         resolutionResult.getArtifact().getGroupId(),
-                        resolutionResult.getArtifact().getArtifactId()
+                        resolutionResult.getArtifact().getArtifactId(),
+                        resolutionResult.getArtifact().getVersion()
                 );
                 classpathReferenceList.add(classpathReference);
             }
@@ -413,6 +724,17 @@ public class Utilities {
         T run();
     }
 
+    /**
+     * The executors shared by every scan of the build session, rather than started and shut down for each schema.
+     * The scanning threads are daemons, and time out when idle.
+     */
+    private static class ScanExecutors {
+        private static final ForkJoinPool SCANNING =
+                ConfigurationBuilder.newParallelExecutor(Runtime.getRuntime().availableProcessors());
+        // Opening jars mostly waits on io; null, and done by the scanning threads, unless the JVM has virtual threads
+        private static final ExecutorService OPENING = ConfigurationBuilder.newVirtualThreadExecutor();
+    }
+
     @Getter
     @AllArgsConstructor
     private static class DependencyDetails {
@@ -14,7 +14,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * @author m.hradek
@@ -27,6 +36,7 @@ import java.util.List;
 public class Validator {
 
     private final static String REGEX_NAMESPACE = "[a-zA-Z_\\.]{1,}";
+    private final static Pattern PATTERN_NAMESPACE = Pattern.compile(REGEX_NAMESPACE);
 
     private Schema schema;
     private boolean checkTables;
@@ -34,6 +44,12 @@ public class Validator {
     private boolean checkNamespace;
     private List<Error> errors;
 
+    // The caller's executor the tables of the schema are validated on; null validates them on the calling thread
+    private ExecutorService executor;
+
+    // Stop at the first table (or enum) with errors
+    private boolean failFast;
+
     public Validator() {
         errors = new ArrayList<>();
 
@@ -85,7 +101,8 @@ public class Validator {
     }
 
     /**
-     *
+     * Validates the schema. The names of the schema's tables and enums are indexed once up front so each property is
+     * checked in constant time. Errors are reported in declaration order, however many threads are used.
      */
     public void validateSchema() {
         log.debug("Starting validator...");
@@ -96,57 +113,24 @@ public class Validator {
         }
 
         if (checkTables) {
-            for (TypeDeclaration type : schema.getTypeDeclarations()) {
-                log.debug("Looking at type: " + type.getName());
-                for (Property property : type.getProperties()) {
-                    log.debug("  Examining property: " + property.name);
-                    log.debug("  with type: " + property.type);
-                    if (property.type != FieldType.IDENT && property.type != FieldType.ARRAY
-                            && property.type != FieldType.MAP
-                            && Utilities.isPrimitiveOrWrapperType(property.type.targetClass)) {
-                        log.debug("    Property is lower case type: " + property.name);
-                        continue;
-                    }
-
-                    if (property.options.get(PropertyOptionKey.IDENT) != null && property.options
-                            .get(PropertyOptionKey.IDENT).contains("$")) {
-                        log.debug("    Error located in IDENT: " + property.name);
-                        Error error = new Error();
-                        error.setLocation(type.getName());
-                        error.setType(ErrorType.INVALID_PATH);
-                        error.setProperty(property);
-                        error.setComment(
-                                "Ident type name contains '$'; using '@FlatBufferOptions(useFullName = true)' on inner not recommended: "
-                                        + property.options.get(PropertyOptionKey.IDENT));
-                        errors.add(error);
-                    }
-
-                    if (property.options.get(PropertyOptionKey.ARRAY) != null && property.options
-                            .get(PropertyOptionKey.ARRAY).contains("$")) {
-                        log.debug("    Error located in ARRAY: " + property.name);
-                        Error error = new Error();
-                        error.setLocation(type.getName());
-                        error.setType(ErrorType.INVALID_PATH);
-                        error.setProperty(property);
-                        error.setComment(
-                                "Array type name contains '$'; using '@FlatBufferOptions(useFullName = true)' on inner not recommended: "
-                                        + property.options.get(PropertyOptionKey.ARRAY));
-                        errors.add(error);
-                    }
-
-                    if (definitionExists(property)) {
-                        log.debug("    Type definition exists: " + property.name);
-                        continue;
+            final Set<String> definitionNames = buildDefinitionNames();
+            final List<TypeDeclaration> types = schema.getTypeDeclarations();
+            if (executor != null && types.size() > 1) {
+                validateTypesInParallel(types, definitionNames);
+            } else {
+                for (TypeDeclaration type : types) {
+                    List<Error> typeErrors = validateType(type, definitionNames);
+                    errors.addAll(typeErrors);
+                    if (failFast && !typeErrors.isEmpty()) {
+                        break;
                     }
-
-                    log.debug("    Error located in: " + property.name);
-                    Error error = new Error();
-                    error.setLocation(type.getName());
-                    error.setType(ErrorType.TYPE_DEFINITION_NOT_DEFINED);
-                    error.setProperty(property);
-                    errors.add(error);
                 }
             }
+
+            if (failFast && !errors.isEmpty()) {
+                log.debug(" Failing fast; skipping remaining checks");
+                return;
+            }
         }
 
         if (checkEnums) {
@@ -169,11 +153,16 @@ public class Validator {
                     error.setType(ErrorType.ENUM_DEFINITION_NOT_DEFINED);
                     errors.add(error);
                 }
+
+                if (failFast && !errors.isEmpty()) {
+                    log.debug(" Failing fast; skipping remaining checks");
+                    return;
+                }
             }
         }
 
         // Check the namespace
-        if (checkNamespace && schema.getNamespace() != null && !schema.getNamespace().isEmpty() && !schema.getNamespace().toString().matches(REGEX_NAMESPACE)) {
+        if (checkNamespace && schema.getNamespace() != null && !schema.getNamespace().isEmpty() && !PATTERN_NAMESPACE.matcher(schema.getNamespace().toString()).matches()) {
             Error error = new Error();
             error.setLocation("Schema -> namespace");
             error.setType(ErrorType.INVALID_NAMESPACE);
@@ -182,6 +171,135 @@ public class Validator {
         }
     }
 
+    /**
+     * @return The lower case names of every table and enum declared in the schema
+     */
+    private Set<String> buildDefinitionNames() {
+        Set<String> definitionNames = new HashSet<>();
+        for (TypeDeclaration type : schema.getTypeDeclarations()) {
+            if (type.getName() != null) {
+                definitionNames.add(type.getName().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        for (EnumDeclaration enumD : schema.getEnumDeclarations()) {
+            if (enumD.getName() != null) {
+                definitionNames.add(enumD.getName().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        return definitionNames;
+    }
+
+    /**
+     * @param types           The tables of the schema
+     * @param definitionNames The lower case names of every table and enum declared in the schema
+     */
+    private void validateTypesInParallel(final List<TypeDeclaration> types, final Set<String> definitionNames) {
+        log.debug(" Validating [{}] types on the executor", types.size());
+
+        // Types after the first one found with errors are skipped when failing fast
+        final AtomicInteger firstFailure = new AtomicInteger(Integer.MAX_VALUE);
+
+        try {
+            List<Future<List<Error>>> futures = new ArrayList<>(types.size());
+            for (int i = 0; i < types.size(); i++) {
+                final int index = i;
+                final TypeDeclaration type = types.get(i);
+                futures.add(executor.submit(() -> {
+                    if (failFast && index > firstFailure.get()) {
+                        return Collections.<Error>emptyList();
+                    }
+
+                    List<Error> typeErrors = validateType(type, definitionNames);
+                    if (failFast && !typeErrors.isEmpty()) {
+                        firstFailure.accumulateAndGet(index, Math::min);
+                    }
+
+                    return typeErrors;
+                }));
+            }
+
+            for (Future<List<Error>> future : futures) {
+                List<Error> typeErrors = future.get();
+                errors.addAll(typeErrors);
+                if (failFast && !typeErrors.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating schema", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @param type            The table to validate
+     * @param definitionNames The lower case names of every table and enum declared in the schema
+     * @return The errors found in the table
+     */
+    private List<Error> validateType(TypeDeclaration type, Set<String> definitionNames) {
+        List<Error> typeErrors = new ArrayList<>();
+
+        log.debug("Looking at type: " + type.getName());
+        for (Property property : type.getProperties()) {
+            log.debug("  Examining property: " + property.name);
+            log.debug("  with type: " + property.type);
+            if (property.type != FieldType.IDENT && property.type != FieldType.ARRAY
+                    && property.type != FieldType.MAP
+                    && Utilities.isPrimitiveOrWrapperType(property.type.targetClass)) {
+                log.debug("    Property is lower case type: " + property.name);
+                continue;
+            }
+
+            if (property.options.get(PropertyOptionKey.IDENT) != null && property.options
+                    .get(PropertyOptionKey.IDENT).contains("$")) {
+                log.debug("    Error located in IDENT: " + property.name);
+                Error error = new Error();
+                error.setLocation(type.getName());
+                error.setType(ErrorType.INVALID_PATH);
+                error.setProperty(property);
+                error.setComment(
+                        "Ident type name contains '$'; using '@FlatBufferOptions(useFullName = true)' on inner not recommended: "
+                                + property.options.get(PropertyOptionKey.IDENT));
+                typeErrors.add(error);
+            }
+
+            if (property.options.get(PropertyOptionKey.ARRAY) != null && property.options
+                    .get(PropertyOptionKey.ARRAY).contains("$")) {
+                log.debug("    Error located in ARRAY: " + property.name);
+                Error error = new Error();
+                error.setLocation(type.getName());
+                error.setType(ErrorType.INVALID_PATH);
+                error.setProperty(property);
+                error.setComment(
+                        "Array type name contains '$'; using '@FlatBufferOptions(useFullName = true)' on inner not recommended: "
+                                + property.options.get(PropertyOptionKey.ARRAY));
+                typeErrors.add(error);
+            }
+
+            if (definitionExists(property, definitionNames, typeErrors)) {
+                log.debug("    Type definition exists: " + property.name);
+                continue;
+            }
+
+            log.debug("    Error located in: " + property.name);
+            Error error = new Error();
+            error.setLocation(type.getName());
+            error.setType(ErrorType.TYPE_DEFINITION_NOT_DEFINED);
+            error.setProperty(property);
+            typeErrors.add(error);
+        }
+
+        return typeErrors;
+    }
+
     /**
      * @return Any error comments generated during Schema validation
      */
@@ -201,10 +319,13 @@ public class Validator {
     }
 
     /**
-     * @param input the Property to validate as having a definition within the Schema's list of known TypeDeclaration and EnumDeclaration.
+     * @param input           the Property to validate as having a definition within the Schema's list of known
+     *                        TypeDeclaration and EnumDeclaration.
+     * @param definitionNames the lower case names of every table and enum declared in the schema
+     * @param typeErrors      where errors found with the Property are added
      * @return boolean true or false
      */
-    private boolean definitionExists(Property input) {
+    private boolean definitionExists(Property input, Set<String> definitionNames, List<Error> typeErrors) {
         log.debug("    Checking TypeDeclaration list for: " + input.name);
         log.debug("      with set type of: " + input.type);
 
@@ -214,20 +335,8 @@ public class Validator {
             log.debug("    with type name: " + mapName);
 
             // If it's a map and it's an upper case then it must be defined
-            if (Character.isUpperCase(mapName.charAt(0))) {
-                for (TypeDeclaration type : schema.getTypeDeclarations()) {
-                    log.debug("    against type (map): " + type.getName());
-                    if (type.getName().equalsIgnoreCase(mapName)) {
-                        return true;
-                    }
-                }
-
-                for (EnumDeclaration enumD : schema.getEnumDeclarations()) {
-                    log.debug("    against enum (map): " + enumD.getName());
-                    if (enumD.getName().equalsIgnoreCase(mapName)) {
-                        return true;
-                    }
-                }
+            if (Character.isUpperCase(mapName.charAt(0)) && isDefined(mapName, definitionNames)) {
+                return true;
             }
         }
 
@@ -237,20 +346,8 @@ public class Validator {
             log.debug("    with type name: " + listTypeName);
 
             // If it's an array and it's an upper case then it must be defined
-            if (Character.isUpperCase(listTypeName.charAt(0))) {
-                for (TypeDeclaration type : schema.getTypeDeclarations()) {
-                    log.debug("    against type (array): " + type.getName());
-                    if (type.getName().equalsIgnoreCase(listTypeName)) {
-                        return true;
-                    }
-                }
-
-                for (EnumDeclaration enumD : schema.getEnumDeclarations()) {
-                    log.debug("    against enum (array): " + enumD.getName());
-                    if (enumD.getName().equalsIgnoreCase(listTypeName)) {
-                        return true;
-                    }
-                }
+            if (Character.isUpperCase(listTypeName.charAt(0)) && isDefined(listTypeName, definitionNames)) {
+                return true;
             }
 
             // If it's a lower case type then we assume primitive (or primitive derived from a wrapper type)
@@ -273,24 +370,12 @@ public class Validator {
                 error.setProperty(input);
                 error.setComment(
                         String.format("The field for the type [%s] exists but is defined as null or empty", input.name));
-                errors.add(error);
+                typeErrors.add(error);
                 return false;
             }
 
-            if (Character.isUpperCase(identTypeName.charAt(0))) {
-                for (TypeDeclaration type : schema.getTypeDeclarations()) {
-                    log.debug("    against type (ident): " + type.getName());
-                    if (type.getName().equalsIgnoreCase(identTypeName)) {
-                        return true;
-                    }
-                }
-
-                for (EnumDeclaration enumD : schema.getEnumDeclarations()) {
-                    log.debug("    against enum (ident): " + enumD.getName());
-                    if (enumD.getName().equalsIgnoreCase(identTypeName)) {
-                        return true;
-                    }
-                }
+            if (Character.isUpperCase(identTypeName.charAt(0)) && isDefined(identTypeName, definitionNames)) {
+                return true;
             }
 
             if (isFlatbufferTypeByName(identTypeName)) {
@@ -299,21 +384,16 @@ public class Validator {
             }
         }
 
-        for (TypeDeclaration type : schema.getTypeDeclarations()) {
-            log.debug("    against type: " + type.getName());
-            if (type.getName().equalsIgnoreCase(input.name)) {
-                return true;
-            }
-        }
-
-        for (EnumDeclaration enumD : schema.getEnumDeclarations()) {
-            log.debug("    against enum: " + enumD.getName());
-            if (enumD.getName().equalsIgnoreCase(input.name)) {
-                return true;
-            }
-        }
+        return isDefined(input.name, definitionNames);
+    }
 
-        return false;
+    /**
+     * @param name            the name of a table or enum
+     * @param definitionNames the lower case names of every table and enum declared in the schema
+     * @return whether or not a table or enum with the name (ignoring case) is declared in the schema
+     */
+    private static boolean isDefined(String name, Set<String> definitionNames) {
+        return name != null && definitionNames.contains(name.toLowerCase(Locale.ROOT));
     }
 
     enum ErrorType {
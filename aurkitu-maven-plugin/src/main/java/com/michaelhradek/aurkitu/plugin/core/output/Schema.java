@@ -5,17 +5,24 @@ import com.michaelhradek.aurkitu.plugin.core.Comparators;
 import com.michaelhradek.aurkitu.plugin.core.Validator;
 import com.michaelhradek.aurkitu.plugin.core.output.components.Namespace;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
 
 /**
+ * Declarations are kept by name in the order they were added, and additionally in the order they are written out so
+ * that adding and rendering stay cheap for large schemas. Only one declaration is kept per name; see
+ * {@link #addTypeDeclaration(TypeDeclaration)}.
+ *
  * @author m.hradek
  */
+@Slf4j
 @Getter
 @Setter
 @EqualsAndHashCode
@@ -27,7 +34,11 @@ public class Schema {
     private String fileExtension;
     private Namespace namespace;
     private String rootType;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private List<EnumDeclaration> enumDeclarations;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
     private List<TypeDeclaration> typeDeclarations;
     private Set<String> includes;
     private List<String> attributes;
@@ -44,9 +55,31 @@ public class Schema {
     // Classpath references used to create this schema
     private List<ClasspathReference> classpathReferenceList;
 
+    // The declarations by name, and in the order they are written out; maintained as declarations are added
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private Map<String, EnumDeclaration> enumDeclarationsByName;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private Map<String, TypeDeclaration> typeDeclarationsByName;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private NavigableMap<String, EnumDeclaration> sortedEnumDeclarations;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    private NavigableMap<String, TypeDeclaration> sortedTypeDeclarations;
+
     public Schema() {
         enumDeclarations = new ArrayList<>();
         typeDeclarations = new ArrayList<>();
+        enumDeclarationsByName = new HashMap<>();
+        typeDeclarationsByName = new HashMap<>();
+        sortedEnumDeclarations = new TreeMap<>(Comparators.DECLARATION_NAME);
+        sortedTypeDeclarations = new TreeMap<>(Comparators.DECLARATION_NAME);
         includes = new HashSet<>();
         attributes = new ArrayList<>();
         integerConstants = new ArrayList<>();
@@ -63,20 +96,88 @@ public class Schema {
     }
 
     /**
-     * @param input Add an enum declaration to the schema
+     * @return The enum declarations in the order they were added. Changes to the list do not affect the schema.
+     */
+    public List<EnumDeclaration> getEnumDeclarations() {
+        return new ArrayList<>(enumDeclarations);
+    }
+
+    /**
+     * @param input Replace the enum declarations of the schema
+     */
+    public void setEnumDeclarations(List<EnumDeclaration> input) {
+        enumDeclarations.clear();
+        enumDeclarationsByName.clear();
+        sortedEnumDeclarations.clear();
+        for (EnumDeclaration enumD : input) {
+            addEnumDeclaration(enumD);
+        }
+    }
+
+    /**
+     * @param name The name of the enum declaration
+     * @return The enum declaration with the name; otherwise null
+     */
+    public EnumDeclaration getEnumDeclaration(String name) {
+        return enumDeclarationsByName.get(name);
+    }
+
+    /**
+     * @return The type declarations in the order they were added. Changes to the list do not affect the schema.
+     */
+    public List<TypeDeclaration> getTypeDeclarations() {
+        return new ArrayList<>(typeDeclarations);
+    }
+
+    /**
+     * @param input Replace the type declarations of the schema
+     */
+    public void setTypeDeclarations(List<TypeDeclaration> input) {
+        typeDeclarations.clear();
+        typeDeclarationsByName.clear();
+        sortedTypeDeclarations.clear();
+        for (TypeDeclaration type : input) {
+            addTypeDeclaration(type);
+        }
+    }
+
+    /**
+     * @param name The name of the type declaration
+     * @return The type declaration with the name; otherwise null
+     */
+    public TypeDeclaration getTypeDeclaration(String name) {
+        return typeDeclarationsByName.get(name);
+    }
+
+    /**
+     * @param input Add an enum declaration to the schema. If an enum with the same name was already added, the
+     *              first one is kept; a different enum with the same name is logged as a conflict.
      */
     public void addEnumDeclaration(EnumDeclaration input) {
-        if (!enumDeclarations.contains(input)) {
+        EnumDeclaration existing = enumDeclarationsByName.get(input.getName());
+        if (existing == null) {
             enumDeclarations.add(input);
+            enumDeclarationsByName.put(input.getName(), input);
+            sortedEnumDeclarations.put(input.getName(), input);
+        } else if (existing != input && !existing.equals(input)) {
+            log.warn("Enum [{}] declared more than once with different values; keeping the first declaration",
+                    input.getName());
         }
     }
 
     /**
-     * @param input Add a type (i.e. class) declaration to the schema
+     * @param input Add a type (i.e. class) declaration to the schema. If a type with the same name was already added,
+     *              the first one is kept; a different type with the same name is logged as a conflict.
      */
     public void addTypeDeclaration(TypeDeclaration input) {
-        if (!typeDeclarations.contains(input)) {
+        TypeDeclaration existing = typeDeclarationsByName.get(input.getName());
+        if (existing == null) {
             typeDeclarations.add(input);
+            typeDeclarationsByName.put(input.getName(), input);
+            sortedTypeDeclarations.put(input.getName(), input);
+        } else if (existing != input && !existing.equals(input)) {
+            log.warn("Type [{}] declared more than once with different properties; keeping the first declaration",
+                    input.getName());
         }
     }
 
@@ -227,13 +328,11 @@ public class Schema {
             builder.append(System.lineSeparator());
         }
 
-        enumDeclarations.sort(Comparators.ENUM_DECLARATION);
-        for (EnumDeclaration enumD : enumDeclarations) {
+        for (EnumDeclaration enumD : sortedEnumDeclarations.values()) {
             builder.append(enumD.toString());
         }
 
-        typeDeclarations.sort(Comparators.TYPE_DECLARATION);
-        for (TypeDeclaration typeD : typeDeclarations) {
+        for (TypeDeclaration typeD : sortedTypeDeclarations.values()) {
             builder.append(typeD.toString());
         }
 
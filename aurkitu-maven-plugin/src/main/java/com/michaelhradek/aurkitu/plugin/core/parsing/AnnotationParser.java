@@ -1,6 +1,7 @@
 package com.michaelhradek.aurkitu.plugin.core.parsing;
 
 import com.michaelhradek.aurkitu.plugin.core.Utilities;
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
 import com.michaelhradek.aurkitu.reflections.Reflections;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
@@ -9,8 +10,7 @@ import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 
 import java.lang.annotation.Annotation;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author m.hradek
@@ -35,6 +35,105 @@ public class AnnotationParser {
         }
     }
 
+    /**
+     * Scans the classpath once and queries it for every annotation in the input.
+     *
+     * @param artifactReference      The ArtifactReference
+     * @param classpathReferenceList A list of paths to consider when searching for annotations
+     * @param inputs                 The Aurkitu annotations to search for
+     * @return A list of classes which are annotated with any of the above annotations.
+     * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
+     */
+    public static Set<Class<?>> findAnnotatedClasses(ArtifactReference artifactReference,
+                                                     List<ClasspathReference> classpathReferenceList,
+                                                     Collection<Class<? extends Annotation>> inputs) throws MojoExecutionException {
+        try {
+            return findAnnotatedClasses(Utilities.buildReflections(artifactReference, classpathReferenceList), inputs);
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Dependency resolution failed", e);
+        }
+    }
+
+    /**
+     * Scans the classpath once and queries it for every annotation in the input without loading the annotated classes.
+     *
+     * @param artifactReference      The ArtifactReference
+     * @param classpathReferenceList A list of paths to consider when searching for annotations
+     * @param inputs                 The Aurkitu annotations to search for
+     * @return The names of the classes which are annotated with any of the above annotations.
+     * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
+     */
+    public static Set<String> findAnnotatedClassNames(ArtifactReference artifactReference,
+                                                      List<ClasspathReference> classpathReferenceList,
+                                                      Collection<Class<? extends Annotation>> inputs) throws MojoExecutionException {
+        try {
+            return findAnnotatedClassNames(Utilities.buildReflections(artifactReference, classpathReferenceList), inputs);
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Dependency resolution failed", e);
+        }
+    }
+
+    /**
+     * Scans the union of the schemas' classpath references once and partitions the annotated classes back to the
+     * schemas whose classpath references contain them. Classes located outside every schema's classpath references
+     * (i.e. on the parent class loader) are given to all schemas, as a scan of each schema on its own would find them.
+     *
+     * @param artifactReference The ArtifactReference
+     * @param schemas           The schemas to find annotated classes for
+     * @param inputs            The Aurkitu annotations to search for
+     * @return The annotated classes for each of the schemas; keyed by schema identity
+     * @throws MojoExecutionException when there is a MalformedURLException in the classpathElements
+     */
+    public static Map<Schema, Set<Class<?>>> findAnnotatedClassesBySchema(ArtifactReference artifactReference,
+                                                                          List<Schema> schemas,
+                                                                          Collection<Class<? extends Annotation>> inputs) throws MojoExecutionException {
+        // Schemas commonly share references (the project schema includes every dependency); scan each only once
+        Map<String, ClasspathReference> unionReferences = new LinkedHashMap<>();
+        for (Schema schema : schemas) {
+            for (ClasspathReference reference : schema.getClasspathReferenceList()) {
+                unionReferences.put(reference.getUrl().toExternalForm(), reference);
+            }
+        }
+
+        log.debug("Scanning {} classpath references once for {} schemas", unionReferences.size(), schemas.size());
+        Reflections reflections;
+        try {
+            reflections = Utilities.buildReflections(artifactReference, new ArrayList<>(unionReferences.values()), true);
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Dependency resolution failed", e);
+        }
+
+        Set<Class<?>> annotatedClasses = findAnnotatedClasses(reflections, inputs);
+
+        Map<String, Set<String>> typeNamesByUrl = new HashMap<>();
+        Set<String> ownedTypeNames = new HashSet<>();
+        for (ClasspathReference reference : unionReferences.values()) {
+            Set<String> typeNames = reflections.getTypesScannedFrom(reference.getUrl());
+            typeNamesByUrl.put(reference.getUrl().toExternalForm(), typeNames);
+            ownedTypeNames.addAll(typeNames);
+        }
+
+        Map<Schema, Set<Class<?>>> result = new IdentityHashMap<>();
+        for (Schema schema : schemas) {
+            Set<String> schemaTypeNames = new HashSet<>();
+            for (ClasspathReference reference : schema.getClasspathReferenceList()) {
+                schemaTypeNames.addAll(typeNamesByUrl.get(reference.getUrl().toExternalForm()));
+            }
+
+            Set<Class<?>> schemaClasses = new LinkedHashSet<>();
+            for (Class<?> clazz : annotatedClasses) {
+                if (schemaTypeNames.contains(clazz.getName()) || !ownedTypeNames.contains(clazz.getName())) {
+                    schemaClasses.add(clazz);
+                }
+            }
+
+            log.debug("  Partitioned [{}] annotated classes to schema: {}", schemaClasses.size(), schema.getName());
+            result.put(schema, schemaClasses);
+        }
+
+        return result;
+    }
+
     /**
      * @param input A list of Aurkitu annotations.
      * @return A list of classes which are annotated with the above annotations.
@@ -46,6 +145,33 @@ public class AnnotationParser {
         return findAnnotatedClasses(reflections, input);
     }
 
+    /**
+     * Scans the java class path once and queries it for every annotation in the input.
+     *
+     * @param inputs The Aurkitu annotations to search for
+     * @return A list of classes which are annotated with any of the above annotations.
+     */
+    public static Set<Class<?>> findAnnotatedClasses(Collection<Class<? extends Annotation>> inputs) {
+        Reflections reflections =
+                new Reflections(new ConfigurationBuilder().setUrls(ClasspathHelper.forJavaClassPath()));
+
+        return findAnnotatedClasses(reflections, inputs);
+    }
+
+    /**
+     * Scans the java class path once and queries it for every annotation in the input without loading the annotated
+     * classes.
+     *
+     * @param inputs The Aurkitu annotations to search for
+     * @return The names of the classes which are annotated with any of the above annotations.
+     */
+    public static Set<String> findAnnotatedClassNames(Collection<Class<? extends Annotation>> inputs) {
+        Reflections reflections =
+                new Reflections(new ConfigurationBuilder().setUrls(ClasspathHelper.forJavaClassPath()));
+
+        return findAnnotatedClassNames(reflections, inputs);
+    }
+
     /**
      * @param path  The path to traverse.
      * @param input A list of Aurkitu annotations.
@@ -70,4 +196,37 @@ public class AnnotationParser {
 
         return classes;
     }
+
+    /**
+     * @param reflections Reflections to traverse.
+     * @param inputs      The Aurkitu annotations to query the single scan for.
+     * @return A list of classes which are annotated with any of the above annotations.
+     */
+    private static Set<Class<?>> findAnnotatedClasses(Reflections reflections,
+                                                      Collection<Class<? extends Annotation>> inputs) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (Class<? extends Annotation> input : inputs) {
+            classes.addAll(findAnnotatedClasses(reflections, input));
+        }
+
+        return classes;
+    }
+
+    /**
+     * @param reflections Reflections to traverse.
+     * @param inputs      The Aurkitu annotations to query the single scan for.
+     * @return The names of the classes which are annotated with any of the above annotations.
+     */
+    private static Set<String> findAnnotatedClassNames(Reflections reflections,
+                                                       Collection<Class<? extends Annotation>> inputs) {
+        Set<String> classNames = new LinkedHashSet<>();
+        for (Class<? extends Annotation> input : inputs) {
+            for (String className : reflections.getTypeNamesAnnotatedWith(input)) {
+                log.debug("Find: " + input.getName() + " -> Found annotated class name: " + className);
+                classNames.add(className);
+            }
+        }
+
+        return classNames;
+    }
 }
@@ -8,6 +8,7 @@ import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.repository.RemoteRepository;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -22,4 +23,22 @@ public class ArtifactReference {
     private RepositorySystemSession repoSession;
     private List<RemoteRepository> repositories;
     private List<String> specifiedDependencies;
+    // Where classpath scans are saved and reused between builds; otherwise null
+    private File scanIndexDirectory;
+    // Whether classes which do not mention an Aurkitu annotation are skipped without being parsed
+    private boolean annotationPreFilter;
+    // Where the scans of dependency jars are kept for every build and project; otherwise null
+    private File artifactIndexDirectory;
+
+    public ArtifactReference(MavenProject mavenProject, RepositorySystem repoSystem, RepositorySystemSession repoSession,
+                             List<RemoteRepository> repositories, List<String> specifiedDependencies) {
+        this(mavenProject, repoSystem, repoSession, repositories, specifiedDependencies, null, false);
+    }
+
+    public ArtifactReference(MavenProject mavenProject, RepositorySystem repoSystem, RepositorySystemSession repoSession,
+                             List<RemoteRepository> repositories, List<String> specifiedDependencies,
+                             File scanIndexDirectory, boolean annotationPreFilter) {
+        this(mavenProject, repoSystem, repoSession, repositories, specifiedDependencies, scanIndexDirectory,
+                annotationPreFilter, null);
+    }
 }
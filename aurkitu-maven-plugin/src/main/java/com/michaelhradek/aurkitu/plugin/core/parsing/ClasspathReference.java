@@ -14,6 +14,12 @@ public class ClasspathReference {
     private URL url;
     private String groupId;
     private String artifactId;
+    // Only known for resolved dependency artifacts; otherwise null
+    private String version;
+
+    public ClasspathReference(URL url, String groupId, String artifactId) {
+        this(url, groupId, artifactId, null);
+    }
 
     /**
      *
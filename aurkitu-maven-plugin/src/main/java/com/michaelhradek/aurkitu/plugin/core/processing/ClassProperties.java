@@ -28,12 +28,7 @@ public class ClassProperties implements PropertyExtractor {
         String identName;
 
         try {
-            Class<?> clazz;
-            if (processor.getArtifactReference() != null && processor.getArtifactReference().getMavenProject() != null) {
-                clazz = Processor.getClassForClassName(processor.getArtifactReference().getMavenProject(), processor.getCurrentSchema(), fieldType.getTypeName());
-            } else {
-                clazz = Thread.currentThread().getContextClassLoader().loadClass(fieldType.getTypeName());
-            }
+            Class<?> clazz = processor.resolveClass(fieldType.getTypeName());
 
             // Consolidated versus separated schema check
             if (!processor.isConsolidatedSchemas()) {
@@ -2,18 +2,12 @@ package com.michaelhradek.aurkitu.plugin.core.processing;
 
 import com.michaelhradek.aurkitu.annotations.types.FieldType;
 import com.michaelhradek.aurkitu.plugin.core.Processor;
-import com.michaelhradek.aurkitu.plugin.core.Utilities;
 import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
-import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
-import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathSearchType;
 import com.michaelhradek.aurkitu.plugin.core.processing.interfaces.PropertyExtractor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Field;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.List;
 
 @Slf4j
 @AllArgsConstructor
@@ -30,19 +24,6 @@ public class ListProperties implements PropertyExtractor {
         Class<?> listTypeClass;
 
         try {
-            // Load all paths into custom classloader
-            ClassLoader urlClassLoader = Thread.currentThread().getContextClassLoader();
-            if (processor.getArtifactReference() != null && processor.getArtifactReference().getMavenProject() != null) {
-
-                List<ClasspathReference> classpathReferenceList = Utilities.buildProjectClasspathList(processor.getArtifactReference(), ClasspathSearchType.BOTH);
-                URL[] targetUrlArray = new URL[classpathReferenceList.size()];
-                for (int i = 0; i < classpathReferenceList.size(); i++) {
-                    targetUrlArray[i] = classpathReferenceList.get(i).getUrl();
-                }
-
-                urlClassLoader = URLClassLoader.newInstance(targetUrlArray, urlClassLoader);
-            }
-
             // Get type class name
             String[] typeClassNames = Processor.getTypeClassNamesFromParameterizedType(field);
             if (typeClassNames.length > 1) {
@@ -50,7 +31,7 @@ public class ListProperties implements PropertyExtractor {
                     + " has more than one type class; only first one supported. Type classes: "
                     + String.join(",", typeClassNames));
             }
-            listTypeClass = urlClassLoader.loadClass(typeClassNames[0]);
+            listTypeClass = processor.resolveClass(typeClassNames[0]);
         } catch (Exception e) {
             log.warn("Unable to find and load class for List<?> parameter, using String instead (field name): " + field.getName());
             log.warn("Exception:", e);
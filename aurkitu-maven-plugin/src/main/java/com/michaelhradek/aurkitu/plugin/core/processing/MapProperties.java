@@ -2,16 +2,13 @@ package com.michaelhradek.aurkitu.plugin.core.processing;
 
 import com.michaelhradek.aurkitu.annotations.types.FieldType;
 import com.michaelhradek.aurkitu.plugin.core.Processor;
-import com.michaelhradek.aurkitu.plugin.core.Utilities;
 import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
-import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathSearchType;
 import com.michaelhradek.aurkitu.plugin.core.processing.interfaces.PropertyExtractor;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.plugin.MojoExecutionException;
 
 import java.lang.reflect.Field;
-import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -50,15 +47,7 @@ public class MapProperties implements PropertyExtractor {
                             "Using Map<?, ?> where either `?` is `java.lang.Object` is not permitted; using `java.lang.String`");
                     mapTypeClass = String.class;
                 } else {
-                    // Load all paths into custom classloader
-                    ClassLoader urlClassLoader = Thread.currentThread().getContextClassLoader();
-                    if (processor.getArtifactReference() != null && processor.getArtifactReference().getMavenProject() != null) {
-                        urlClassLoader = URLClassLoader
-                                .newInstance(Utilities.arrayForClasspathReferenceList(
-                                        Utilities.buildProjectClasspathList(processor.getArtifactReference(), ClasspathSearchType.BOTH)), urlClassLoader);
-                    }
-
-                    mapTypeClass = urlClassLoader.loadClass(typeClassNames[i]);
+                    mapTypeClass = processor.resolveClass(typeClassNames[i]);
                 }
             } catch (Exception e) {
                 log
@@ -121,7 +110,7 @@ public class MapProperties implements PropertyExtractor {
 
         try {
             if (processor.isConsolidatedSchemas() || !processor.getExternalClassDefinitionDetails(field.getDeclaringClass()).locatedOutside) {
-                processor.getCurrentSchema().addTypeDeclaration(mapType);
+                processor.getDeclarationSchema().addTypeDeclaration(mapType);
             }
         } catch (MojoExecutionException e) {
             log.debug("Unable to determine if declaring class is located outside - skipped adding type [{}] to schema [{}] type definition list",
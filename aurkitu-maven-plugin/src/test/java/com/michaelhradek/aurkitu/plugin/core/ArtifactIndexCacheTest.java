@@ -0,0 +1,162 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.google.common.io.ByteStreams;
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
+import com.michaelhradek.aurkitu.plugin.test.SampleClassTable;
+import com.michaelhradek.aurkitu.plugin.test.SimpleUndefinedClass;
+import com.michaelhradek.aurkitu.reflections.Reflections;
+import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
+import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class ArtifactIndexCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAnnotatedJarIsReadFromCache() throws Exception {
+        File jar = jar("annotated-1.0.jar", SampleClassTable.class);
+        ArtifactIndexCache cache = new ArtifactIndexCache(folder.newFolder("cache"));
+        ClasspathReference reference = reference(jar, "1.0");
+
+        CountingScan scan = new CountingScan(jar);
+        Reflections scanned = cache.getOrScan(reference, jar, scan);
+        Assert.assertNotNull(scanned);
+        Assert.assertEquals(1, scan.count.get());
+
+        Reflections cached = cache.getOrScan(reference, jar, scan);
+        Assert.assertEquals(1, scan.count.get());
+        Assert.assertTrue(cached.getStore().get(Utils.index(TypeAnnotationsScanner.class))
+                .containsEntry(FlatBufferTable.class.getName(), SampleClassTable.class.getName()));
+
+        // Another version of the same jar is scanned on its own
+        cache.getOrScan(reference(jar, "1.1"), jar, scan);
+        Assert.assertEquals(2, scan.count.get());
+    }
+
+    @Test
+    public void testJarWithoutAnnotatedTypesIsMarked() throws Exception {
+        File jar = jar("plain-1.0.jar", SimpleUndefinedClass.class);
+        ArtifactIndexCache cache = new ArtifactIndexCache(folder.newFolder("cache"));
+        ClasspathReference reference = reference(jar, "1.0");
+
+        CountingScan scan = new CountingScan(jar);
+        Assert.assertFalse(ArtifactIndexCache.hasAnnotatedTypes(cache.getOrScan(reference, jar, scan)));
+        Reflections cached = cache.getOrScan(reference, jar, scan);
+        Assert.assertEquals(1, scan.count.get());
+        Assert.assertFalse(ArtifactIndexCache.hasAnnotatedTypes(cached));
+
+        // Its super types are kept, in case they are annotated elsewhere
+        Assert.assertTrue(cached.getStore().get(Utils.index(SubTypesScanner.class))
+                .containsEntry(Object.class.getName(), SimpleUndefinedClass.class.getName()));
+        File marker = new File(cache.baseFile(reference, jar).getPath() + ".none");
+        Assert.assertTrue(marker.isFile());
+    }
+
+    @Test
+    public void testSnapshotIsFingerprintedByContent() throws Exception {
+        File jar = jar("snapshot-1.0-SNAPSHOT.jar", SimpleUndefinedClass.class);
+        // A stale checksum left over from a download; only released jars trust it
+        Files.write(new File(jar.getPath() + ".sha1").toPath(),
+                "0123456789abcdef0123456789abcdef01234567".getBytes(StandardCharsets.US_ASCII));
+        ArtifactIndexCache cache = new ArtifactIndexCache(folder.newFolder("cache"));
+        ClasspathReference reference = reference(jar, "1.0-SNAPSHOT");
+
+        CountingScan scan = new CountingScan(jar);
+        Assert.assertFalse(ArtifactIndexCache.hasAnnotatedTypes(cache.getOrScan(reference, jar, scan)));
+        File stale = cache.baseFile(reference, jar);
+
+        // The snapshot is rebuilt in place with an annotated type
+        jar("snapshot-1.0-SNAPSHOT.jar", SampleClassTable.class);
+        Assert.assertTrue(ArtifactIndexCache.hasAnnotatedTypes(cache.getOrScan(reference, jar, scan)));
+        Assert.assertEquals(2, scan.count.get());
+        Assert.assertFalse(new File(stale.getPath() + ".none").exists());
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        File jar = jar("checksum-1.0.jar", SampleClassTable.class);
+        File fingerprint = new File(folder.getRoot(), "checksum-1.0.jar.fingerprint");
+        String computed = ArtifactIndexCache.checksum(jar, true, fingerprint);
+        Assert.assertTrue(computed.matches("[0-9a-f]{40}"));
+        Assert.assertFalse(fingerprint.exists());
+
+        File sidecar = new File(jar.getPath() + ".sha1");
+        Files.write(sidecar.toPath(),
+                "0123456789ABCDEF0123456789ABCDEF01234567  checksum-1.0.jar\n".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals("0123456789abcdef0123456789abcdef01234567",
+                ArtifactIndexCache.checksum(jar, false, fingerprint));
+        Assert.assertEquals(computed, ArtifactIndexCache.checksum(jar, true, fingerprint));
+
+        Files.write(sidecar.toPath(), "not a checksum".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(computed, ArtifactIndexCache.checksum(jar, false, fingerprint));
+        Assert.assertTrue(fingerprint.isFile());
+    }
+
+    @Test
+    public void testReleaseChecksumIsKept() throws Exception {
+        File jar = jar("kept-1.0.jar", SampleClassTable.class);
+        File fingerprint = new File(folder.getRoot(), "kept-1.0.jar.fingerprint");
+        String computed = ArtifactIndexCache.checksum(jar, false, fingerprint);
+
+        // Not hashed again while the jar keeps its size and time
+        String kept = "0123456789abcdef0123456789abcdef01234567";
+        Files.write(fingerprint.toPath(), (kept + " " + jar.length() + " " + jar.lastModified())
+                .getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals(kept, ArtifactIndexCache.checksum(jar, false, fingerprint));
+
+        Assert.assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+        Assert.assertEquals(computed, ArtifactIndexCache.checksum(jar, false, fingerprint));
+    }
+
+    private File jar(String name, Class<?> type) throws IOException {
+        File jar = new File(folder.getRoot(), name);
+        String path = type.getName().replace('.', '/') + ".class";
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+             InputStream in = type.getClassLoader().getResourceAsStream(path)) {
+            out.putNextEntry(new JarEntry(path));
+            ByteStreams.copy(in, out);
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    private static ClasspathReference reference(File jar, String version) throws IOException {
+        return new ClasspathReference(new URL("jar:file:" + jar.getAbsolutePath() + "!/"), "com.example", "example",
+                version);
+    }
+
+    private static class CountingScan implements Callable<Reflections> {
+        private final AtomicInteger count = new AtomicInteger();
+        private final File jar;
+
+        CountingScan(File jar) {
+            this.jar = jar;
+        }
+
+        @Override
+        public Reflections call() throws Exception {
+            count.incrementAndGet();
+            // A file url, as jar urls share the cached JarFile of a path
+            return Utilities.scanArtifact(jar.toURI().toURL());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
+import com.michaelhradek.aurkitu.plugin.test.*;
+import com.michaelhradek.aurkitu.plugin.test.other.SampleAnonymousEnum;
+import com.michaelhradek.aurkitu.plugin.test.other.SampleClassNamespaceMap;
+import javassist.bytecode.ClassFile;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class ClassFileExtractorTest {
+
+    private static final Map<String, String> TEST_NAMESPACE_OVERRIDE_MAP = Collections.singletonMap(
+            "com.michaelhradek.aurkitu.plugin.test.other", "com.michaelhradek.aurkitu.plugin.test.flatbuffer");
+
+    private Processor processor;
+    private ClassFileExtractor extractor;
+
+    @Before
+    public void setUp() {
+        processor = new Processor().withSchema(new Schema()).withNamespaceOverrideMap(TEST_NAMESPACE_OVERRIDE_MAP);
+        extractor = new ClassFileExtractor(processor);
+    }
+
+    @Test
+    public void testBuildTypeDeclaration() throws Exception {
+        Class<?>[] classes = new Class<?>[]{SampleClassReferenced.class, SampleClassReferenced.InnerClass.class,
+                SampleClassStruct.class, SampleClassTableWithUndefined.class, SampleClassNamespaceMap.class,
+                SampleAnonymousEnum.class};
+
+        for (Class<?> clazz : classes) {
+            Assert.assertEquals(processor.buildTypeDeclaration(null, clazz).toString(),
+                    extractor.buildTypeDeclaration(readClassFile(clazz.getName())).toString());
+        }
+    }
+
+    @Test
+    public void testBuildEnumDeclaration() throws Exception {
+        List<Class<?>> enums = new java.util.ArrayList<>();
+        enums.add(SampleEnumByte.class);
+        enums.add(SampleEnumNull.class);
+        enums.add(SampleClassReferenced.SampleClassTableInnerEnumInt.class);
+        for (Class<?> clazz : SampleAnonymousEnum.class.getDeclaredClasses()) {
+            enums.add(clazz);
+        }
+
+        for (Class<?> clazz : enums) {
+            Assert.assertEquals(processor.buildEnumDeclaration(clazz).toString(),
+                    extractor.buildEnumDeclaration(readClassFile(clazz.getName())).toString());
+        }
+    }
+
+    @Test
+    public void testBuildDeclarations() throws Exception {
+        Schema schema = new Schema();
+        Assert.assertNull(extractor.buildDeclarations(schema, SampleClassReferenced.class.getName()));
+        Assert.assertEquals(3, schema.getTypeDeclarations().size());
+        Assert.assertEquals(1, schema.getEnumDeclarations().size());
+
+        schema = new Schema();
+        Assert.assertNull(extractor.buildDeclarations(schema, SampleEnumByte.class.getName()));
+        Assert.assertEquals(0, schema.getTypeDeclarations().size());
+        Assert.assertEquals(1, schema.getEnumDeclarations().size());
+
+        schema = new Schema();
+        Assert.assertNull(extractor.buildDeclarations(schema, "com.michaelhradek.aurkitu.DoesNotExist"));
+        Assert.assertTrue(schema.getTypeDeclarations().isEmpty());
+    }
+
+    @Test
+    public void testClassIsNotInitialised() throws Exception {
+        TypeDeclaration type = extractor.buildTypeDeclaration(readClassFile(getClass().getName() + "$ExplodingInitializer"));
+        Assert.assertEquals("ExplodingInitializer", type.getName());
+        Assert.assertEquals(2, type.getProperties().size());
+        Assert.assertEquals("int", type.getProperties().get(1).options.get(TypeDeclaration.Property.PropertyOptionKey.ARRAY));
+    }
+
+    private ClassFile readClassFile(String className) throws Exception {
+        ClassFile classFile = processor.readClassFile(className);
+        Assert.assertNotNull(classFile);
+        return classFile;
+    }
+
+    static class ExplodingInitializer {
+        static {
+            if (true) {
+                throw new IllegalStateException("Must never be initialised");
+            }
+        }
+
+        protected String name;
+        protected List<Integer> values;
+    }
+}
@@ -0,0 +1,66 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import javassist.bytecode.ClassFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClassResolverTest {
+
+    @Test
+    public void testLoadClassCachesResults() throws Exception {
+        final AtomicInteger lookups = new AtomicInteger();
+        ClassLoader countingClassLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            public Class<?> loadClass(String name) throws ClassNotFoundException {
+                lookups.incrementAndGet();
+                return super.loadClass(name);
+            }
+        };
+
+        ClassResolver classResolver = new ClassResolver(countingClassLoader);
+        Assert.assertEquals(countingClassLoader, classResolver.getClassLoader());
+
+        Assert.assertEquals(Schema.class, classResolver.loadClass(Schema.class.getName()));
+        Assert.assertEquals(Schema.class, classResolver.loadClass(Schema.class.getName()));
+        Assert.assertEquals(1, lookups.get());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                classResolver.loadClass("com.michaelhradek.aurkitu.DoesNotExist");
+                Assert.fail("Expected ClassNotFoundException");
+            } catch (ClassNotFoundException e) {
+                Assert.assertEquals("com.michaelhradek.aurkitu.DoesNotExist", e.getMessage());
+            }
+        }
+        Assert.assertEquals(2, lookups.get());
+
+        classResolver.close();
+    }
+
+    @Test
+    public void testGetClassFile() throws Exception {
+        ClassResolver classResolver = new ClassResolver(getClass().getClassLoader());
+
+        ClassFile classFile = classResolver.getClassFile(Schema.class.getName());
+        Assert.assertNotNull(classFile);
+        Assert.assertEquals(Schema.class.getName(), classFile.getName());
+        Assert.assertSame(classFile, classResolver.getClassFile(Schema.class.getName()));
+
+        Assert.assertNull(classResolver.getClassFile("com.michaelhradek.aurkitu.DoesNotExist"));
+        Assert.assertNull(classResolver.getClassFile("com.michaelhradek.aurkitu.DoesNotExist"));
+
+        classResolver.close();
+    }
+
+    @Test
+    public void testUrlClassLoaderOwnership() throws Exception {
+        ClassResolver classResolver = new ClassResolver(new URL[]{}, getClass().getClassLoader());
+        Assert.assertNotEquals(getClass().getClassLoader(), classResolver.getClassLoader());
+        Assert.assertEquals(Schema.class, classResolver.loadClass(Schema.class.getName()));
+        classResolver.close();
+    }
+}
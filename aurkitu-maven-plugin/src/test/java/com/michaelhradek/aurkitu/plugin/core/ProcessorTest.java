@@ -13,7 +13,9 @@ import com.michaelhradek.aurkitu.plugin.core.output.Schema;
 import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
 import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property;
 import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property.PropertyOptionKey;
+import com.michaelhradek.aurkitu.plugin.core.output.components.Namespace;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ArtifactReference;
+import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
 import com.michaelhradek.aurkitu.plugin.stubs.AurkituTestMavenProjectStub;
 import com.michaelhradek.aurkitu.plugin.stubs.AurkituTestSettingsStub;
 import com.michaelhradek.aurkitu.plugin.test.*;
@@ -36,11 +38,15 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.URL;
 import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 /**
  * @author m.hradek
@@ -168,6 +174,78 @@ public class ProcessorTest extends AbstractMojoTestCase {
         }
     }
 
+    @Test
+    public void testExecuteParallel() throws MojoExecutionException {
+        Processor serialProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema());
+        serialProcessor.execute();
+        Schema serialSchema = serialProcessor.getProcessedSchemas().get(0);
+
+        Processor parallelProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema()).withBuildParallelism(4);
+        Assert.assertEquals(4, parallelProcessor.getBuildParallelism());
+        parallelProcessor.execute();
+        Schema parallelSchema = parallelProcessor.getProcessedSchemas().get(0);
+
+        Assert.assertEquals(serialSchema.getTypeDeclarations().size(), parallelSchema.getTypeDeclarations().size());
+        Assert.assertEquals(serialSchema.getEnumDeclarations().size(), parallelSchema.getEnumDeclarations().size());
+        Assert.assertEquals("SampleClassTable", parallelSchema.getRootType());
+        Assert.assertEquals(serialSchema.toString(), parallelSchema.toString());
+    }
+
+    @Test
+    public void testExecuteBytecodeExtraction() throws MojoExecutionException {
+        Processor reflectiveProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema());
+        reflectiveProcessor.execute();
+        Schema reflectiveSchema = reflectiveProcessor.getProcessedSchemas().get(0);
+
+        Processor bytecodeProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema()).withBytecodeExtraction(true);
+        Assert.assertTrue(bytecodeProcessor.isBytecodeExtraction());
+        bytecodeProcessor.execute();
+        Schema bytecodeSchema = bytecodeProcessor.getProcessedSchemas().get(0);
+
+        Assert.assertEquals(reflectiveSchema.getTypeDeclarations().size(), bytecodeSchema.getTypeDeclarations().size());
+        Assert.assertEquals(reflectiveSchema.getEnumDeclarations().size(), bytecodeSchema.getEnumDeclarations().size());
+        Assert.assertEquals("SampleClassTable", bytecodeSchema.getRootType());
+        Assert.assertEquals(reflectiveSchema.toString(), bytecodeSchema.toString());
+    }
+
+    @Test
+    public void testExecuteSchemasParallel() throws MojoExecutionException {
+        Schema serialSchemaOne = new Schema();
+        serialSchemaOne.setName("one");
+        Schema serialSchemaTwo = new Schema();
+        serialSchemaTwo.setName("two");
+        Processor serialProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchemas(Arrays.asList(serialSchemaOne, serialSchemaTwo))
+                .withValidateSchemas(true);
+        serialProcessor.execute();
+
+        Schema parallelSchemaOne = new Schema();
+        parallelSchemaOne.setName("one");
+        Schema parallelSchemaTwo = new Schema();
+        parallelSchemaTwo.setName("two");
+        Processor parallelProcessor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchemas(Arrays.asList(parallelSchemaOne, parallelSchemaTwo))
+                .withValidateSchemas(true).withSchemaParallelism(2).withBuildParallelism(2);
+        Assert.assertEquals(2, parallelProcessor.getSchemaParallelism());
+        parallelProcessor.execute();
+
+        Assert.assertEquals(2, parallelProcessor.getProcessedSchemas().size());
+        Assert.assertEquals(parallelSchemaTwo, parallelProcessor.getCurrentSchema());
+        Assert.assertEquals(serialProcessor.getTargetClasses().size(), parallelProcessor.getTargetClasses().size());
+        Assert.assertNotNull(parallelProcessor.getValidator());
+        for (int i = 0; i < 2; i++) {
+            Schema serialSchema = serialProcessor.getProcessedSchemas().get(i);
+            Schema parallelSchema = parallelProcessor.getProcessedSchemas().get(i);
+            Assert.assertEquals(serialSchema.getName(), parallelSchema.getName());
+            Assert.assertEquals(serialSchema.getIsValid(), parallelSchema.getIsValid());
+            Assert.assertEquals(serialSchema.toString(), parallelSchema.toString());
+        }
+    }
+
     @Test
     public void testBuildEnumDeclarationPass() throws MojoExecutionException {
         Processor processor = new Processor().withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema());
@@ -500,6 +578,47 @@ public class ProcessorTest extends AbstractMojoTestCase {
         Assert.assertEquals(true, prop.options.isEmpty());
     }
 
+    @Test
+    public void testGetPropertyForFieldIsReused() throws Exception {
+        Schema schema = new Schema();
+        Processor processor = new Processor();
+
+        Field currentSchemaField = processor.getClass().getDeclaredField("currentSchema");
+        currentSchemaField.setAccessible(true);
+        currentSchemaField.set(processor, schema);
+
+        Field field = SampleClassTable.class.getDeclaredField("tokens");
+        Property prop = processor.getPropertyForField(schema, field);
+        Assert.assertEquals(FieldType.ARRAY, prop.type);
+        prop.options.put(PropertyOptionKey.COMMENT, "Changed by the caller");
+
+        Property reused = processor.getPropertyForField(schema, field);
+        Assert.assertNotSame(prop, reused);
+        Assert.assertEquals("tokens", reused.name);
+        Assert.assertEquals(FieldType.ARRAY, reused.type);
+        Assert.assertEquals(prop.options.get(PropertyOptionKey.ARRAY), reused.options.get(PropertyOptionKey.ARRAY));
+        Assert.assertFalse(reused.options.containsKey(PropertyOptionKey.COMMENT));
+
+        // The helper type of a map is declared again when the field is reused
+        field = SampleClassTable.class.getDeclaredField("dataMap");
+        prop = processor.getPropertyForField(schema, field);
+        Assert.assertEquals(FieldType.MAP, prop.type);
+        Assert.assertEquals(1, schema.getTypeDeclarations().size());
+
+        schema.setTypeDeclarations(new ArrayList<TypeDeclaration>());
+        reused = processor.getPropertyForField(schema, field);
+        Assert.assertEquals(prop.options.get(PropertyOptionKey.MAP), reused.options.get(PropertyOptionKey.MAP));
+        Assert.assertEquals(1, schema.getTypeDeclarations().size());
+        Assert.assertEquals(prop.options.get(PropertyOptionKey.MAP), schema.getTypeDeclarations().get(0).getName());
+
+        // Inherited fields are flattened once per class
+        Method method = processor.getClass().getDeclaredMethod("getDeclaredAndInheritedPrivateFields", Class.class);
+        method.setAccessible(true);
+        Object fields = method.invoke(processor, SampleClassTable.class);
+        Assert.assertSame(fields, method.invoke(processor, SampleClassTable.class));
+        Assert.assertTrue(((List<?>) method.invoke(processor, Object.class)).isEmpty());
+    }
+
     @Test
     public void testGetTypeClassNamesFromParameterizedType()
         throws NoSuchFieldException, ClassNotFoundException {
@@ -577,7 +696,7 @@ public class ProcessorTest extends AbstractMojoTestCase {
     }
 
     @Test
-    public void testGetClassForClassName() throws Exception {
+    public void testResolveClass() throws Exception {
         File testPom = new File(getBasedir(), "src/test/resources/plugin-basic-with-project/pom.xml");
 
         Application mojo = new Application();
@@ -591,7 +710,9 @@ public class ProcessorTest extends AbstractMojoTestCase {
 
         Assert.assertNotNull(mavenProject);
 
-        Class<?> clazz = Processor.getClassForClassName(mavenProject, new Schema(), AurkituTestSettingsStub.class.getName());
+        Processor processor = new Processor().withSchema(new Schema())
+                .withArtifactReference(new ArtifactReference(mavenProject, null, null, null, null));
+        Class<?> clazz = processor.resolveClass(AurkituTestSettingsStub.class.getName());
         Assert.assertNotNull(clazz);
         Assert.assertEquals(AurkituTestSettingsStub.class.getName(), clazz.getName());
     }
@@ -858,6 +979,47 @@ public class ProcessorTest extends AbstractMojoTestCase {
         Assert.assertNotNull(externalClassDefinition.toString());
     }
 
+    @Test
+    public void testGetExternalClassDefinitionDetailsUnconsolidated() throws Exception {
+        File jar = File.createTempFile("aurkitu-ownership", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream jarOutputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            jarOutputStream.putNextEntry(new JarEntry(TestAnonymousClass.class.getName().replace('.', '/') + ".class"));
+            jarOutputStream.closeEntry();
+        }
+
+        ClasspathReference reference = new ClasspathReference(new URL("jar:file:" + jar.getAbsolutePath() + "!/"),
+                "com.test.dependency", "dependency-artifact");
+
+        Schema schema = new Schema();
+        schema.setName("projectSchema");
+        schema.setClasspathReferenceList(new ArrayList<>(Collections.singletonList(reference)));
+
+        Schema dependencySchema = new Schema();
+        dependencySchema.setName("dependency-artifact");
+        dependencySchema.setNamespace(new Namespace("com.test.dependency", "flatbuffers", "dependency-artifact"));
+        dependencySchema.setClasspathReferenceList(new ArrayList<>(Collections.singletonList(reference)));
+        dependencySchema.setDependency(true);
+
+        Processor processor = new Processor().withConsolidatedSchemas(false).withSchemas(Arrays.asList(schema, dependencySchema));
+
+        Field currentSchemaField = processor.getClass().getDeclaredField("currentSchema");
+        currentSchemaField.setAccessible(true);
+        currentSchemaField.set(processor, schema);
+
+        Processor.ExternalClassDefinition externalClassDefinition = processor.getExternalClassDefinitionDetails(TestAnonymousClass.class);
+        Assert.assertTrue(externalClassDefinition.locatedOutside);
+        Assert.assertEquals(dependencySchema.getNamespace(), externalClassDefinition.targetNamespace);
+        Assert.assertTrue(schema.getIncludes().contains(dependencySchema.getName()));
+
+        externalClassDefinition = processor.getExternalClassDefinitionDetails(TestInterface.class);
+        Assert.assertFalse(externalClassDefinition.locatedOutside);
+        Assert.assertNull(externalClassDefinition.targetNamespace);
+
+        Assert.assertEquals(1, processor.getClassOwnershipIndex().size());
+        Assert.assertEquals(2, processor.getClassOwnershipIndex().get(TestAnonymousClass.class.getName()).size());
+    }
+
     @Test
     public void testCurrentSchema() throws MojoExecutionException {
         Processor processor = new Processor();
@@ -922,6 +1084,33 @@ public class ProcessorTest extends AbstractMojoTestCase {
         }
     }
 
+    @Test
+    public void testMultipleRootsParallel() throws NoSuchFieldException, NoSuchMethodException, IllegalAccessException, CannotCompileException {
+
+        try {
+            Schema schema = new Schema();
+            schema.setName("schemaTestMultipleRootsParallel");
+
+            Processor processor = new Processor().withBuildParallelism(2);
+
+            Set<Class<?>> targetClasses = new HashSet<>();
+            targetClasses.add(createTestClassRootType("targetClassParallelOne"));
+            targetClasses.add(createTestClassRootType("targetClassParallelTwo"));
+
+            Field targetClassesField = processor.getClass().getDeclaredField("targetClasses");
+            targetClassesField.setAccessible(true);
+            targetClassesField.set(processor, targetClasses);
+
+            Method buildSchemaMethod = processor.getClass().getDeclaredMethod("buildSchema", Schema.class);
+            buildSchemaMethod.setAccessible(true);
+            buildSchemaMethod.invoke(processor, schema);
+
+            Assert.fail("Expected IllegalArgumentException when multiple roots type declarations are made");
+        } catch (InvocationTargetException e) {
+            Assert.assertEquals("Only one rootType declaration is allowed", e.getCause().getMessage());
+        }
+    }
+
     enum Colours implements Printable {
         RED("FF0000", 1),
         BLUE("0000FF", 2),
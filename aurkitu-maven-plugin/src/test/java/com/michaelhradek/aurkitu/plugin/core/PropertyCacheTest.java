@@ -0,0 +1,87 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.annotations.types.FieldType;
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property;
+import com.michaelhradek.aurkitu.plugin.core.output.TypeDeclaration.Property.PropertyOptionKey;
+import com.michaelhradek.aurkitu.plugin.test.SampleClassTable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PropertyCacheTest {
+
+    @Test
+    public void testInheritedFields() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        Assert.assertNull(cache.getInheritedFields(SampleClassTable.class));
+
+        List<Field> fields = new ArrayList<>();
+        fields.add(SampleClassTable.class.getDeclaredField("id"));
+        List<Field> cached = cache.putInheritedFields(SampleClassTable.class, fields);
+        Assert.assertEquals(fields, cached);
+        Assert.assertSame(cached, cache.getInheritedFields(SampleClassTable.class));
+
+        // The first caller wins
+        Assert.assertSame(cached, cache.putInheritedFields(SampleClassTable.class, new ArrayList<Field>()));
+
+        cache.clear();
+        Assert.assertNull(cache.getInheritedFields(SampleClassTable.class));
+    }
+
+    @Test
+    public void testPropertyIsKeptPerSchema() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        Field field = SampleClassTable.class.getDeclaredField("tokens");
+
+        Property property = new Property();
+        property.name = "tokens";
+        property.type = FieldType.ARRAY;
+        property.options.put(PropertyOptionKey.ARRAY, "string");
+
+        TypeDeclaration mapType = new TypeDeclaration();
+        Schema schema = new Schema();
+        cache.putProperty(schema, field, property, mapType);
+
+        // Later changes to the property do not leak into the cache
+        property.options.put(PropertyOptionKey.COMMENT, "changed");
+        PropertyCache.ResolvedProperty resolved = cache.getProperty(schema, field);
+        Assert.assertNotNull(resolved);
+        Assert.assertSame(mapType, resolved.getMapType());
+        Assert.assertEquals("tokens", resolved.getProperty().name);
+        Assert.assertFalse(resolved.getProperty().options.containsKey(PropertyOptionKey.COMMENT));
+
+        // Schemas are compared by identity, not equality
+        Assert.assertNull(cache.getProperty(new Schema(), field));
+        Assert.assertNull(cache.getProperty(null, field));
+    }
+
+    @Test
+    public void testTypePropertyIsNameless() throws Exception {
+        PropertyCache cache = new PropertyCache();
+        Field field = SampleClassTable.class.getDeclaredField("tokens");
+
+        Property property = new Property();
+        property.name = "tokens";
+        property.type = FieldType.ARRAY;
+        property.options.put(PropertyOptionKey.ARRAY, "string");
+        property.options.put(PropertyOptionKey.COMMENT, "A comment");
+        property.options.put(PropertyOptionKey.DEFAULT_VALUE, "value");
+        cache.putTypeProperty(null, field.getGenericType(), false, property);
+
+        Assert.assertNull(cache.getTypeProperty(null, field.getGenericType(), true));
+        Property template = cache.getTypeProperty(null, field.getGenericType(), false);
+        Assert.assertNotNull(template);
+        Assert.assertNull(template.name);
+        Assert.assertEquals(FieldType.ARRAY, template.type);
+        Assert.assertEquals(1, template.options.size());
+        Assert.assertEquals("string", template.options.get(PropertyOptionKey.ARRAY));
+
+        // The original is left as it was
+        Assert.assertEquals(3, property.options.size());
+    }
+}
@@ -0,0 +1,42 @@
+package com.michaelhradek.aurkitu.plugin.core;
+
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SchemaContextTest {
+
+    @Test
+    public void testForFragment() {
+        Schema schema = new Schema();
+        SchemaContext context = new SchemaContext(schema);
+        Assert.assertSame(schema, context.getSchema());
+        Assert.assertSame(schema, context.getDeclarationSchema());
+        Assert.assertTrue(context.getTargetClasses().isEmpty());
+
+        Schema fragment = new Schema();
+        SchemaContext fragmentContext = context.forFragment(fragment);
+        Assert.assertSame(schema, fragmentContext.getSchema());
+        Assert.assertSame(fragment, fragmentContext.getDeclarationSchema());
+        Assert.assertSame(context.getTargetClasses(), fragmentContext.getTargetClasses());
+        Assert.assertNotSame(context.getIncludes(), fragmentContext.getIncludes());
+    }
+
+    @Test
+    public void testMergeIncludes() {
+        Schema schema = new Schema();
+        schema.setIncludes(null);
+
+        SchemaContext context = new SchemaContext(schema);
+        context.mergeIncludes();
+        Assert.assertNull(schema.getIncludes());
+
+        context.getIncludes().add("dependency-one");
+        context.getIncludes().add("dependency-two");
+        context.mergeIncludes();
+
+        Assert.assertEquals(2, schema.getIncludes().size());
+        Assert.assertTrue(schema.getIncludes().contains("dependency-one"));
+        Assert.assertTrue(context.getIncludes().isEmpty());
+    }
+}
@@ -1,15 +1,20 @@
 package com.michaelhradek.aurkitu.plugin.core;
 
 import com.google.common.base.Predicate;
+import com.google.common.io.ByteStreams;
 import com.michaelhradek.aurkitu.annotations.FlatBufferEnum;
 import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+import com.michaelhradek.aurkitu.annotations.processing.IndexProcessor;
 import com.michaelhradek.aurkitu.plugin.Application;
 import com.michaelhradek.aurkitu.plugin.core.output.Schema;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ArtifactReference;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathReference;
 import com.michaelhradek.aurkitu.plugin.core.parsing.ClasspathSearchType;
 import com.michaelhradek.aurkitu.plugin.test.SampleClassTable;
+import com.michaelhradek.aurkitu.plugin.test.SimpleUndefinedClass;
+import com.michaelhradek.aurkitu.reflections.CompactMultimap;
 import com.michaelhradek.aurkitu.reflections.Reflections;
+import javassist.bytecode.ClassFile;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.artifact.handler.ArtifactHandler;
@@ -29,15 +34,23 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.*;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 public class UtilitiesTest extends AbstractMojoTestCase {
 
@@ -233,11 +246,173 @@ public class UtilitiesTest extends AbstractMojoTestCase {
         Mockito.when(mockedMavenProject.getCompileClasspathElements()).thenReturn(new ArrayList<>());
 
         artifactReference = new ArtifactReference(mockedMavenProject, null, null, null, specifiedDependencies);
+        Reflections previous = reflections;
         reflections = Utilities.buildReflections(artifactReference, new ArrayList<>());
         inputsFilter = reflections.getConfiguration().getInputsFilter();
 
         Assert.assertNotNull(inputsFilter);
         Assert.assertEquals("+bork_kasjf.*, +com\\.somecompany\\.team.*, +com\\.othercompany\\.clan.*, +org\\.ngo\\.subversive.*", inputsFilter.toString());
+        Assert.assertNull(reflections.getConfiguration().getConstantPoolFilter());
+        Assert.assertNull(reflections.getConfiguration().getScanIndexDirectory());
+        for (String index : reflections.getStore().keySet()) {
+            Assert.assertTrue(reflections.getStore().get(index) instanceof CompactMultimap);
+        }
+
+        // Every scan of the build uses the same pool, which is left running
+        Assert.assertFalse(reflections.getConfiguration().shouldShutdownExecutors());
+        Assert.assertSame(previous.getConfiguration().getExecutorService(), reflections.getConfiguration().getExecutorService());
+        Assert.assertFalse(reflections.getConfiguration().getExecutorService().isShutdown());
+    }
+
+    @Test
+    public void testBuildReflectionsWithScanOptions() throws Exception {
+        MavenProject mockedMavenProject = Mockito.mock(MavenProject.class);
+        Mockito.when(mockedMavenProject.getCompileClasspathElements()).thenReturn(new ArrayList<>());
+
+        File scanIndexDirectory = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        ArtifactReference artifactReference = new ArtifactReference(mockedMavenProject, null, null, null, null,
+                scanIndexDirectory, true);
+
+        Reflections reflections = Utilities.buildReflections(artifactReference, new ArrayList<>());
+        Assert.assertEquals(scanIndexDirectory, reflections.getConfiguration().getScanIndexDirectory());
+        Assert.assertNotNull(reflections.getConfiguration().getConstantPoolFilter());
+        Assert.assertTrue(reflections.getConfiguration().getConstantPoolFilter().getAnnotationTypes()
+                .contains(FlatBufferTable.class.getName()));
+        Assert.assertTrue(reflections.getConfiguration().getConstantPoolFilter().getAnnotationTypes()
+                .contains(FlatBufferEnum.class.getName()));
+    }
+
+    @Test
+    public void testBuildReflectionsWithArtifactIndexCache() throws Exception {
+        MavenProject mockedMavenProject = Mockito.mock(MavenProject.class);
+        Mockito.when(mockedMavenProject.getCompileClasspathElements()).thenReturn(new ArrayList<>());
+
+        File directory = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        Assert.assertTrue(directory.mkdirs());
+        File jar = new File(directory, "sample-1.0.jar");
+        String path = SampleClassTable.class.getName().replace('.', '/') + ".class";
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+             InputStream in = SampleClassTable.class.getClassLoader().getResourceAsStream(path)) {
+            out.putNextEntry(new JarEntry(path));
+            ByteStreams.copy(in, out);
+            out.closeEntry();
+        }
+
+        File cacheDirectory = new File(directory, "cache");
+        ArtifactReference artifactReference = new ArtifactReference(mockedMavenProject, null, null, null, null,
+                null, false, cacheDirectory);
+        URL url = new URL("jar:file:" + jar.getAbsolutePath() + "!/");
+        List<ClasspathReference> classpathReferences = new ArrayList<>();
+        classpathReferences.add(new ClasspathReference(url, "com.example", "sample", "1.0"));
+
+        // Scanned into the cache, then read from it
+        for (int i = 0; i < 2; i++) {
+            Reflections reflections = Utilities.buildReflections(artifactReference, classpathReferences, true);
+            Assert.assertTrue(reflections.getTypesScannedFrom(url).contains(SampleClassTable.class.getName()));
+            Assert.assertTrue(reflections.getTypeNamesAnnotatedWith(FlatBufferTable.class)
+                    .contains(SampleClassTable.class.getName()));
+        }
+
+        File[] cached = new File(cacheDirectory, "com.example/sample/1.0")
+                .listFiles((dir, name) -> !name.endsWith(".fingerprint"));
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(1, cached.length);
+        Assert.assertTrue(cached[0].getName().startsWith("sample-1.0.jar-"));
+        Assert.assertTrue(cached[0].getName().endsWith(".xml"));
+    }
+
+    @Test
+    public void testBuildReflectionsWithArtifactIndexCacheFindsInheritingTypes() throws Exception {
+        MavenProject mockedMavenProject = Mockito.mock(MavenProject.class);
+        Mockito.when(mockedMavenProject.getCompileClasspathElements()).thenReturn(new ArrayList<>());
+
+        File directory = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        Assert.assertTrue(directory.mkdirs());
+        File sampleJar = new File(directory, "sample-1.0.jar");
+        String path = SampleClassTable.class.getName().replace('.', '/') + ".class";
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(sampleJar));
+             InputStream in = SampleClassTable.class.getClassLoader().getResourceAsStream(path)) {
+            out.putNextEntry(new JarEntry(path));
+            ByteStreams.copy(in, out);
+            out.closeEntry();
+        }
+        // Neither jar has annotated types; one extends the annotated type of the sample jar, the other does not
+        ClassFile derived = new ClassFile(false, "sample.Derived", SampleClassTable.class.getName());
+        File derivedJar = jar(new File(directory, "derived-1.0.jar"), derived);
+        File plainJar = jar(new File(directory, "plain-1.0.jar"), new ClassFile(false, "sample.Plain", null));
+
+        ArtifactReference artifactReference = new ArtifactReference(mockedMavenProject, null, null, null, null,
+                null, false, new File(directory, "cache"));
+        URL derivedUrl = derivedJar.toURI().toURL();
+        URL plainUrl = plainJar.toURI().toURL();
+        List<ClasspathReference> classpathReferences = new ArrayList<>();
+        classpathReferences.add(new ClasspathReference(sampleJar.toURI().toURL(), "com.example", "sample", "1.0"));
+        classpathReferences.add(new ClasspathReference(derivedUrl, "com.example", "derived", "1.0"));
+        classpathReferences.add(new ClasspathReference(plainUrl, "com.example", "plain", "1.0"));
+
+        // As when scanned, both into the cache and from it
+        for (int i = 0; i < 2; i++) {
+            Reflections reflections = Utilities.buildReflections(artifactReference, classpathReferences, true);
+            Assert.assertTrue(reflections.getTypeNamesAnnotatedWith(FlatBufferTable.class).contains("sample.Derived"));
+            Assert.assertTrue(reflections.getTypesScannedFrom(derivedUrl).contains("sample.Derived"));
+            Assert.assertTrue(reflections.getTypesScannedFrom(plainUrl).isEmpty());
+        }
+    }
+
+    private static File jar(File jar, ClassFile classFile) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry(classFile.getName().replace('.', '/') + ".class"));
+            classFile.write(new DataOutputStream(out));
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    @Test
+    public void testReadAnnotationIndexOfClassDirectory() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        File index = new File(directory, IndexProcessor.INDEX);
+        Assert.assertTrue(index.getParentFile().mkdirs());
+        Files.write(index.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<Reflections>\n" +
+                "  <TypeAnnotationsScanner>\n" +
+                "    <entry><key>" + FlatBufferTable.class.getName() + "</key><values><value>" +
+                SampleClassTable.class.getName() + "</value></values></entry>\n" +
+                "  </TypeAnnotationsScanner>\n" +
+                "  <SubTypesScanner>\n" +
+                "    <entry><key>java.lang.Object</key><values><value>" +
+                SampleClassTable.class.getName() + "</value></values></entry>\n" +
+                "  </SubTypesScanner>\n" +
+                "</Reflections>\n").getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(index.setLastModified(System.currentTimeMillis() - 60000));
+
+        // Compiled along with the index
+        File sample = copyClass(directory, SampleClassTable.class);
+        URL url = directory.toURI().toURL();
+        Reflections reflections = Utilities.readAnnotationIndex(url);
+        Assert.assertNotNull(reflections);
+        Assert.assertTrue(reflections.getTypeNamesAnnotatedWith(FlatBufferTable.class)
+                .contains(SampleClassTable.class.getName()));
+
+        // A class compiled without the index
+        File other = copyClass(directory, SimpleUndefinedClass.class);
+        Assert.assertNull(Utilities.readAnnotationIndex(url));
+        Assert.assertTrue(other.delete());
+        Assert.assertNotNull(Utilities.readAnnotationIndex(url));
+
+        // A class older than the index
+        Assert.assertTrue(sample.setLastModified(index.lastModified() - 60000));
+        Assert.assertNull(Utilities.readAnnotationIndex(url));
+    }
+
+    private static File copyClass(File directory, Class<?> type) throws IOException {
+        String path = type.getName().replace('.', '/') + ".class";
+        File file = new File(directory, path);
+        Assert.assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        try (InputStream in = type.getClassLoader().getResourceAsStream(path)) {
+            Files.copy(in, file.toPath());
+        }
+        return file;
     }
 
     @Test
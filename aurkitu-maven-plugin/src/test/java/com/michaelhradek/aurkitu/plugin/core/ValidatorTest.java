@@ -14,7 +14,11 @@ import org.junit.Test;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 public class ValidatorTest {
 
@@ -209,15 +213,12 @@ public class ValidatorTest {
     public void testDefinitionExists() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
         Validator validator = new Validator();
 
-        Method definitionExistsMethod = validator.getClass().getDeclaredMethod("definitionExists", TypeDeclaration.Property.class);
-        definitionExistsMethod.setAccessible(true);
-
         TypeDeclaration.Property property = new TypeDeclaration.Property();
         property.type = FieldType.IDENT;
         property.name = "test-missing-ident-type";
         property.options.put(TypeDeclaration.Property.PropertyOptionKey.IDENT, null);
 
-        Boolean exists = (Boolean) definitionExistsMethod.invoke(validator, property);
+        Boolean exists = definitionExists(validator, property);
         Assert.assertFalse(exists);
         Validator.Error error = validator.getErrors().get(0);
 
@@ -238,7 +239,7 @@ public class ValidatorTest {
 
         validator.setSchema(schema);
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, propertyTest);
+        exists = definitionExists(validator, propertyTest);
         Assert.assertFalse(exists);
 
         EnumDeclaration enumDeclarationTwo = new EnumDeclaration();
@@ -252,7 +253,7 @@ public class ValidatorTest {
 
         validator.setSchema(schema);
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, propertyTestTwo);
+        exists = definitionExists(validator, propertyTestTwo);
         Assert.assertFalse(exists);
 
         EnumDeclaration enumDeclarationThree = new EnumDeclaration();
@@ -266,7 +267,7 @@ public class ValidatorTest {
 
         validator.setSchema(schema);
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, propertyTestThree);
+        exists = definitionExists(validator, propertyTestThree);
         Assert.assertTrue(exists);
     }
 
@@ -276,30 +277,27 @@ public class ValidatorTest {
         Schema schema = new Schema();
         validator.setSchema(schema);
 
-        Method definitionExistsMethod = validator.getClass().getDeclaredMethod("definitionExists", TypeDeclaration.Property.class);
-        definitionExistsMethod.setAccessible(true);
-
         TypeDeclaration.Property property = new TypeDeclaration.Property();
         property.type = FieldType.ARRAY;
         property.name = "test-array-property-primitive";
         property.options.put(TypeDeclaration.Property.PropertyOptionKey.ARRAY, "string");
 
-        Boolean exists = (Boolean) definitionExistsMethod.invoke(validator, property);
+        Boolean exists = definitionExists(validator, property);
         Assert.assertTrue(exists);
 
         property.options.put(TypeDeclaration.Property.PropertyOptionKey.ARRAY, "String");
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, property);
+        exists = definitionExists(validator, property);
         Assert.assertFalse(exists);
 
         property.options.put(TypeDeclaration.Property.PropertyOptionKey.ARRAY, "com.some.package.String");
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, property);
+        exists = definitionExists(validator, property);
         Assert.assertFalse(exists);
 
         property.options.put(TypeDeclaration.Property.PropertyOptionKey.ARRAY, "com.some.package.string");
 
-        exists = (Boolean) definitionExistsMethod.invoke(validator, property);
+        exists = definitionExists(validator, property);
         Assert.assertFalse(exists);
     }
 
@@ -327,4 +325,115 @@ public class ValidatorTest {
         Assert.assertFalse((Boolean) method.invoke(validator, "Bool"));
         Assert.assertFalse((Boolean) method.invoke(validator, "String"));
     }
+
+    @Test
+    public void testValidateSchemaInParallel() throws MojoExecutionException {
+        Schema schema = buildSampleSchema();
+
+        Validator serialValidator = new Validator().withSchema(schema);
+        serialValidator.validateSchema();
+        Assert.assertFalse(serialValidator.getErrors().isEmpty());
+
+        ExecutorService executor = new ForkJoinPool(4);
+        try {
+            Validator parallelValidator = new Validator().withSchema(schema).withExecutor(executor);
+            parallelValidator.validateSchema();
+            Assert.assertSame(executor, parallelValidator.getExecutor());
+            Assert.assertEquals(serialValidator.getErrorComments(), parallelValidator.getErrorComments());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testValidateSchemaFailFast() throws MojoExecutionException {
+        Schema schema = buildSampleSchema();
+
+        Validator validator = new Validator().withSchema(schema);
+        validator.validateSchema();
+
+        // Only the errors of the first table with errors are reported
+        final String firstLocation = validator.getErrors().get(0).getLocation();
+        int firstTableErrors = 0;
+        while (firstTableErrors < validator.getErrors().size()
+                && validator.getErrors().get(firstTableErrors).getLocation().equals(firstLocation)) {
+            firstTableErrors++;
+        }
+
+        Validator failFastValidator = new Validator().withSchema(schema).withFailFast(true);
+        failFastValidator.validateSchema();
+        Assert.assertTrue(failFastValidator.isFailFast());
+        Assert.assertEquals(firstTableErrors, failFastValidator.getErrors().size());
+        Assert.assertEquals(validator.getErrors().subList(0, firstTableErrors).toString(),
+                failFastValidator.getErrors().toString());
+
+        ExecutorService executor = new ForkJoinPool(4);
+        try {
+            Validator parallelFailFastValidator = new Validator().withSchema(schema).withFailFast(true).withExecutor(executor);
+            parallelFailFastValidator.validateSchema();
+            Assert.assertEquals(failFastValidator.getErrorComments(), parallelFailFastValidator.getErrorComments());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Enums are only checked once the tables pass
+        Validator enumValidator = new Validator().withSchema(schema).withCheckTables(false).withFailFast(true);
+        enumValidator.validateSchema();
+        Assert.assertFalse(enumValidator.getErrors().isEmpty());
+
+        final String firstEnumLocation = enumValidator.getErrors().get(0).getLocation();
+        for (Validator.Error error : enumValidator.getErrors()) {
+            Assert.assertEquals(firstEnumLocation, error.getLocation());
+            Assert.assertNull(error.getProperty());
+        }
+    }
+
+    @Test
+    public void testDefinitionExistsIgnoresCase() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        Schema schema = new Schema();
+        TypeDeclaration type = new TypeDeclaration();
+        type.setName("SampleTable");
+        schema.addTypeDeclaration(type);
+
+        Validator validator = new Validator().withSchema(schema);
+
+        TypeDeclaration.Property property = new TypeDeclaration.Property();
+        property.type = FieldType.IDENT;
+        property.name = "sample";
+        property.options.put(TypeDeclaration.Property.PropertyOptionKey.IDENT, "SAMPLETABLE");
+        Assert.assertTrue(definitionExists(validator, property));
+
+        property.options.put(TypeDeclaration.Property.PropertyOptionKey.IDENT, "SampleTableTwo");
+        Assert.assertFalse(definitionExists(validator, property));
+
+        // Falls back to the name of the property
+        property.name = "sampletable";
+        Assert.assertTrue(definitionExists(validator, property));
+        Assert.assertTrue(validator.getErrors().isEmpty());
+    }
+
+    private static Schema buildSampleSchema() throws MojoExecutionException {
+        Processor processor = new Processor().withSourceAnnotation(FlatBufferTable.class)
+                .withSourceAnnotation(FlatBufferEnum.class).withSchema(new Schema());
+        processor.execute();
+
+        return processor.getProcessedSchemas().get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean definitionExists(Validator validator, TypeDeclaration.Property property)
+            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        Set<String> definitionNames = Collections.emptySet();
+        if (validator.getSchema() != null) {
+            Method buildDefinitionNamesMethod = Validator.class.getDeclaredMethod("buildDefinitionNames");
+            buildDefinitionNamesMethod.setAccessible(true);
+            definitionNames = (Set<String>) buildDefinitionNamesMethod.invoke(validator);
+        }
+
+        Method definitionExistsMethod = Validator.class.getDeclaredMethod("definitionExists",
+                TypeDeclaration.Property.class, Set.class, List.class);
+        definitionExistsMethod.setAccessible(true);
+
+        return (Boolean) definitionExistsMethod.invoke(validator, property, definitionNames, validator.getErrors());
+    }
 }
@@ -1,5 +1,6 @@
 package com.michaelhradek.aurkitu.plugin.core.output;
 
+import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
 import com.michaelhradek.aurkitu.plugin.Config;
 import com.michaelhradek.aurkitu.plugin.core.Processor;
 import com.michaelhradek.aurkitu.plugin.core.Validator;
@@ -12,6 +13,7 @@ import org.junit.Test;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.hamcrest.core.IsNot.not;
 
@@ -246,6 +248,65 @@ public class SchemaTest {
         Assert.assertEquals(2, schema.getTypeDeclarations().size());
     }
 
+    @Test
+    public void testAddDeclarationConflict() {
+        Schema schema = new Schema();
+        TypeDeclaration first = new TypeDeclaration();
+        first.setName("Alpha");
+        schema.addTypeDeclaration(first);
+
+        // A different declaration with the same name does not replace the first
+        TypeDeclaration second = new TypeDeclaration();
+        second.setName("Alpha");
+        second.setComment("Declared again");
+        schema.addTypeDeclaration(second);
+        Assert.assertEquals(1, schema.getTypeDeclarations().size());
+        Assert.assertSame(first, schema.getTypeDeclaration("Alpha"));
+        Assert.assertNull(schema.getTypeDeclaration("alpha"));
+
+        EnumDeclaration firstEnum = new EnumDeclaration();
+        firstEnum.setName("Option");
+        schema.addEnumDeclaration(firstEnum);
+
+        EnumDeclaration secondEnum = new EnumDeclaration();
+        secondEnum.setName("Option");
+        secondEnum.setComment("Declared again");
+        schema.addEnumDeclaration(secondEnum);
+        Assert.assertEquals(1, schema.getEnumDeclarations().size());
+        Assert.assertSame(firstEnum, schema.getEnumDeclaration("Option"));
+    }
+
+    @Test
+    public void testDeclarationOrder() {
+        Schema schema = new Schema();
+        for (String name : new String[]{"charlie", "Alpha", "bravo", "alpha"}) {
+            TypeDeclaration type = new TypeDeclaration();
+            type.setName(name);
+            type.setStructure(FlatBufferTable.TableStructureType.TABLE);
+            schema.addTypeDeclaration(type);
+        }
+
+        // Kept in the order added
+        List<TypeDeclaration> types = schema.getTypeDeclarations();
+        Assert.assertEquals("charlie", types.get(0).getName());
+        Assert.assertEquals("alpha", types.get(3).getName());
+
+        // The returned list is a copy
+        types.clear();
+        Assert.assertEquals(4, schema.getTypeDeclarations().size());
+
+        // Written out ignoring case
+        final String output = schema.toString();
+        Assert.assertTrue(output.indexOf("table Alpha") < output.indexOf("table alpha"));
+        Assert.assertTrue(output.indexOf("table alpha") < output.indexOf("table bravo"));
+        Assert.assertTrue(output.indexOf("table bravo") < output.indexOf("table charlie"));
+
+        schema.setTypeDeclarations(new ArrayList<TypeDeclaration>());
+        Assert.assertTrue(schema.getTypeDeclarations().isEmpty());
+        Assert.assertNull(schema.getTypeDeclaration("Alpha"));
+        Assert.assertEquals(-1, schema.toString().indexOf("table "));
+    }
+
     @Test
     public void testFields() {
         Schema schema = new Schema();
@@ -1,6 +1,9 @@
 package com.michaelhradek.aurkitu.plugin.core.parsing;
 
+import com.michaelhradek.aurkitu.annotations.FlatBufferEnum;
 import com.michaelhradek.aurkitu.annotations.FlatBufferTable;
+import com.michaelhradek.aurkitu.plugin.core.Processor;
+import com.michaelhradek.aurkitu.plugin.core.output.Schema;
 import com.michaelhradek.aurkitu.plugin.test.*;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
@@ -16,8 +19,11 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -59,6 +65,21 @@ public class AnnotationParserTest {
         Assert.assertEquals(false, annotated.contains(SampleEnumNull.class));
     }
 
+    @Test
+    public void testFindAnnotatedClassesMultipleAnnotations() {
+        List<Class<? extends Annotation>> inputs = Arrays.asList(FlatBufferTable.class, FlatBufferEnum.class);
+        Set<Class<?>> annotated = AnnotationParser.findAnnotatedClasses(inputs);
+
+        Set<Class<?>> tables = AnnotationParser.findAnnotatedClasses(FlatBufferTable.class);
+        Set<Class<?>> enums = AnnotationParser.findAnnotatedClasses(FlatBufferEnum.class);
+        Assert.assertEquals(tables.size() + enums.size(), annotated.size());
+        Assert.assertTrue(annotated.containsAll(tables));
+        Assert.assertTrue(annotated.containsAll(enums));
+
+        Assert.assertEquals(true, annotated.contains(SampleClassTable.class));
+        Assert.assertEquals(true, annotated.contains(SampleEnumByte.class));
+    }
+
     @Test
     public void testFindAnnotatedClassesWithPath() {
         Set<Class<?>> annotated = AnnotationParser.findAnnotatedClasses(".*", BogusAnnotation.class);
@@ -74,6 +95,10 @@ public class AnnotationParserTest {
                 FlatBufferTable.class);
         Assert.assertEquals(true, annotated.isEmpty());
 
+        List<Class<? extends Annotation>> inputs = Arrays.asList(FlatBufferTable.class, FlatBufferEnum.class);
+        annotated = AnnotationParser.findAnnotatedClasses(artifactReference, new ArrayList<>(), inputs);
+        Assert.assertEquals(true, annotated.isEmpty());
+
         Mockito.when(mockProject.getCompileClasspathElements()).thenReturn(null);
         try {
             annotated = AnnotationParser.findAnnotatedClasses(artifactReference, new ArrayList<>(), FlatBufferTable.class);
@@ -83,6 +108,35 @@ public class AnnotationParserTest {
         }
     }
 
+    @Test
+    public void testFindAnnotatedClassesBySchema() throws Exception {
+        Mockito.when(mockProject.getCompileClasspathElements()).thenReturn(new ArrayList<String>());
+        ArtifactReference artifactReference = new ArtifactReference(mockProject, mockRepositorySystem, mockRepositorySystemSession, mockRemoteRepositories, mockSpecifiedDependencies);
+
+        ClasspathReference testClasses = new ClasspathReference(
+                SampleClassTable.class.getProtectionDomain().getCodeSource().getLocation(), "test", "test-classes");
+        ClasspathReference mainClasses = new ClasspathReference(
+                Processor.class.getProtectionDomain().getCodeSource().getLocation(), "test", "classes");
+
+        Schema projectSchema = new Schema();
+        projectSchema.setName("project");
+        projectSchema.setClasspathReferenceList(Arrays.asList(testClasses, mainClasses));
+
+        Schema dependencySchema = new Schema();
+        dependencySchema.setName("dependency");
+        dependencySchema.setClasspathReferenceList(Arrays.asList(mainClasses));
+        dependencySchema.setDependency(true);
+
+        List<Class<? extends Annotation>> inputs = Arrays.asList(FlatBufferTable.class, FlatBufferEnum.class);
+        Map<Schema, Set<Class<?>>> annotated = AnnotationParser.findAnnotatedClassesBySchema(artifactReference,
+                Arrays.asList(projectSchema, dependencySchema), inputs);
+
+        Assert.assertEquals(2, annotated.size());
+        Assert.assertEquals(true, annotated.get(projectSchema).contains(SampleClassTable.class));
+        Assert.assertEquals(true, annotated.get(projectSchema).contains(SampleEnumByte.class));
+        Assert.assertEquals(true, annotated.get(dependencySchema).isEmpty());
+    }
+
     @Test
     public void testConstructor() {
         AnnotationParser annotationParser = new AnnotationParser();
@@ -0,0 +1,311 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.SetMultimap;
+
+import javax.annotation.Nullable;
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * a read only store index, holding int symbols of names instead of strings in hash sets. keys are sorted, as are the
+ * values of each key, so that lookups are binary searches.
+ * <p>the symbols are either copied from another multimap into int arrays, see {@link Store#compact()}, or are views of
+ * a buffer, see {@link com.michaelhradek.aurkitu.reflections.serializers.BinarySerializer}
+ */
+public class CompactMultimap implements SetMultimap<String, String> {
+    private final Symbols symbols;
+    private final IntBuffer keys;
+    // the values of keys[i] are values[offsets[i]] to values[offsets[i + 1]]
+    private final IntBuffer offsets;
+    private final IntBuffer values;
+
+    /** the names of symbols */
+    public interface Symbols {
+        /** @return the symbol of the given name, or -1 if there is none */
+        int find(@Nullable Object name);
+
+        String name(int symbol);
+    }
+
+    /**
+     * a multimap over the given symbols
+     * @param keys sorted key symbols
+     * @param offsets where the values of each key start in values, followed by the number of values
+     * @param values the sorted value symbols of each key
+     */
+    public CompactMultimap(final Symbols symbols, final IntBuffer keys, final IntBuffer offsets, final IntBuffer values) {
+        this.symbols = symbols;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    CompactMultimap(final SymbolTable symbols, final Multimap<String, String> source) {
+        this.symbols = symbols;
+        Map<String, Collection<String>> map = source.asMap();
+        int[] keys = new int[map.size()];
+        int i = 0;
+        for (String key : map.keySet()) {
+            keys[i++] = symbols.intern(key);
+        }
+        Arrays.sort(keys);
+
+        int[] offsets = new int[keys.length + 1];
+        int[] all = new int[source.size()];
+        int position = 0;
+        for (i = 0; i < keys.length; i++) {
+            offsets[i] = position;
+            int start = position;
+            for (String value : map.get(symbols.name(keys[i]))) {
+                all[position++] = symbols.intern(value);
+            }
+            Arrays.sort(all, start, position);
+            position = unique(all, start, position);
+        }
+        offsets[keys.length] = position;
+        this.keys = IntBuffer.wrap(keys);
+        this.offsets = IntBuffer.wrap(offsets);
+        this.values = IntBuffer.wrap(position == all.length ? all : Arrays.copyOf(all, position));
+    }
+
+    public int size() {
+        return values.limit();
+    }
+
+    public boolean isEmpty() {
+        return keys.limit() == 0;
+    }
+
+    public boolean containsKey(@Nullable final Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean containsValue(@Nullable final Object value) {
+        int symbol = symbols.find(value);
+        if (symbol >= 0) {
+            for (int i = 0; i < values.limit(); i++) {
+                if (values.get(i) == symbol) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean containsEntry(@Nullable final Object key, @Nullable final Object value) {
+        int index = indexOf(key);
+        int symbol = symbols.find(value);
+        return index >= 0 && symbol >= 0 && binarySearch(values, offsets.get(index), offsets.get(index + 1), symbol) >= 0;
+    }
+
+    public Set<String> get(@Nullable final String key) {
+        final int index = indexOf(key);
+        if (index < 0) {
+            return Collections.emptySet();
+        }
+
+        return new AbstractSet<String>() {
+            public Iterator<String> iterator() {
+                return new SymbolIterator(values, offsets.get(index), offsets.get(index + 1));
+            }
+
+            public int size() {
+                return offsets.get(index + 1) - offsets.get(index);
+            }
+
+            public boolean contains(final Object value) {
+                return containsEntry(key, value);
+            }
+        };
+    }
+
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            public Iterator<String> iterator() {
+                return new SymbolIterator(keys, 0, keys.limit());
+            }
+
+            public int size() {
+                return keys.limit();
+            }
+
+            public boolean contains(final Object key) {
+                return containsKey(key);
+            }
+        };
+    }
+
+    public Multiset<String> keys() {
+        ImmutableMultiset.Builder<String> builder = ImmutableMultiset.builder();
+        for (int i = 0; i < keys.limit(); i++) {
+            builder.addCopies(symbols.name(keys.get(i)), offsets.get(i + 1) - offsets.get(i));
+        }
+        return builder.build();
+    }
+
+    public Collection<String> values() {
+        return new AbstractCollection<String>() {
+            public Iterator<String> iterator() {
+                return new SymbolIterator(values, 0, values.limit());
+            }
+
+            public int size() {
+                return values.limit();
+            }
+        };
+    }
+
+    public Set<Map.Entry<String, String>> entries() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<Map.Entry<String, String>>() {
+                    private int key = 0;
+                    private int value = 0;
+
+                    public boolean hasNext() {
+                        return value < values.limit();
+                    }
+
+                    public Map.Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        while (value >= offsets.get(key + 1)) {
+                            key++;
+                        }
+                        return Maps.immutableEntry(symbols.name(keys.get(key)), symbols.name(values.get(value++)));
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            public int size() {
+                return values.limit();
+            }
+
+            public boolean contains(final Object o) {
+                return o instanceof Map.Entry &&
+                        containsEntry(((Map.Entry<?, ?>) o).getKey(), ((Map.Entry<?, ?>) o).getValue());
+            }
+        };
+    }
+
+    public Map<String, Collection<String>> asMap() {
+        return Maps.asMap(keySet(), new Function<String, Collection<String>>() {
+            public Collection<String> apply(final String key) {
+                return get(key);
+            }
+        });
+    }
+
+    public boolean put(final String key, final String value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(@Nullable final Object key, @Nullable final Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean putAll(final String key, final Iterable<? extends String> values) {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean putAll(final Multimap<? extends String, ? extends String> multimap) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Set<String> replaceValues(final String key, final Iterable<? extends String> values) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Set<String> removeAll(@Nullable final Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o == this || o instanceof Multimap && asMap().equals(((Multimap<?, ?>) o).asMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return asMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
+
+    private int indexOf(@Nullable final Object key) {
+        int symbol = symbols.find(key);
+        return symbol < 0 ? -1 : Math.max(-1, binarySearch(keys, 0, keys.limit(), symbol));
+    }
+
+    private static int binarySearch(final IntBuffer symbols, final int from, final int to, final int symbol) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = symbols.get(middle);
+            if (value < symbol) {
+                low = middle + 1;
+            } else if (value > symbol) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /** removes repeated symbols of a sorted range, returning its new end */
+    private static int unique(final int[] symbols, final int from, final int to) {
+        int end = from;
+        for (int i = from; i < to; i++) {
+            if (end == from || symbols[end - 1] != symbols[i]) {
+                symbols[end++] = symbols[i];
+            }
+        }
+        return end;
+    }
+
+    private class SymbolIterator implements Iterator<String> {
+        private final IntBuffer array;
+        private int position;
+        private final int end;
+
+        SymbolIterator(final IntBuffer array, final int from, final int to) {
+            this.array = array;
+            this.position = from;
+            this.end = to;
+        }
+
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return symbols.name(array.get(position++));
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
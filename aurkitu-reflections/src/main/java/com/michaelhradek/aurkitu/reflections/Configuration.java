@@ -5,6 +5,7 @@ import com.michaelhradek.aurkitu.reflections.adapters.MetadataAdapter;
 import com.michaelhradek.aurkitu.reflections.scanners.Scanner;
 import com.michaelhradek.aurkitu.reflections.serializers.Serializer;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.ConstantPoolFilter;
 
 import javax.annotation.Nullable;
 import java.net.URL;
@@ -43,6 +44,19 @@ public interface Configuration {
      */
     ExecutorService getExecutorService();
 
+    /**
+     * executor service used to open the urls to be scanned ahead of scanning them, e.g. on virtual threads.
+     * if null, each url is opened by the thread scanning it
+     */
+    @Nullable
+    ExecutorService getOpeningExecutorService();
+
+    /**
+     * if true (default), the executor services are shut down once scanned. false if they are owned by the caller,
+     * and shared between Reflections instances
+     */
+    boolean shouldShutdownExecutors();
+
     /**
      * the default serializer to use when saving Reflection
      */
@@ -59,4 +73,44 @@ public interface Configuration {
      * <p>see {@link Reflections#expandSuperTypes()}
      */
     boolean shouldExpandSuperTypes();
+
+    /**
+     * if true, record the url each scanned type was found in.
+     * <p>see {@link Reflections#getTypesScannedFrom(URL)}
+     */
+    boolean shouldRecordOrigins();
+
+    /**
+     * if not null, class files are only scanned if their constant pool mentions one of the filter's annotation types.
+     * <p>see {@link ConstantPoolFilter}
+     */
+    @Nullable
+    ConstantPoolFilter getConstantPoolFilter();
+
+    /**
+     * if not null, the directory in which the scan of each url is saved and reused by later scans.
+     * <p>see {@link ScanIndex}
+     */
+    @Nullable
+    java.io.File getScanIndexDirectory();
+
+    /**
+     * if true, compact the store once scanned and expanded, making it read only.
+     * <p>see {@link Store#compact()}
+     */
+    boolean shouldCompactStore();
+
+    /**
+     * if true, compute the transitive closure of the sub types and type annotations indices once scanned and
+     * expanded, so that transitive queries are a lookup rather than a walk of the index.
+     * <p>see {@link Store#computeTransitiveClosures()}
+     */
+    boolean shouldComputeTransitiveClosure();
+
+    /**
+     * if true, jar files are read through a memory mapping of the whole file rather than {@link java.util.zip.ZipFile}.
+     * the mapping is only released once garbage collected, so the jar stays open (and locked, on windows) until then.
+     * <p>see {@link com.michaelhradek.aurkitu.reflections.vfs.MappedZipDir}
+     */
+    boolean shouldMemoryMapJars();
 }
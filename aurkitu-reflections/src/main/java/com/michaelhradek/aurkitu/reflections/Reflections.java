@@ -9,9 +9,14 @@ import com.michaelhradek.aurkitu.reflections.serializers.Serializer;
 import com.michaelhradek.aurkitu.reflections.serializers.XmlSerializer;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.ConstantPoolFilter;
 import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.SuperTypeResolver;
 import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipDir;
+import com.michaelhradek.aurkitu.reflections.vfs.SystemDir;
 import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+import com.michaelhradek.aurkitu.reflections.vfs.ZipDir;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
@@ -26,9 +31,15 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.regex.Pattern;
 
@@ -95,7 +106,7 @@ import static java.lang.String.format;
  * MethodParameterScanner, MethodParameterNamesScanner, MemberUsageScanner or any custom scanner.
  * <p>Use {@link #getStore()} to access and query the store directly
  * <p>In order to save the store metadata, use {@link #save(String)} or {@link #save(String, Serializer)}
- * for example with {@link XmlSerializer} or {@link JavaCodeSerializer}
+ * for example with {@link XmlSerializer}, {@link JavaCodeSerializer} or {@link com.michaelhradek.aurkitu.reflections.serializers.BinarySerializer}
  * <p>In order to collect pre saved metadata and avoid re-scanning, use {@link #collect(String, com.google.common.base.Predicate, Serializer...)}}
  * <p><i>Make sure to scan all the transitively relevant packages.
  * <br>for instance, given your class C extends B extends A, and both B and A are located in another package than C,
@@ -107,8 +118,15 @@ public class Reflections {
     @Nullable
     public static Logger log = Utils.findLogger(Reflections.class);
 
+    /** the store index holding scanned url to type name entries, see {@link Configuration#shouldRecordOrigins()} */
+    public static final String ORIGINS_INDEX = "UrlOrigins";
+
+    /** urls with more files than this are scanned in batches when the executor is a {@link ForkJoinPool} */
+    static final int SCAN_BATCH_SIZE = 256;
+
     protected final transient Configuration configuration;
     protected Store store;
+    @Nullable private final transient ScanIndex scanIndex;
 
     /**
      * constructs a Reflections instance and scan according to given {@link Configuration}
@@ -117,12 +135,20 @@ public class Reflections {
     public Reflections(final Configuration configuration) {
         this.configuration = configuration;
         store = new Store(configuration);
+        scanIndex = configuration.getScanIndexDirectory() != null ?
+                new ScanIndex(configuration.getScanIndexDirectory(), configuration) : null;
 
         if (configuration.getScanners() != null && !configuration.getScanners().isEmpty()) {
             //inject to scanners
             for (Scanner scanner : configuration.getScanners()) {
                 scanner.setConfiguration(configuration);
-                scanner.setStore(store.getOrCreate(Utils.index(scanner.getClass())));
+                String index = Utils.index(scanner.getClass());
+                scanner.setStore(scanIndex != null ?
+                        scanIndex.recording(index, store.getOrCreate(index)) : store.getOrCreate(index));
+            }
+
+            if (configuration.shouldRecordOrigins()) {
+                store.getOrCreate(ORIGINS_INDEX);
             }
 
             scan();
@@ -130,6 +156,14 @@ public class Reflections {
             if (configuration.shouldExpandSuperTypes()) {
                 expandSuperTypes();
             }
+
+            if (configuration.shouldComputeTransitiveClosure()) {
+                store.computeTransitiveClosures();
+            }
+
+            if (configuration.shouldCompactStore()) {
+                store.compact();
+            }
         }
     }
 
@@ -176,12 +210,15 @@ public class Reflections {
     protected Reflections() {
         configuration = new ConfigurationBuilder();
         store = new Store(configuration);
+        scanIndex = null;
     }
 
     //
     protected void scan() {
         if (configuration.getUrls() == null || configuration.getUrls().isEmpty()) {
             if (log != null) log.warn("given scan urls are empty. set urls in the configuration");
+            store.mergeShards();
+            shutdownExecutors();
             return;
         }
 
@@ -194,41 +231,68 @@ public class Reflections {
         ExecutorService executorService = configuration.getExecutorService();
         List<Future<?>> futures = Lists.newArrayList();
 
-        for (final URL url : configuration.getUrls()) {
-            try {
-                if (executorService != null) {
-                    futures.add(executorService.submit(new Runnable() {
-                        public void run() {
-                            if (log != null && log.isDebugEnabled()) {
-                                log.debug("[{}] scanning {}", Thread.currentThread().toString(), url);
+        // all urls are opened at once, mostly waiting on io, while they are scanned as the scanning threads get to them
+        ExecutorService openingExecutorService = configuration.getOpeningExecutorService();
+        final Map<URL, Future<OpenedUrl>> openedUrls = Maps.newConcurrentMap();
+        if (openingExecutorService != null) {
+            for (final URL url : configuration.getUrls()) {
+                openedUrls.put(url, openingExecutorService.submit(new Callable<OpenedUrl>() {
+                    public OpenedUrl call() {
+                        return open(url);
+                    }
+                }));
+            }
+        }
+
+        try {
+            for (final URL url : configuration.getUrls()) {
+                try {
+                    if (executorService != null) {
+                        futures.add(executorService.submit(new Runnable() {
+                            public void run() {
+                                if (log != null && log.isDebugEnabled()) {
+                                    log.debug("[{}] scanning {}", Thread.currentThread().toString(), url);
+                                }
+                                scan(url, openedUrls.remove(url));
                             }
-                            scan(url);
-                        }
-                    }));
-                } else {
-                    scan(url);
-                }
-                scannedUrls++;
-            } catch (ReflectionsException e) {
-                if (log != null && log.isWarnEnabled()) {
-                    log.warn("could not create Vfs.Dir from url. ignoring the exception and continuing", e);
+                        }));
+                    } else {
+                        scan(url, openedUrls.remove(url));
+                    }
+                    scannedUrls++;
+                } catch (ReflectionsException e) {
+                    if (log != null && log.isWarnEnabled()) {
+                        log.warn("could not create Vfs.Dir from url. ignoring the exception and continuing", e);
+                    }
                 }
             }
-        }
 
-        //todo use CompletionService
-        if (executorService != null) {
-            for (Future future : futures) {
-                try { future.get(); } catch (Exception e) { throw new RuntimeException(e); }
+            //todo use CompletionService
+            if (executorService != null) {
+                for (Future future : futures) {
+                    try { future.get(); } catch (Exception e) { throw new RuntimeException(e); }
+                }
+            }
+        } finally {
+            // the urls left are not scanned, if scanning failed
+            for (Future<OpenedUrl> openedUrl : openedUrls.values()) {
+                try {
+                    Vfs.Dir dir = openedUrl.get().dir;
+                    if (dir != null) {
+                        dir.close();
+                    }
+                } catch (Exception e) {
+                    // not scanned anyway
+                }
             }
         }
 
+        // what the scanner threads put is visible once merged
+        store.mergeShards();
+
         time = System.currentTimeMillis() - time;
 
-        //gracefully shutdown the parallel scanner executor service.
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        shutdownExecutors();
 
         if (log != null && log.isInfoEnabled()) {
             int keys = 0;
@@ -240,38 +304,227 @@ public class Reflections {
 
             log.info(format("Reflections took %d ms to scan %d urls, producing %d keys and %d values %s",
                     time, scannedUrls, keys, values,
-                    executorService != null && executorService instanceof ThreadPoolExecutor ?
-                            format("[using %d cores]", ((ThreadPoolExecutor) executorService).getMaximumPoolSize()) : ""));
+                    executorService instanceof ThreadPoolExecutor ?
+                            format("[using %d cores]", ((ThreadPoolExecutor) executorService).getMaximumPoolSize()) :
+                    executorService instanceof ForkJoinPool ?
+                            format("[using %d cores]", ((ForkJoinPool) executorService).getParallelism()) : ""));
+        }
+    }
+
+    //gracefully shutdown the executor services, unless they are shared
+    private void shutdownExecutors() {
+        if (configuration.shouldShutdownExecutors()) {
+            if (configuration.getExecutorService() != null) {
+                configuration.getExecutorService().shutdown();
+            }
+            if (configuration.getOpeningExecutorService() != null) {
+                configuration.getOpeningExecutorService().shutdown();
+            }
         }
     }
 
     protected void scan(URL url) {
-        Vfs.Dir dir = Vfs.fromURL(url);
+        scan(url, null);
+    }
+
+    /**
+     * opens the scan index of the url, and the url itself unless the index will likely replay it
+     */
+    private OpenedUrl open(URL url) {
+        ScanIndex.UrlScan urlScan = scanIndex != null ? scanIndex.open(url) : null;
+        return new OpenedUrl(urlScan, urlScan != null && urlScan.mayReplay() ? null : openDir(url));
+    }
+
+    /**
+     * @param openedUrl the url, if it is being opened by the opening executor service
+     */
+    private void scan(URL url, @Nullable Future<OpenedUrl> openedUrl) {
+        OpenedUrl opened = openedUrl != null ? getOpenedUrl(url, openedUrl) : null;
+        ScanIndex.UrlScan urlScan = opened != null ? opened.urlScan : scanIndex != null ? scanIndex.open(url) : null;
+        if (urlScan != null && urlScan.replay(store)) {
+            urlScan.close();
+            if (opened != null && opened.dir != null) {
+                opened.dir.close();
+            }
+            return;
+        }
+
+        Vfs.Dir dir = opened != null && opened.dir != null ? opened.dir : openDir(url);
+        Multimap<String, String> origins = configuration.shouldRecordOrigins() ? store.get(ORIGINS_INDEX) : null;
+        if (origins != null && urlScan != null) {
+            origins = scanIndex.recording(ORIGINS_INDEX, origins);
+        }
 
         try {
-            for (final Vfs.File file : dir.getFiles()) {
-                // scan if inputs filter accepts file relative path or fqn
-                Predicate<String> inputsFilter = configuration.getInputsFilter();
-                String path = file.getRelativePath();
-                String fqn = path.replace('/', '.');
-                if (inputsFilter == null || inputsFilter.apply(path) || inputsFilter.apply(fqn)) {
-                    Object classObject = null;
-                    for (Scanner scanner : configuration.getScanners()) {
-                        try {
-                            if (scanner.acceptsInput(path) || scanner.acceptsInput(fqn)) {
+            // only the files under the prefixes of the inputs filter are listed, if it includes nothing else
+            Predicate<String> inputsFilter = configuration.getInputsFilter();
+            List<String> prefixes = inputsFilter instanceof FilterBuilder ? ((FilterBuilder) inputsFilter).getPrefixes() : null;
+            boolean pruned = prefixes != null && dir instanceof Vfs.PrefixedDir;
+
+            ExecutorService executorService = configuration.getExecutorService();
+            List<Vfs.File> files = null;
+            if (executorService instanceof ForkJoinPool && isRandomAccess(dir)) {
+                // directory trees are listed by the pool as well
+                files = dir instanceof SystemDir ? ((SystemDir) dir).getFiles((ForkJoinPool) executorService, prefixes) :
+                        Lists.newArrayList(pruned ? ((Vfs.PrefixedDir) dir).getFiles(prefixes) : dir.getFiles());
+            } else if (pruned) {
+                files = Lists.newArrayList(((Vfs.PrefixedDir) dir).getFiles(prefixes));
+            }
+            if (pruned && files.isEmpty()) {
+                // nothing of the url is under the prefixes; it is neither scanned nor saved to the scan index
+                return;
+            }
+            if (files != null && files.size() > SCAN_BATCH_SIZE && executorService instanceof ForkJoinPool) {
+                // large dirs are split into batches, which idle threads of the pool steal from each other
+                ForkJoinPool pool = (ForkJoinPool) executorService;
+                ScanBatch batch = new ScanBatch(url, files, 0, files.size(), origins, urlScan);
+                if (ForkJoinTask.getPool() == pool) {
+                    batch.invoke();
+                } else {
+                    pool.invoke(batch);
+                }
+            } else {
+                scan(url, files != null ? files : dir.getFiles(), origins, urlScan);
+            }
+
+            if (urlScan != null) {
+                urlScan.save();
+            }
+        } finally {
+            if (urlScan != null) {
+                urlScan.close();
+            }
+            dir.close();
+        }
+    }
+
+    private void scan(URL url, Iterable<Vfs.File> files, @Nullable Multimap<String, String> origins,
+                      @Nullable ScanIndex.UrlScan urlScan) {
+        ConstantPoolFilter constantPoolFilter = configuration.getConstantPoolFilter();
+
+        for (final Vfs.File file : files) {
+            // scan if inputs filter accepts file relative path or fqn
+            Predicate<String> inputsFilter = configuration.getInputsFilter();
+            String path = file.getRelativePath();
+            String fqn = path.replace('/', '.');
+            if (inputsFilter == null || inputsFilter.apply(path) || inputsFilter.apply(fqn)) {
+                if (urlScan != null) {
+                    if (urlScan.replay(file, store)) {
+                        continue;
+                    }
+                    urlScan.startFile(file);
+                }
+
+                if (origins != null && fqn.endsWith(".class")) {
+                    origins.put(url.toExternalForm(), fqn.substring(0, fqn.length() - ".class".length()));
+                }
+
+                // classes which do not mention any of the filter's annotations are not parsed
+                ConstantPoolFilter.ClassHeader header = constantPoolFilter != null && path.endsWith(".class") ?
+                        constantPoolFilter.read(file) : null;
+                boolean relevant = header == null || header.isRelevant();
+
+                Object classObject = null;
+                for (Scanner scanner : configuration.getScanners()) {
+                    try {
+                        if (scanner.acceptsInput(path) || scanner.acceptsInput(fqn)) {
+                            if (relevant) {
                                 classObject = scanner.scan(file, classObject);
+                            } else if (scanner instanceof SubTypesScanner && constantPoolFilter.isSubTypesFallback()) {
+                                ((SubTypesScanner) scanner).scan(header.getClassName(), header.getSuperclassName(),
+                                        header.getInterfaceNames());
                             }
-                        } catch (Exception e) {
-                            if (log != null && log.isDebugEnabled()) {
-                                // SLF4J will filter out Throwables from the format string arguments.
-                                log.debug("could not scan file {} in url {} with scanner {}", file.getRelativePath(), url.toExternalForm(), scanner.getClass().getSimpleName(), e);
-                            }
+                        }
+                    } catch (Exception e) {
+                        if (log != null && log.isDebugEnabled()) {
+                            // SLF4J will filter out Throwables from the format string arguments.
+                            log.debug("could not scan file {} in url {} with scanner {}", file.getRelativePath(), url.toExternalForm(), scanner.getClass().getSimpleName(), e);
                         }
                     }
                 }
             }
-        } finally {
-            dir.close();
+        }
+    }
+
+    private Vfs.Dir openDir(URL url) {
+        if (!configuration.shouldMemoryMapJars()) {
+            return Vfs.fromURL(url);
+        }
+        List<Vfs.UrlType> urlTypes = Lists.newArrayList(Vfs.getDefaultUrlTypes());
+        urlTypes.add(0, Vfs.mappedJarFile);
+        return Vfs.fromURL(url, urlTypes);
+    }
+
+    private static OpenedUrl getOpenedUrl(URL url, Future<OpenedUrl> openedUrl) {
+        try {
+            return openedUrl.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ReflectionsException) {
+                throw (ReflectionsException) e.getCause();
+            }
+            throw new ReflectionsException("could not create Vfs.Dir from url " + url, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReflectionsException("interrupted while opening url " + url, e);
+        }
+    }
+
+    /** a url opened ahead of its scan; the dir is null if the scan index is expected to replay it */
+    private static class OpenedUrl {
+        @Nullable private final ScanIndex.UrlScan urlScan;
+        @Nullable private final Vfs.Dir dir;
+
+        private OpenedUrl(@Nullable ScanIndex.UrlScan urlScan, @Nullable Vfs.Dir dir) {
+            this.urlScan = urlScan;
+            this.dir = dir;
+        }
+    }
+
+    /** true if the files of the dir can be read in any order and from several threads */
+    private static boolean isRandomAccess(Vfs.Dir dir) {
+        return dir instanceof SystemDir || dir instanceof ZipDir || dir instanceof MappedZipDir;
+    }
+
+    /** scans a range of the files of a url, splitting it in halves until it is small enough */
+    private class ScanBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final URL url;
+        private final List<Vfs.File> files;
+        private final int from;
+        private final int to;
+        @Nullable private final Multimap<String, String> origins;
+        @Nullable private final ScanIndex.UrlScan urlScan;
+
+        ScanBatch(URL url, List<Vfs.File> files, int from, int to,
+                  @Nullable Multimap<String, String> origins, @Nullable ScanIndex.UrlScan urlScan) {
+            this.url = url;
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.origins = origins;
+            this.urlScan = urlScan;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SCAN_BATCH_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScanBatch(url, files, from, middle, origins, urlScan),
+                        new ScanBatch(url, files, middle, to, origins, urlScan));
+                return;
+            }
+
+            if (urlScan != null) {
+                urlScan.attach();
+            }
+            try {
+                scan(url, files.subList(from, to), origins, urlScan);
+            } finally {
+                if (urlScan != null) {
+                    urlScan.close();
+                }
+            }
         }
     }
 
@@ -375,7 +628,8 @@ public class Reflections {
     /**
      * expand super types after scanning, for super types that were not scanned.
      * this is helpful in finding the transitive closure without scanning all 3rd party dependencies.
-     * it uses {@link ReflectionUtils#getSuperTypes(Class)}.
+     * it reads the super types of the class files found by the class loaders, see {@link SuperTypeResolver}, without
+     * loading the classes.
      * <p>
      * for example, for classes A,B,C where A supertype of B, B supertype of C:
      * <ul>
@@ -388,21 +642,20 @@ public class Reflections {
             Multimap<String, String> mmap = store.get(Utils.index(SubTypesScanner.class));
             Sets.SetView<String> keys = Sets.difference(mmap.keySet(), Sets.newHashSet(mmap.values()));
             Multimap<String, String> expand = HashMultimap.create();
+            // super types are read from class files, rather than loading the classes
+            SuperTypeResolver superTypes = new SuperTypeResolver(loaders());
             for (String key : keys) {
-                final Class<?> type = ReflectionUtils.forName(key, loaders());
-                if (type != null) {
-                    expandSupertypes(expand, key, type);
-                }
+                expandSupertypes(expand, key, superTypes);
             }
             mmap.putAll(expand);
         }
     }
 
-    private void expandSupertypes(Multimap<String, String> mmap, String key, Class<?> type) {
-        for (Class<?> supertype : ReflectionUtils.getSuperTypes(type)) {
-            if (mmap.put(supertype.getName(), key)) {
-                if (log != null) log.debug("expanded subtype {} -> {}", supertype.getName(), key);
-                expandSupertypes(mmap, supertype.getName(), supertype);
+    private void expandSupertypes(Multimap<String, String> mmap, String key, SuperTypeResolver superTypes) {
+        for (String supertype : superTypes.getSuperTypes(key)) {
+            if (mmap.put(supertype, key)) {
+                if (log != null) log.debug("expanded subtype {} -> {}", supertype, key);
+                expandSupertypes(mmap, supertype, superTypes);
             }
         }
     }
@@ -444,6 +697,17 @@ public class Reflections {
         return Sets.newHashSet(Iterables.concat(ReflectionUtils.forNames(annotated, loaders()), ReflectionUtils.forNames(classes, loaders())));
     }
 
+    /**
+     * get the names of types annotated with a given annotation, both classes and annotations, without loading them
+     * <p>{@link java.lang.annotation.Inherited} is not honored, same as {@link #getTypesAnnotatedWith(Class)}
+     * <p/>depends on TypeAnnotationsScanner and SubTypesScanner configured
+     * @return Set of String, and not of Class, in order to avoid definition of all types in PermGen
+     */
+    public Set<String> getTypeNamesAnnotatedWith(final Class<? extends Annotation> annotation) {
+        Iterable<String> annotated = store.get(Utils.index(TypeAnnotationsScanner.class), annotation.getName());
+        return Sets.newLinkedHashSet(concat(annotated, getAllAnnotated(annotated, false, false)));
+    }
+
     /**
      * get types annotated with a given annotation, both classes and annotations, including annotation member values matching
      * <p>{@link java.lang.annotation.Inherited} is not honored by default
@@ -646,6 +910,14 @@ public class Reflections {
         return allTypes;
     }
 
+    /** get the names of all types which were scanned from the given url.
+     * <p>depends on {@link Configuration#shouldRecordOrigins()}, otherwise {@code ReflectionsException} is thrown
+     * @return Set of String, and not of Class, in order to avoid definition of all types in PermGen
+     */
+    public Set<String> getTypesScannedFrom(final URL url) {
+        return Sets.newHashSet(store.get(ORIGINS_INDEX, url.toExternalForm()));
+    }
+
     /**
      * returns the {@link Store} used for storing and querying the metadata
      */
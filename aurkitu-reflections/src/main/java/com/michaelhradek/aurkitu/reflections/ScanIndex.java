@@ -0,0 +1,411 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.ForwardingMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.michaelhradek.aurkitu.reflections.scanners.AbstractScanner;
+import com.michaelhradek.aurkitu.reflections.scanners.Scanner;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.michaelhradek.aurkitu.reflections.Reflections.log;
+
+/**
+ * an opt-in persistent index of scan results, see {@link Configuration#getScanIndexDirectory()}
+ * <p>the store entries produced by each scanned url are saved in the index directory along with a fingerprint:
+ * <ul>
+ *     <li>jar files - size and last modified time. when only the time changed, a content hash is compared</li>
+ *     <li>directories - size and last modified time of each file</li>
+ * </ul>
+ * <p>the next scan replays the saved entries of unchanged jars and files, and only scans what changed.
+ * saved entries are only reused by a scan with the same scanners, inputs filter, result filters, metadata adapter and constant pool filter,
+ * compared by class name and {@code toString()}. urls which are not local jar files or directories are always scanned.
+ */
+public class ScanIndex {
+    private static final int VERSION = 1;
+    private static final String JAR_PATH = "";
+
+    private final File directory;
+    private final String signature;
+    private final ThreadLocal<Map<String, List<String>>> recording = new ThreadLocal<Map<String, List<String>>>();
+
+    public ScanIndex(final File directory, final Configuration configuration) {
+        this.directory = directory;
+        this.signature = signature(configuration);
+    }
+
+    /**
+     * wraps the store of an index so that entries put while a url or file is being scanned are recorded
+     */
+    public Multimap<String, String> recording(final String index, final Multimap<String, String> store) {
+        return new RecordingMultimap(index, store);
+    }
+
+    /**
+     * @return the saved scan of the given url, or null if the url cannot be indexed
+     */
+    @Nullable
+    public UrlScan open(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+
+        File file = Vfs.getFile(url);
+        if (file == null || !(file.isFile() || file.isDirectory())) {
+            return null;
+        }
+
+        return new UrlScan(url, file, read(url));
+    }
+
+    /** the scan of a single url; reuses the saved entries of what has not changed and records the rest */
+    public class UrlScan {
+        private final URL url;
+        private final File root;
+        private final boolean jar;
+        private final Map<String, FileEntries> saved;
+        // files may be scanned by several threads at once
+        private final Map<String, FileEntries> current =
+                Collections.synchronizedMap(Maps.<String, FileEntries>newLinkedHashMap());
+        private FileEntries recorded;
+        private volatile boolean changed;
+
+        private UrlScan(final URL url, final File root, final Map<String, FileEntries> saved) {
+            this.url = url;
+            this.root = root;
+            this.jar = root.isFile();
+            this.saved = saved;
+        }
+
+        /**
+         * true if the url is a jar saved with its current size, so that {@link #replay(Store)} will likely replay it.
+         * cheaper than replaying, as the jar is not hashed
+         */
+        public boolean mayReplay() {
+            FileEntries entries = saved.get(JAR_PATH);
+            return jar && entries != null && entries.size == root.length();
+        }
+
+        /**
+         * replays the saved entries of the whole url into the store, otherwise starts recording the url
+         * @return false if the url is a directory or has changed since it was saved
+         */
+        public boolean replay(final Store store) {
+            if (!jar) {
+                return false;
+            }
+
+            if (isUnchanged() && replay(saved.get(JAR_PATH), store)) {
+                // a jar which was only touched is saved with its new time
+                save();
+                return true;
+            }
+
+            current.clear();
+            changed = false;
+            recorded = startRecording(JAR_PATH, root);
+            return false;
+        }
+
+        /**
+         * replays the saved entries of a file of a directory url into the store
+         * @return false if the url is a jar or the file has changed since it was saved
+         */
+        public boolean replay(final Vfs.File file, final Store store) {
+            if (jar) {
+                return false;
+            }
+
+            FileEntries entries = saved.get(file.getRelativePath());
+            File systemFile = new File(root, file.getRelativePath());
+            if (entries == null || entries.size != systemFile.length() || entries.lastModified != systemFile.lastModified()
+                    || !replay(entries, store)) {
+                return false;
+            }
+
+            current.put(entries.path, entries);
+            return true;
+        }
+
+        /** starts recording the entries of a changed file of a directory url */
+        public void startFile(final Vfs.File file) {
+            if (!jar) {
+                changed = true;
+                startRecording(file.getRelativePath(), new File(root, file.getRelativePath()));
+            }
+        }
+
+        /**
+         * saves what was recorded for the url, if anything changed
+         */
+        public void save() {
+            if (jar) {
+                if (recorded != null) {
+                    try {
+                        recorded.hash = Files.asByteSource(root).hash(Hashing.sha256()).toString();
+                    } catch (IOException e) {
+                        if (log != null) log.warn("could not hash " + root + ", not saving its scan", e);
+                        return;
+                    }
+                } else if (!changed) {
+                    return;
+                }
+            } else if (!changed && current.size() == saved.size()) {
+                return;
+            }
+
+            write(url, current);
+        }
+
+        /** records what the current thread puts while it scans files of the jar, see {@link #close()} */
+        public void attach() {
+            if (jar && recorded != null) {
+                recording.set(recorded.entries);
+            }
+        }
+
+        /** stops recording on the current thread */
+        public void close() {
+            recording.remove();
+        }
+
+        private boolean isUnchanged() {
+            FileEntries entries = saved.get(JAR_PATH);
+            if (entries == null || entries.size != root.length()) {
+                return false;
+            }
+
+            if (entries.lastModified == root.lastModified()) {
+                return true;
+            }
+
+            // restored caches and copies commonly touch a jar without changing it
+            try {
+                if (entries.hash.equals(Files.asByteSource(root).hash(Hashing.sha256()).toString())) {
+                    entries.lastModified = root.lastModified();
+                    current.put(JAR_PATH, entries);
+                    changed = true;
+                    return true;
+                }
+            } catch (IOException e) {
+                if (log != null) log.debug("could not hash " + root, e);
+            }
+
+            return false;
+        }
+
+        private FileEntries startRecording(final String path, final File file) {
+            FileEntries entries = new FileEntries(path, file.length(), file.lastModified(), "");
+            current.put(path, entries);
+            recording.set(entries.entries);
+            return entries;
+        }
+
+        private boolean replay(@Nullable final FileEntries entries, final Store store) {
+            if (entries == null || !store.keySet().containsAll(entries.entries.keySet())) {
+                return false;
+            }
+
+            for (Map.Entry<String, List<String>> index : entries.entries.entrySet()) {
+                Multimap<String, String> multimap = store.get(index.getKey());
+                List<String> keysAndValues = index.getValue();
+                for (int i = 0; i < keysAndValues.size(); i += 2) {
+                    multimap.put(keysAndValues.get(i), keysAndValues.get(i + 1));
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static class FileEntries {
+        private final String path;
+        private final long size;
+        private long lastModified;
+        private String hash;
+        // index name to alternating keys and values
+        private final Map<String, List<String>> entries = Maps.newHashMap();
+
+        private FileEntries(final String path, final long size, final long lastModified, final String hash) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    private class RecordingMultimap extends ForwardingMultimap<String, String> {
+        private final String index;
+        private final Multimap<String, String> delegate;
+
+        private RecordingMultimap(final String index, final Multimap<String, String> delegate) {
+            this.index = index;
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected Multimap<String, String> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public boolean put(final String key, final String value) {
+            Map<String, List<String>> entries = recording.get();
+            if (entries != null) {
+                // the threads scanning a jar record into the same entries
+                synchronized (entries) {
+                    List<String> keysAndValues = entries.get(index);
+                    if (keysAndValues == null) {
+                        keysAndValues = Lists.newArrayList();
+                        entries.put(index, keysAndValues);
+                    }
+                    keysAndValues.add(key);
+                    keysAndValues.add(value);
+                }
+            }
+
+            return delegate.put(key, value);
+        }
+
+        @Override
+        public boolean putAll(final String key, final Iterable<? extends String> values) {
+            boolean changed = false;
+            for (String value : values) {
+                changed |= put(key, value);
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean putAll(final Multimap<? extends String, ? extends String> multimap) {
+            boolean changed = false;
+            for (Map.Entry<? extends String, ? extends String> entry : multimap.entries()) {
+                changed |= put(entry.getKey(), entry.getValue());
+            }
+            return changed;
+        }
+    }
+
+    private File indexFile(final URL url) {
+        String name = Hashing.sha256().hashString(url.toExternalForm() + "\n" + signature, StandardCharsets.UTF_8).toString();
+        return new File(directory, name + ".idx");
+    }
+
+    private Map<String, FileEntries> read(final URL url) {
+        Map<String, FileEntries> result = Maps.newHashMap();
+        File file = indexFile(url);
+        if (!file.isFile()) {
+            return result;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != VERSION || !url.toExternalForm().equals(readString(in)) || !signature.equals(readString(in))) {
+                return result;
+            }
+
+            int files = in.readInt();
+            for (int i = 0; i < files; i++) {
+                FileEntries entries = new FileEntries(readString(in), in.readLong(), in.readLong(), readString(in));
+                int indices = in.readInt();
+                for (int j = 0; j < indices; j++) {
+                    String index = readString(in);
+                    int count = in.readInt();
+                    List<String> keysAndValues = Lists.newArrayListWithCapacity(count);
+                    for (int k = 0; k < count; k++) {
+                        keysAndValues.add(readString(in));
+                    }
+                    entries.entries.put(index, keysAndValues);
+                }
+                result.put(entries.path, entries);
+            }
+        } catch (IOException e) {
+            if (log != null) log.warn("could not read scan index " + file + ", scanning " + url, e);
+            result.clear();
+        } finally {
+            Utils.close(in);
+        }
+
+        return result;
+    }
+
+    private void write(final URL url, final Map<String, FileEntries> files) {
+        File file = indexFile(url);
+        File temp = new File(directory, file.getName() + "." + UUID.randomUUID() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("could not create directory " + directory);
+            }
+
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(VERSION);
+            writeString(out, url.toExternalForm());
+            writeString(out, signature);
+            out.writeInt(files.size());
+            for (FileEntries entries : files.values()) {
+                writeString(out, entries.path);
+                out.writeLong(entries.size);
+                out.writeLong(entries.lastModified);
+                writeString(out, entries.hash);
+                out.writeInt(entries.entries.size());
+                for (Map.Entry<String, List<String>> index : entries.entries.entrySet()) {
+                    writeString(out, index.getKey());
+                    out.writeInt(index.getValue().size());
+                    for (String string : index.getValue()) {
+                        writeString(out, string);
+                    }
+                }
+            }
+            out.close();
+
+            // builds sharing the index directory only ever see complete files
+            java.nio.file.Files.move(temp.toPath(), file.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+                    java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (log != null) log.warn("could not save scan index " + file + " of " + url, e);
+        } finally {
+            if (out != null) {
+                try { out.close(); } catch (IOException e) { /*already closed or failed above*/ }
+            }
+            if (temp.exists() && !temp.delete()) {
+                temp.deleteOnExit();
+            }
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String signature(final Configuration configuration) {
+        List<String> scanners = Lists.newArrayList();
+        for (Scanner scanner : configuration.getScanners()) {
+            scanners.add(scanner.getClass().getName() +
+                    (scanner instanceof AbstractScanner ? "(" + ((AbstractScanner) scanner).getResultFilter() + ")" : ""));
+        }
+        Collections.sort(scanners);
+
+        return VERSION + "|" + scanners + "|" + configuration.getInputsFilter() + "|" +
+                configuration.getMetadataAdapter().getClass().getName() + "|" + configuration.shouldRecordOrigins() + "|" +
+                configuration.getConstantPoolFilter();
+    }
+}
@@ -2,31 +2,41 @@ package com.michaelhradek.aurkitu.reflections;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.*;
+import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
+import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * stores metadata information in multimaps
  * <p>use the different query methods (getXXX) to query the metadata
  * <p>the query methods are string based, and does not cause the class loader to define the types
  * <p>use {@link Reflections#getStore()} to access this store
+ * <p>when scanning in parallel, each thread puts into its own shard of an index, and the shards are merged into the
+ * index once scanning is done, see {@link #mergeShards()}. until then, what was put is not visible in the index.
  */
 public class Store {
 
-    private final Map<String, Multimap<String, String>> storeMap;
+    private final ConcurrentMap<String, Multimap<String, String>> storeMap;
     private transient boolean concurrent;
+    private transient volatile boolean sharding;
+    private final transient ConcurrentMap<String, TransitiveClosure> closures =
+            new ConcurrentHashMap<String, TransitiveClosure>();
 
     //used via reflection
     @SuppressWarnings("UnusedDeclaration")
     protected Store() {
-        storeMap = new HashMap<String, Multimap<String, String>>();
+        storeMap = new ConcurrentHashMap<String, Multimap<String, String>>();
         concurrent = false;
     }
 
     public Store(Configuration configuration) {
-        storeMap = new HashMap<String, Multimap<String, String>>();
+        storeMap = new ConcurrentHashMap<String, Multimap<String, String>>();
         concurrent = configuration.getExecutorService() != null;
+        sharding = concurrent;
     }
 
     /** return all indices */
@@ -45,12 +55,76 @@ public class Store {
                                     return Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
                                 }
                             });
-            mmap = concurrent ? Multimaps.synchronizedSetMultimap(multimap) : multimap;
-            storeMap.put(index,mmap);
+            if (concurrent) {
+                mmap = sharding ? new ShardedMultimap(Multimaps.synchronizedSetMultimap(multimap)) :
+                        Multimaps.synchronizedSetMultimap(multimap);
+            } else {
+                mmap = multimap;
+            }
+            Multimap<String, String> existing = storeMap.putIfAbsent(index, mmap);
+            if (existing != null) {
+                mmap = existing;
+            }
         }
         return mmap;
     }
 
+    /**
+     * merges what each thread put into its shard of each index into the index itself, after which values are put
+     * into the indices directly. must not be called while other threads are still putting
+     */
+    public void mergeShards() {
+        sharding = false;
+        for (Multimap<String, String> mmap : storeMap.values()) {
+            if (mmap instanceof ShardedMultimap) {
+                ((ShardedMultimap) mmap).merge();
+            }
+        }
+    }
+
+    /**
+     * replaces each index with a read only copy, which holds each name once in a symbol table shared by all indices,
+     * and the keys and values of the index as int arrays of symbols. this takes a fraction of the memory of hash
+     * based multimaps, while queries return the same results.
+     * <p>putting into a compacted index throws an {@link UnsupportedOperationException}, indices created afterwards
+     * are not compacted
+     */
+    public void compact() {
+        SymbolTable symbols = new SymbolTable();
+        for (Map.Entry<String, Multimap<String, String>> entry : storeMap.entrySet()) {
+            if (!(entry.getValue() instanceof CompactMultimap)) {
+                entry.setValue(new CompactMultimap(symbols, entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * computes the transitive closure of the given {@code index}, after which {@link #getAll(String, String)} looks
+     * up the values reachable from the keys instead of walking the index. each value is returned once.
+     * <p>the closure is dropped once values are put into the index
+     */
+    public void computeTransitiveClosure(String index) {
+        closures.put(index, TransitiveClosure.compute(get(index)));
+    }
+
+    /**
+     * computes the transitive closure of the indices queried transitively, those of the
+     * {@link com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner} and the
+     * {@link com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner}, if scanned
+     */
+    public void computeTransitiveClosures() {
+        for (String index : Arrays.asList(Utils.index(SubTypesScanner.class), Utils.index(TypeAnnotationsScanner.class))) {
+            if (storeMap.containsKey(index)) {
+                computeTransitiveClosure(index);
+            }
+        }
+    }
+
+    /** sets the multimap object for the given {@code index}, replacing the existing one if any */
+    public void set(String index, Multimap<String, String> mmap) {
+        storeMap.put(index, mmap);
+    }
+
     /**
      * get the multimap object for the given {@code index}, otherwise throws a {@link ReflectionsException}
      */
@@ -91,14 +165,86 @@ public class Store {
 
     /** recursively get the values stored for the given {@code index} and {@code keys}, not including keys */
     public Iterable<String> getAll(String index, String key) {
+        TransitiveClosure closure = getTransitiveClosure(index);
+        if (closure != null) {
+            return closure.get(key);
+        }
         return getAllIncluding(index, get(index, key), new IterableChain<String>());
     }
 
     /** recursively get the values stored for the given {@code index} and {@code keys}, not including keys */
     public Iterable<String> getAll(String index, Iterable<String> keys) {
+        TransitiveClosure closure = getTransitiveClosure(index);
+        if (closure != null) {
+            return closure.get(keys);
+        }
         return getAllIncluding(index, get(index, keys), new IterableChain<String>());
     }
 
+    /** the transitive closure of the given index, unless it was not computed or values were put since */
+    private TransitiveClosure getTransitiveClosure(String index) {
+        TransitiveClosure closure = closures.get(index);
+        if (closure != null && !closure.isCurrent(get(index))) {
+            closures.remove(index, closure);
+            return null;
+        }
+        return closure;
+    }
+
+    /**
+     * a multimap which threads put into without contention until it is merged. the shards are keyed by thread rather
+     * than held in a thread local, so nothing is left on the (long lived) scanning threads once they are merged
+     */
+    private static class ShardedMultimap extends ForwardingSetMultimap<String, String> {
+        private final SetMultimap<String, String> merged;
+        private final ConcurrentMap<Thread, SetMultimap<String, String>> shards =
+                new ConcurrentHashMap<Thread, SetMultimap<String, String>>();
+        private volatile boolean sharding = true;
+
+        private ShardedMultimap(SetMultimap<String, String> merged) {
+            this.merged = merged;
+        }
+
+        @Override
+        protected SetMultimap<String, String> delegate() {
+            return merged;
+        }
+
+        @Override
+        public boolean put(String key, String value) {
+            return sharding ? shard().put(key, value) : merged.put(key, value);
+        }
+
+        @Override
+        public boolean putAll(String key, Iterable<? extends String> values) {
+            return sharding ? shard().putAll(key, values) : merged.putAll(key, values);
+        }
+
+        @Override
+        public boolean putAll(Multimap<? extends String, ? extends String> multimap) {
+            return sharding ? shard().putAll(multimap) : merged.putAll(multimap);
+        }
+
+        /** the shard of the calling thread, which only that thread puts into */
+        private SetMultimap<String, String> shard() {
+            Thread thread = Thread.currentThread();
+            SetMultimap<String, String> shard = shards.get(thread);
+            if (shard == null) {
+                shard = HashMultimap.create();
+                shards.put(thread, shard);
+            }
+            return shard;
+        }
+
+        private void merge() {
+            sharding = false;
+            for (SetMultimap<String, String> next : shards.values()) {
+                merged.putAll(next);
+            }
+            shards.clear();
+        }
+    }
+
     private static class IterableChain<T> implements Iterable<T> {
         private final List<Iterable<T>> chain = Lists.newArrayList();
 
@@ -0,0 +1,73 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import java.util.Arrays;
+
+/**
+ * interns names into consecutive int symbols, so that each name is held once however often it is used
+ * <p>not thread safe while interning; once filled, it may be read from any thread
+ */
+class SymbolTable implements CompactMultimap.Symbols {
+    private String[] names = new String[256];
+    private int size;
+    // open addressing over symbol + 1, 0 marks a free slot
+    private int[] slots = new int[512];
+
+    /** @return the symbol of the given name, adding it if it is new */
+    int intern(final String name) {
+        int slot = slot(name);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /** @return the symbol of the given name, or -1 if it was never interned */
+    public int find(final Object name) {
+        if (!(name instanceof String)) {
+            return -1;
+        }
+        return slots[slot((String) name)] - 1;
+    }
+
+    public String name(final int symbol) {
+        return names[symbol];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(final String name) {
+        int mask = slots.length - 1;
+        int slot = spread(name.hashCode()) & mask;
+        while (slots[slot] != 0 && !names[slots[slot] - 1].equals(name)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = spread(names[symbol].hashCode()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
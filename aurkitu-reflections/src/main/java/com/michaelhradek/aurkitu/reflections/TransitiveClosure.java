@@ -0,0 +1,162 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * the values reachable from each key of an index, following values that are keys themselves, as sorted int arrays
+ * of interned names. a transitive query is then a single lookup, rather than a recursive walk of the index.
+ * <p>keys are interned first, so only symbols below the number of keys have values. the closure is computed in
+ * post order of the keys, so that on an acyclic index each key is computed once, from the closures of its values.
+ * <p>read only once computed; it is only current as long as the index has the size it was computed from
+ */
+class TransitiveClosure {
+    private final SymbolTable symbols;
+    private final int[][] reachable;
+    private final int size;
+
+    private TransitiveClosure(final SymbolTable symbols, final int[][] reachable, final int size) {
+        this.symbols = symbols;
+        this.reachable = reachable;
+        this.size = size;
+    }
+
+    static TransitiveClosure compute(final Multimap<String, String> mmap) {
+        SymbolTable symbols = new SymbolTable();
+        for (String key : mmap.keySet()) {
+            symbols.intern(key);
+        }
+        int keys = symbols.size();
+
+        int[][] edges = new int[keys][];
+        for (int key = 0; key < keys; key++) {
+            Collection<String> values = mmap.get(symbols.name(key));
+            int[] targets = new int[values.size()];
+            int i = 0;
+            for (String value : values) {
+                targets[i++] = symbols.intern(value);
+            }
+            edges[key] = targets;
+        }
+
+        // post order, so that the values of a key come before it, unless they are on a cycle
+        int[] order = new int[keys];
+        int ordered = 0;
+        byte[] state = new byte[keys]; // 0 unvisited, 1 on the stack, 2 done
+        int[] stack = new int[keys];
+        int[] next = new int[keys];
+        boolean cyclic = false;
+        for (int root = 0; root < keys; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            next[0] = 0;
+            state[root] = 1;
+            while (depth >= 0) {
+                int node = stack[depth];
+                if (next[depth] < edges[node].length) {
+                    int target = edges[node][next[depth]++];
+                    if (target < keys) {
+                        if (state[target] == 0) {
+                            depth++;
+                            stack[depth] = target;
+                            next[depth] = 0;
+                            state[target] = 1;
+                        } else if (state[target] == 1) {
+                            cyclic = true;
+                        }
+                    }
+                } else {
+                    state[node] = 2;
+                    order[ordered++] = node;
+                    depth--;
+                }
+            }
+        }
+
+        int[][] reachable = new int[keys][];
+        BitSet bits = new BitSet(symbols.size());
+        boolean changed = true;
+        // an acyclic index is done in one pass, a cyclic one once no closure grows anymore
+        while (changed) {
+            changed = false;
+            for (int node : order) {
+                for (int target : edges[node]) {
+                    bits.set(target);
+                    if (target < keys && reachable[target] != null) {
+                        for (int value : reachable[target]) {
+                            bits.set(value);
+                        }
+                    }
+                }
+
+                int count = bits.cardinality();
+                if (reachable[node] == null || reachable[node].length != count) {
+                    int[] values = new int[count];
+                    int i = 0;
+                    for (int value = bits.nextSetBit(0); value >= 0; value = bits.nextSetBit(value + 1)) {
+                        values[i++] = value;
+                    }
+                    reachable[node] = values;
+                    changed = cyclic;
+                }
+                bits.clear();
+            }
+        }
+
+        return new TransitiveClosure(symbols, reachable, mmap.size());
+    }
+
+    /** true if the given index still has the size this closure was computed from */
+    boolean isCurrent(final Multimap<String, String> mmap) {
+        return mmap.size() == size;
+    }
+
+    /** the values reachable from the given key, each once */
+    List<String> get(final String key) {
+        int symbol = symbols.find(key);
+        if (symbol < 0 || symbol >= reachable.length) {
+            return ImmutableList.of();
+        }
+        return names(reachable[symbol]);
+    }
+
+    /** the values reachable from any of the given keys, each once */
+    List<String> get(final Iterable<String> keys) {
+        BitSet bits = new BitSet(symbols.size());
+        for (String key : keys) {
+            int symbol = symbols.find(key);
+            if (symbol >= 0 && symbol < reachable.length) {
+                for (int value : reachable[symbol]) {
+                    bits.set(value);
+                }
+            }
+        }
+
+        int[] values = new int[bits.cardinality()];
+        int i = 0;
+        for (int value = bits.nextSetBit(0); value >= 0; value = bits.nextSetBit(value + 1)) {
+            values[i++] = value;
+        }
+        return names(values);
+    }
+
+    private List<String> names(final int[] values) {
+        return new AbstractList<String>() {
+            public String get(int index) {
+                return symbols.name(values[index]);
+            }
+
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,479 @@
+package com.michaelhradek.aurkitu.reflections.adapters;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.michaelhradek.aurkitu.reflections.ReflectionsException;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipFile;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * reads class files in a single pass over their bytes, without materializing them as javassist does.
+ * method bodies, debug info, stack map frames and all other attributes but annotations are skipped, and the
+ * result is a set of small immutable metadata objects holding only the names the scanners ask for.
+ * <p>the {@link com.michaelhradek.aurkitu.reflections.scanners.MethodParameterNamesScanner} and
+ * {@link com.michaelhradek.aurkitu.reflections.scanners.MemberUsageScanner} read method bodies, and depend on
+ * {@link JavassistAdapter}. for example:
+ * <pre>
+ *     new ConfigurationBuilder().setMetadataAdapter(new ClassFileAdapter());
+ * </pre>
+ */
+public class ClassFileAdapter implements MetadataAdapter<ClassFileAdapter.ClassMetadata, ClassFileAdapter.FieldMetadata, ClassFileAdapter.MethodMetadata> {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final boolean includeInvisible;
+
+    /** returns both runtime visible and invisible annotations, as {@link JavassistAdapter} does by default */
+    public ClassFileAdapter() {
+        this(true);
+    }
+
+    /**
+     * @param includeInvisible false to return only visible annotations (only {@link java.lang.annotation.RetentionPolicy#RUNTIME})
+     */
+    public ClassFileAdapter(final boolean includeInvisible) {
+        this.includeInvisible = includeInvisible;
+    }
+
+    public String getClassName(final ClassMetadata cls) {
+        return cls.name;
+    }
+
+    public String getSuperclassName(final ClassMetadata cls) {
+        return cls.superclassName;
+    }
+
+    public List<String> getInterfacesNames(final ClassMetadata cls) {
+        return cls.interfaceNames;
+    }
+
+    public List<FieldMetadata> getFields(final ClassMetadata cls) {
+        return cls.fields;
+    }
+
+    public List<MethodMetadata> getMethods(final ClassMetadata cls) {
+        return cls.methods;
+    }
+
+    public String getMethodName(final MethodMetadata method) {
+        return method.name;
+    }
+
+    public List<String> getParameterNames(final MethodMetadata method) {
+        return method.getParameterTypeNames();
+    }
+
+    public List<String> getClassAnnotationNames(final ClassMetadata aClass) {
+        return aClass.annotationNames;
+    }
+
+    public List<String> getFieldAnnotationNames(final FieldMetadata field) {
+        return field.annotationNames;
+    }
+
+    public List<String> getMethodAnnotationNames(final MethodMetadata method) {
+        return method.annotationNames;
+    }
+
+    public List<String> getParameterAnnotationNames(final MethodMetadata method, final int parameterIndex) {
+        return parameterIndex < method.parameterAnnotationNames.size() ?
+                method.parameterAnnotationNames.get(parameterIndex) : ImmutableList.<String>of();
+    }
+
+    public String getReturnTypeName(final MethodMetadata method) {
+        String descriptor = method.descriptor;
+        return typeName(descriptor, descriptor.lastIndexOf(')') + 1);
+    }
+
+    public String getFieldName(final FieldMetadata field) {
+        return field.name;
+    }
+
+    public ClassMetadata getOrCreateClassObject(final Vfs.File file) {
+        ByteBuffer buffer;
+        InputStream inputStream = null;
+        try {
+            if (file instanceof MappedZipFile) {
+                buffer = ((MappedZipFile) file).getContent();
+            } else {
+                inputStream = file.openInputStream();
+                buffer = ByteBuffer.wrap(ByteStreams.toByteArray(inputStream));
+            }
+        } catch (IOException e) {
+            throw new ReflectionsException("could not create class file from " + file.getName(), e);
+        } finally {
+            Utils.close(inputStream);
+        }
+
+        try {
+            return new Reader(buffer).readClass();
+        } catch (IndexOutOfBoundsException e) {
+            throw new ReflectionsException("could not create class file from " + file.getName() + ", it is truncated", e);
+        } catch (BufferUnderflowException e) {
+            throw new ReflectionsException("could not create class file from " + file.getName() + ", it is truncated", e);
+        }
+    }
+
+    public String getMethodModifier(final MethodMetadata method) {
+        int accessFlags = method.accessFlags;
+        return Modifier.isPrivate(accessFlags) ? "private" :
+                Modifier.isProtected(accessFlags) ? "protected" :
+                        Modifier.isPublic(accessFlags) ? "public" : "";
+    }
+
+    public String getMethodKey(final ClassMetadata cls, final MethodMetadata method) {
+        return getMethodName(method) + "(" + Joiner.on(", ").join(getParameterNames(method)) + ")";
+    }
+
+    public String getMethodFullKey(final ClassMetadata cls, final MethodMetadata method) {
+        return getClassName(cls) + "." + getMethodKey(cls, method);
+    }
+
+    public boolean isPublic(final Object o) {
+        return o instanceof ClassMetadata ? Modifier.isPublic(((ClassMetadata) o).accessFlags) :
+                o instanceof FieldMetadata ? Modifier.isPublic(((FieldMetadata) o).accessFlags) :
+                        o instanceof MethodMetadata && Modifier.isPublic(((MethodMetadata) o).accessFlags);
+    }
+
+    public boolean acceptsInput(final String file) {
+        return file.endsWith(".class");
+    }
+
+    /** @return the java name of the field descriptor starting at the given index, e.g. {@code int[]} for {@code [I} */
+    private static String typeName(final String descriptor, final int start) {
+        int dimensions = 0;
+        while (descriptor.charAt(start + dimensions) == '[') {
+            dimensions++;
+        }
+
+        int index = start + dimensions;
+        String name;
+        switch (descriptor.charAt(index)) {
+            case 'B': name = "byte"; break;
+            case 'C': name = "char"; break;
+            case 'D': name = "double"; break;
+            case 'F': name = "float"; break;
+            case 'I': name = "int"; break;
+            case 'J': name = "long"; break;
+            case 'S': name = "short"; break;
+            case 'Z': name = "boolean"; break;
+            case 'V': name = "void"; break;
+            case 'L': name = descriptor.substring(index + 1, descriptor.indexOf(';', index)).replace('/', '.'); break;
+            default: throw new ReflectionsException("invalid descriptor " + descriptor);
+        }
+
+        if (dimensions == 0) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder(name.length() + 2 * dimensions).append(name);
+        for (int i = 0; i < dimensions; i++) {
+            builder.append("[]");
+        }
+        return builder.toString();
+    }
+
+    /** the names of a class file, and of its fields and methods */
+    public static class ClassMetadata {
+        private final int accessFlags;
+        private final String name;
+        @Nullable private final String superclassName;
+        private final List<String> interfaceNames;
+        private final List<String> annotationNames;
+        private final List<FieldMetadata> fields;
+        private final List<MethodMetadata> methods;
+
+        ClassMetadata(final int accessFlags, final String name, @Nullable final String superclassName,
+                      final List<String> interfaceNames, final List<String> annotationNames,
+                      final List<FieldMetadata> fields, final List<MethodMetadata> methods) {
+            this.accessFlags = accessFlags;
+            this.name = name;
+            this.superclassName = superclassName;
+            this.interfaceNames = interfaceNames;
+            this.annotationNames = annotationNames;
+            this.fields = fields;
+            this.methods = methods;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** the name and annotation names of a field */
+    public static class FieldMetadata {
+        private final int accessFlags;
+        private final String name;
+        private final List<String> annotationNames;
+
+        FieldMetadata(final int accessFlags, final String name, final List<String> annotationNames) {
+            this.accessFlags = accessFlags;
+            this.name = name;
+            this.annotationNames = annotationNames;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** the name, descriptor and annotation names of a method or constructor */
+    public static class MethodMetadata {
+        private final int accessFlags;
+        private final String name;
+        private final String descriptor;
+        private final List<String> annotationNames;
+        private final List<List<String>> parameterAnnotationNames;
+        // split from the descriptor once, when first asked for
+        @Nullable private volatile List<String> parameterTypeNames;
+
+        MethodMetadata(final int accessFlags, final String name, final String descriptor,
+                       final List<String> annotationNames, final List<List<String>> parameterAnnotationNames) {
+            this.accessFlags = accessFlags;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotationNames = annotationNames;
+            this.parameterAnnotationNames = parameterAnnotationNames;
+        }
+
+        List<String> getParameterTypeNames() {
+            List<String> names = parameterTypeNames;
+            if (names == null) {
+                ImmutableList.Builder<String> builder = ImmutableList.builder();
+                int index = 1;
+                while (descriptor.charAt(index) != ')') {
+                    builder.add(typeName(descriptor, index));
+                    while (descriptor.charAt(index) == '[') {
+                        index++;
+                    }
+                    index = descriptor.charAt(index) == 'L' ? descriptor.indexOf(';', index) + 1 : index + 1;
+                }
+                parameterTypeNames = names = builder.build();
+            }
+            return names;
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor;
+        }
+    }
+
+    /** a single pass over the bytes of one class file */
+    private class Reader {
+        private final ByteBuffer buffer;
+        // offsets of the constant pool entries, and the utf8 constants decoded so far
+        private int[] offsets;
+        private String[] strings;
+        private int position;
+
+        Reader(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ClassMetadata readClass() {
+            if (buffer.getInt(0) != MAGIC) {
+                throw new ReflectionsException("not a class file");
+            }
+
+            readConstantPool();
+            int accessFlags = u2();
+            String name = className(u2());
+            int superClass = u2();
+            String superclassName = superClass == 0 ? null : className(superClass);
+            int interfaceCount = u2();
+            ImmutableList.Builder<String> interfaceNames = ImmutableList.builder();
+            for (int i = 0; i < interfaceCount; i++) {
+                interfaceNames.add(className(u2()));
+            }
+
+            int fieldCount = u2();
+            ImmutableList.Builder<FieldMetadata> fields = ImmutableList.builder();
+            for (int i = 0; i < fieldCount; i++) {
+                int fieldAccessFlags = u2();
+                String fieldName = utf8(u2());
+                position += 2; // descriptor
+                ImmutableList.Builder<String> annotationNames = ImmutableList.builder();
+                readAttributes(annotationNames, null);
+                fields.add(new FieldMetadata(fieldAccessFlags, fieldName, annotationNames.build()));
+            }
+
+            int methodCount = u2();
+            ImmutableList.Builder<MethodMetadata> methods = ImmutableList.builder();
+            for (int i = 0; i < methodCount; i++) {
+                int methodAccessFlags = u2();
+                String methodName = utf8(u2());
+                String descriptor = utf8(u2());
+                ImmutableList.Builder<String> annotationNames = ImmutableList.builder();
+                List<List<String>> parameterAnnotationNames = Lists.newArrayList();
+                readAttributes(annotationNames, parameterAnnotationNames);
+                methods.add(new MethodMetadata(methodAccessFlags, methodName, descriptor, annotationNames.build(),
+                        immutable(parameterAnnotationNames)));
+            }
+
+            ImmutableList.Builder<String> annotationNames = ImmutableList.builder();
+            readAttributes(annotationNames, null);
+
+            return new ClassMetadata(accessFlags, name, superclassName, interfaceNames.build(), annotationNames.build(),
+                    fields.build(), methods.build());
+        }
+
+        private void readConstantPool() {
+            int count = buffer.getShort(8) & 0xffff;
+            offsets = new int[count];
+            strings = new String[count];
+            position = 10;
+            for (int i = 1; i < count; i++) {
+                offsets[i] = position;
+                int tag = buffer.get(position) & 0xff;
+                switch (tag) {
+                    case 1: // utf8
+                        position += 3 + (buffer.getShort(position + 1) & 0xffff);
+                        break;
+                    case 7: case 8: case 16: case 19: case 20: // class, string, method type, module, package
+                        position += 3;
+                        break;
+                    case 15: // method handle
+                        position += 4;
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        position += 5;
+                        break;
+                    case 5: case 6: // long and double take two entries
+                        position += 9;
+                        i++;
+                        break;
+                    default:
+                        throw new ReflectionsException("invalid constant pool tag " + tag);
+                }
+            }
+        }
+
+        /**
+         * reads the attributes at the current position, adding the annotation names to the given builders, and
+         * skipping all other attributes
+         */
+        private void readAttributes(final ImmutableList.Builder<String> annotationNames,
+                                    @Nullable final List<List<String>> parameterAnnotationNames) {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                String name = utf8(u2());
+                int length = buffer.getInt(position);
+                position += 4;
+                int end = position + length;
+
+                if ("RuntimeVisibleAnnotations".equals(name) ||
+                        (includeInvisible && "RuntimeInvisibleAnnotations".equals(name))) {
+                    readAnnotations(annotationNames);
+                } else if (parameterAnnotationNames != null && ("RuntimeVisibleParameterAnnotations".equals(name) ||
+                        (includeInvisible && "RuntimeInvisibleParameterAnnotations".equals(name)))) {
+                    int parameters = buffer.get(position++) & 0xff;
+                    for (int parameter = 0; parameter < parameters; parameter++) {
+                        while (parameterAnnotationNames.size() <= parameter) {
+                            parameterAnnotationNames.add(Lists.<String>newArrayList());
+                        }
+                        ImmutableList.Builder<String> names = ImmutableList.builder();
+                        readAnnotations(names);
+                        parameterAnnotationNames.get(parameter).addAll(names.build());
+                    }
+                }
+                position = end;
+            }
+        }
+
+        private void readAnnotations(final ImmutableList.Builder<String> annotationNames) {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                annotationNames.add(readAnnotation());
+            }
+        }
+
+        /** @return the type name of the annotation at the current position, skipping its element values */
+        private String readAnnotation() {
+            String typeName = typeName(utf8(u2()), 0);
+            int pairs = u2();
+            for (int i = 0; i < pairs; i++) {
+                position += 2; // element name
+                skipElementValue();
+            }
+            return typeName;
+        }
+
+        private void skipElementValue() {
+            int tag = buffer.get(position++) & 0xff;
+            switch (tag) {
+                case 'e': // enum type and constant name
+                    position += 4;
+                    break;
+                case '@':
+                    readAnnotation();
+                    break;
+                case '[':
+                    int values = u2();
+                    for (int i = 0; i < values; i++) {
+                        skipElementValue();
+                    }
+                    break;
+                default: // constants and classes
+                    position += 2;
+            }
+        }
+
+        private int u2() {
+            int value = buffer.getShort(position) & 0xffff;
+            position += 2;
+            return value;
+        }
+
+        private String className(final int index) {
+            return utf8(buffer.getShort(offsets[index] + 1) & 0xffff).replace('/', '.');
+        }
+
+        /** decodes the modified utf-8 constant at the given index, once per class file */
+        private String utf8(final int index) {
+            String string = strings[index];
+            if (string == null) {
+                int offset = offsets[index];
+                int length = buffer.getShort(offset + 1) & 0xffff;
+                char[] chars = new char[length];
+                int count = 0;
+                int i = offset + 3;
+                int end = i + length;
+                while (i < end) {
+                    int b = buffer.get(i++) & 0xff;
+                    if (b < 0x80) {
+                        chars[count++] = (char) b;
+                    } else if (b < 0xe0) {
+                        chars[count++] = (char) (((b & 0x1f) << 6) | (buffer.get(i++) & 0x3f));
+                    } else {
+                        chars[count++] = (char) (((b & 0x0f) << 12) | ((buffer.get(i++) & 0x3f) << 6) | (buffer.get(i++) & 0x3f));
+                    }
+                }
+                strings[index] = string = new String(chars, 0, count);
+            }
+            return string;
+        }
+    }
+
+    private static List<List<String>> immutable(final List<List<String>> lists) {
+        if (lists.isEmpty()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<List<String>> builder = ImmutableList.builder();
+        for (List<String> list : lists) {
+            builder.add(ImmutableList.copyOf(list));
+        }
+        return builder.build();
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.michaelhradek.aurkitu.reflections.ReflectionsException;
 import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipFile;
 import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
 import javassist.bytecode.*;
 import javassist.bytecode.annotation.Annotation;
@@ -98,7 +99,8 @@ public class JavassistAdapter implements MetadataAdapter<ClassFile, FieldInfo, M
         InputStream inputStream = null;
         try {
             inputStream = file.openInputStream();
-            DataInputStream dis = new DataInputStream(new BufferedInputStream(inputStream));
+            // mapped jar entries are already in memory
+            DataInputStream dis = new DataInputStream(file instanceof MappedZipFile ? inputStream : new BufferedInputStream(inputStream));
             return new ClassFile(dis);
         } catch (IOException e) {
             throw new ReflectionsException("could not create class file from " + file.getName(), e);
@@ -2,6 +2,7 @@ package com.michaelhradek.aurkitu.reflections.scanners;
 
 import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 /**
@@ -29,14 +30,19 @@ public class SubTypesScanner extends AbstractScanner {
 
     @SuppressWarnings({"unchecked"})
     public void scan(final Object cls) {
-        String className = getMetadataAdapter().getClassName(cls);
-        String superclass = getMetadataAdapter().getSuperclassName(cls);
+        scan(getMetadataAdapter().getClassName(cls), getMetadataAdapter().getSuperclassName(cls),
+                (List<String>) getMetadataAdapter().getInterfacesNames(cls));
+    }
 
+    /**
+     * scans a class by the names of its super types, see {@link com.michaelhradek.aurkitu.reflections.util.ConstantPoolFilter}
+     */
+    public void scan(final String className, @Nullable final String superclass, final List<String> interfaces) {
         if (acceptResult(superclass)) {
             getStore().put(superclass, className);
         }
 
-        for (String anInterface : (List<String>) getMetadataAdapter().getInterfacesNames(cls)) {
+        for (String anInterface : interfaces) {
             if (acceptResult(anInterface)) {
                 getStore().put(anInterface, className);
             }
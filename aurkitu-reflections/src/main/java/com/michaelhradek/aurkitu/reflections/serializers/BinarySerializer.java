@@ -0,0 +1,245 @@
+package com.michaelhradek.aurkitu.reflections.serializers;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import com.michaelhradek.aurkitu.reflections.CompactMultimap;
+import com.michaelhradek.aurkitu.reflections.Reflections;
+import com.michaelhradek.aurkitu.reflections.ReflectionsException;
+import com.michaelhradek.aurkitu.reflections.Store;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.lang.reflect.Constructor;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * serialization of Reflections to a compact binary format, which can be memory mapped and queried without reading
+ * the whole store, see {@link #read(File)}
+ *
+ * <p>the format is a sorted table of all names, followed by each index as sorted int arrays of name symbols,
+ * so that lookups are binary searches over the buffer:
+ * <pre>
+ * int magic, int version
+ * int names, int[names + 1] offsets of each name in the utf-8 bytes that follow, byte[] utf-8 bytes
+ * int indices, then for each index:
+ *     int name, int keys, int values, int[keys] keys, int[keys + 1] offsets of the values of each key, int[values] values
+ * </pre>
+ */
+public class BinarySerializer implements Serializer {
+    private static final int MAGIC = 0x41524653;
+    private static final int VERSION = 1;
+
+    public Reflections read(InputStream inputStream) {
+        try {
+            return read(ByteBuffer.wrap(ByteStreams.toByteArray(inputStream)));
+        } catch (IOException e) {
+            throw new ReflectionsException("could not read.", e);
+        }
+    }
+
+    /**
+     * memory maps the given file into a new Reflections instance, whose store indices are read only views of the file
+     */
+    public Reflections read(File file) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                // the mapping stays valid after the file is closed
+                return read(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length()));
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new ReflectionsException("could not read " + file, e);
+        }
+    }
+
+    public File save(final Reflections reflections, final String filename) {
+        File file = Utils.prepareFile(filename);
+        try {
+            Files.write(toBytes(reflections), file);
+        } catch (IOException e) {
+            throw new ReflectionsException("could not save to file " + filename, e);
+        }
+        return file;
+    }
+
+    /** returns the serialization with one char per byte */
+    public String toString(final Reflections reflections) {
+        return new String(toBytes(reflections), StandardCharsets.ISO_8859_1);
+    }
+
+    private Reflections read(final ByteBuffer buffer) {
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new ReflectionsException("could not read, not a binary serialization of version " + VERSION);
+            }
+
+            int count = buffer.getInt(8);
+            IntBuffer offsets = ints(buffer, 12, count + 1);
+            Names names = new Names(buffer, offsets, 12 + 4 * (count + 1), count);
+
+            Reflections reflections = newReflections();
+            int position = names.start + offsets.get(count);
+            int indices = buffer.getInt(position);
+            position += 4;
+            for (int i = 0; i < indices; i++) {
+                String index = names.name(buffer.getInt(position));
+                int keys = buffer.getInt(position + 4);
+                int values = buffer.getInt(position + 8);
+                position += 12;
+                IntBuffer keySymbols = ints(buffer, position, keys);
+                position += 4 * keys;
+                IntBuffer valueOffsets = ints(buffer, position, keys + 1);
+                position += 4 * (keys + 1);
+                IntBuffer valueSymbols = ints(buffer, position, values);
+                position += 4 * values;
+                reflections.getStore().set(index, new CompactMultimap(names, keySymbols, valueOffsets, valueSymbols));
+            }
+            return reflections;
+        } catch (IndexOutOfBoundsException e) {
+            throw new ReflectionsException("could not read, the serialization is truncated", e);
+        } catch (BufferUnderflowException e) {
+            throw new ReflectionsException("could not read, the serialization is truncated", e);
+        } catch (IllegalArgumentException e) {
+            throw new ReflectionsException("could not read, the serialization is corrupt", e);
+        }
+    }
+
+    private byte[] toBytes(final Reflections reflections) {
+        Store store = reflections.getStore();
+        SortedSet<String> sorted = Sets.newTreeSet(store.keySet());
+        for (String index : store.keySet()) {
+            for (Map.Entry<String, String> entry : store.get(index).entries()) {
+                sorted.add(entry.getKey());
+                sorted.add(entry.getValue());
+            }
+        }
+
+        // symbols are in name order, so that names can be found by a binary search
+        Map<String, Integer> symbols = Maps.newHashMapWithExpectedSize(sorted.size());
+        ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sorted.size());
+            out.writeInt(0);
+            for (String name : sorted) {
+                symbols.put(name, symbols.size());
+                utf8.write(name.getBytes(StandardCharsets.UTF_8));
+                out.writeInt(utf8.size());
+            }
+            utf8.writeTo(out);
+
+            out.writeInt(store.keySet().size());
+            for (String index : Sets.newTreeSet(store.keySet())) {
+                Multimap<String, String> mmap = store.get(index);
+                SortedSet<String> keys = Sets.newTreeSet(mmap.keySet());
+                ByteArrayOutputStream values = new ByteArrayOutputStream();
+                DataOutputStream valuesOut = new DataOutputStream(values);
+                int[] offsets = new int[keys.size() + 1];
+                int key = 0;
+                for (String name : keys) {
+                    offsets[key] = valuesOut.size() / 4;
+                    for (String value : Sets.newTreeSet(mmap.get(name))) {
+                        valuesOut.writeInt(symbols.get(value));
+                    }
+                    key++;
+                }
+                offsets[key] = valuesOut.size() / 4;
+
+                out.writeInt(symbols.get(index));
+                out.writeInt(keys.size());
+                out.writeInt(offsets[key]);
+                for (String name : keys) {
+                    out.writeInt(symbols.get(name));
+                }
+                for (int offset : offsets) {
+                    out.writeInt(offset);
+                }
+                values.writeTo(out);
+            }
+            out.close();
+        } catch (IOException e) {
+            // not thrown by byte array streams
+            throw new ReflectionsException("could not serialize", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static IntBuffer ints(final ByteBuffer buffer, final int position, final int count) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + 4 * count);
+        return view.slice().asIntBuffer();
+    }
+
+    private static Reflections newReflections() {
+        try {
+            Constructor<Reflections> constructor = Reflections.class.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (Exception e) {
+            return new Reflections(new ConfigurationBuilder());
+        }
+    }
+
+    /** the sorted names of a serialization, decoded as they are looked up */
+    private static class Names implements CompactMultimap.Symbols {
+        private final ByteBuffer buffer;
+        private final IntBuffer offsets;
+        private final int start;
+        private final int count;
+
+        Names(final ByteBuffer buffer, final IntBuffer offsets, final int start, final int count) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.start = start;
+            this.count = count;
+        }
+
+        public int find(@Nullable final Object name) {
+            if (!(name instanceof String)) {
+                return -1;
+            }
+
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = name(middle).compareTo((String) name);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        public String name(final int symbol) {
+            int from = offsets.get(symbol);
+            byte[] bytes = new byte[offsets.get(symbol + 1) - from];
+            ByteBuffer view = buffer.duplicate();
+            view.position(start + from);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
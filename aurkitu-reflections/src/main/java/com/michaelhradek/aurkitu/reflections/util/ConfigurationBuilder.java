@@ -4,7 +4,6 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ObjectArrays;
 import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.michaelhradek.aurkitu.reflections.Configuration;
 import com.michaelhradek.aurkitu.reflections.Reflections;
 import com.michaelhradek.aurkitu.reflections.ReflectionsException;
@@ -25,7 +24,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * a fluent builder for {@link Configuration}, to be used for constructing a {@link Reflections} instance
@@ -39,7 +40,7 @@ import java.util.concurrent.ThreadFactory;
  * </pre>
  * <br>{@link #executorService} is used optionally used for parallel scanning. if value is null then scanning is done in a simple for loop
  * <p>defaults: accept all for {@link #inputsFilter},
- * {@link #executorService} is null,
+ * {@link #executorService} is null, and is shut down once scanned unless {@link #setSharedExecutors(boolean)} is set,
  * {@link #serializer} is {@link XmlSerializer}
  */
 public class ConfigurationBuilder implements Configuration {
@@ -49,8 +50,16 @@ public class ConfigurationBuilder implements Configuration {
     @Nullable private Predicate<String> inputsFilter;
     /*lazy*/ private Serializer serializer;
     @Nullable private ExecutorService executorService;
+    @Nullable private ExecutorService openingExecutorService;
+    private boolean shutdownExecutors = true;
     @Nullable private ClassLoader[] classLoaders;
     private boolean expandSuperTypes = true;
+    private boolean recordOrigins = false;
+    @Nullable private ConstantPoolFilter constantPoolFilter;
+    @Nullable private java.io.File scanIndexDirectory;
+    private boolean compactStore = false;
+    private boolean computeTransitiveClosure = false;
+    private boolean memoryMapJars = false;
 
     public ConfigurationBuilder() {
         scanners = Sets.newHashSet(new TypeAnnotationsScanner(), new SubTypesScanner());
@@ -206,7 +215,9 @@ public class ConfigurationBuilder implements Configuration {
         }
     }
 
-    /** sets the metadata adapter used to fetch metadata from classes */
+    /** sets the metadata adapter used to fetch metadata from classes.
+     * <p>the {@link com.michaelhradek.aurkitu.reflections.adapters.ClassFileAdapter} reads class files faster and
+     * with less garbage than the {@link JavassistAdapter}, but does not support scanners which read method bodies */
     public ConfigurationBuilder setMetadataAdapter(final MetadataAdapter metadataAdapter) {
         this.metadataAdapter = metadataAdapter;
         return this;
@@ -241,18 +252,75 @@ public class ConfigurationBuilder implements Configuration {
         return this;
     }
 
-    /** sets the executor service used for scanning to ThreadPoolExecutor with core size as {@link java.lang.Runtime#availableProcessors()}
-     * <p>default is ThreadPoolExecutor with a single core */
+    /** sets the executor service used for scanning to ForkJoinPool with parallelism as {@link java.lang.Runtime#availableProcessors()}
+     * <p>default is ForkJoinPool with a single core */
     public ConfigurationBuilder useParallelExecutor() {
         return useParallelExecutor(Runtime.getRuntime().availableProcessors());
     }
 
-    /** sets the executor service used for scanning to ThreadPoolExecutor with core size as the given availableProcessors parameter.
-     * the executor service spawns daemon threads by default.
-     * <p>default is ThreadPoolExecutor with a single core */
+    /** sets the executor service used for scanning to ForkJoinPool with parallelism as the given availableProcessors parameter.
+     * urls are scanned in parallel, and the files of large jars and directories are split into batches which idle
+     * threads steal from each other. the executor service spawns daemon threads.
+     * <p>default is ForkJoinPool with a single core */
     public ConfigurationBuilder useParallelExecutor(final int availableProcessors) {
-        ThreadFactory factory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("aurkitu.reflections-scanner-%d").build();
-        setExecutorService(Executors.newFixedThreadPool(availableProcessors, factory));
+        return setExecutorService(newParallelExecutor(availableProcessors));
+    }
+
+    /** creates the ForkJoinPool used by {@link #useParallelExecutor(int)}, e.g. to share it between Reflections
+     * instances, see {@link #setSharedExecutors(boolean)} */
+    public static ForkJoinPool newParallelExecutor(final int availableProcessors) {
+        final AtomicInteger count = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("aurkitu.reflections-scanner-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        return new ForkJoinPool(availableProcessors, factory, null, false);
+    }
+
+    @Nullable
+    public ExecutorService getOpeningExecutorService() {
+        return openingExecutorService;
+    }
+
+    /** sets the executor service used to open the urls to be scanned, ahead of scanning them. opening jars is mostly
+     * waiting on io, so it can use many more threads than scanning */
+    public ConfigurationBuilder setOpeningExecutorService(@Nullable ExecutorService openingExecutorService) {
+        this.openingExecutorService = openingExecutorService;
+        return this;
+    }
+
+    /** opens the urls to be scanned on virtual threads, one per url, if the runtime has them (java 21 and later).
+     * otherwise, urls are opened by the threads scanning them */
+    public ConfigurationBuilder useVirtualThreadsForOpening() {
+        return setOpeningExecutorService(newVirtualThreadExecutor());
+    }
+
+    /** creates a virtual thread per task executor, if the runtime has virtual threads
+     * @return the executor, or null if the runtime has no virtual threads */
+    @Nullable
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean shouldShutdownExecutors() {
+        return shutdownExecutors;
+    }
+
+    /**
+     * if set to true, the executor services are owned by the caller, and are not shut down once scanned, so that
+     * they can be shared between Reflections instances. default is false
+     */
+    public ConfigurationBuilder setSharedExecutors(boolean sharedExecutors) {
+        this.shutdownExecutors = !sharedExecutors;
         return this;
     }
 
@@ -293,6 +361,95 @@ public class ConfigurationBuilder implements Configuration {
         return this;
     }
 
+    @Override
+    public boolean shouldRecordOrigins() {
+        return recordOrigins;
+    }
+
+    /**
+     * if set to true, Reflections will record the url each scanned type was found in.
+     * <p>see {@link Reflections#getTypesScannedFrom(URL)}
+     */
+    public ConfigurationBuilder setRecordOrigins(boolean recordOrigins) {
+        this.recordOrigins = recordOrigins;
+        return this;
+    }
+
+    @Nullable
+    @Override
+    public ConstantPoolFilter getConstantPoolFilter() {
+        return constantPoolFilter;
+    }
+
+    /**
+     * sets the filter which skips class files whose constant pool does not mention any of its annotation types.
+     * <p>see {@link ConstantPoolFilter}
+     */
+    public ConfigurationBuilder setConstantPoolFilter(@Nullable ConstantPoolFilter constantPoolFilter) {
+        this.constantPoolFilter = constantPoolFilter;
+        return this;
+    }
+
+    @Nullable
+    @Override
+    public java.io.File getScanIndexDirectory() {
+        return scanIndexDirectory;
+    }
+
+    /**
+     * sets the directory in which the scan of each url is saved, so that later scans only scan what changed.
+     * <p>see {@link com.michaelhradek.aurkitu.reflections.ScanIndex}
+     */
+    public ConfigurationBuilder setScanIndexDirectory(@Nullable java.io.File scanIndexDirectory) {
+        this.scanIndexDirectory = scanIndexDirectory;
+        return this;
+    }
+
+    @Override
+    public boolean shouldCompactStore() {
+        return compactStore;
+    }
+
+    /**
+     * if set to true, Reflections will compact its store after scanning, after which it can no longer be added to.
+     * <p>see {@link com.michaelhradek.aurkitu.reflections.Store#compact()}
+     */
+    public ConfigurationBuilder setCompactStore(boolean compactStore) {
+        this.compactStore = compactStore;
+        return this;
+    }
+
+    @Override
+    public boolean shouldComputeTransitiveClosure() {
+        return computeTransitiveClosure;
+    }
+
+    /**
+     * if set to true, Reflections will compute the transitive closure of the sub types and type annotations indices
+     * after scanning, making transitive queries such as {@link com.michaelhradek.aurkitu.reflections.Reflections#getSubTypesOf(Class)}
+     * a lookup. the closure takes memory in the number of keys and the types reachable from them.
+     * <p>see {@link com.michaelhradek.aurkitu.reflections.Store#computeTransitiveClosures()}
+     */
+    public ConfigurationBuilder setComputeTransitiveClosure(boolean computeTransitiveClosure) {
+        this.computeTransitiveClosure = computeTransitiveClosure;
+        return this;
+    }
+
+    @Override
+    public boolean shouldMemoryMapJars() {
+        return memoryMapJars;
+    }
+
+    /**
+     * if set to true, Reflections will read jar files through a memory mapping, which saves copying their entries,
+     * but holds on to the jars until the mappings are garbage collected. better left off in long lived jvms.
+     * <p>see {@link com.michaelhradek.aurkitu.reflections.vfs.MappedZipDir}
+     */
+    public ConfigurationBuilder setMemoryMapJars(boolean memoryMapJars) {
+        this.memoryMapJars = memoryMapJars;
+        return this;
+    }
+
     /** add class loader, might be used for resolving methods/fields */
     public ConfigurationBuilder addClassLoader(ClassLoader classLoader) {
         return addClassLoaders(classLoader);
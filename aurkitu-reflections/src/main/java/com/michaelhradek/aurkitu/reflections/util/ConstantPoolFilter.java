@@ -0,0 +1,246 @@
+package com.michaelhradek.aurkitu.reflections.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipFile;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.michaelhradek.aurkitu.reflections.Reflections.log;
+
+/**
+ * a cheap pre-filter for class files, which reads only the constant pool and the class header instead of
+ * the whole class.
+ * <p>a class is relevant if its constant pool mentions one of the given annotation types, which it does whenever
+ * the class, one of its members or one of their parameters is annotated with it. other classes are not scanned,
+ * except that by default their super class and interfaces are still given to the
+ * {@link com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner}, so that sub types of annotated types are
+ * still found. see {@link #setSubTypesFallback(boolean)}
+ * <p>note that types annotated with a meta annotation are not relevant, unless the meta annotation is given as well.
+ * <p>for example:
+ * <pre>
+ *     new ConfigurationBuilder().setConstantPoolFilter(ConstantPoolFilter.forAnnotations(MyAnnotation.class));
+ * </pre>
+ */
+public class ConstantPoolFilter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+
+    private final SortedSet<String> annotationTypes;
+    // descriptors by length, so that most constants are rejected by their length alone
+    private final Map<Integer, List<byte[]>> descriptors = new HashMap<Integer, List<byte[]>>();
+    private boolean subTypesFallback = true;
+
+    /**
+     * @param annotationTypes fully qualified names of the annotation types a class must mention to be scanned
+     */
+    public ConstantPoolFilter(final Collection<String> annotationTypes) {
+        this.annotationTypes = Collections.unmodifiableSortedSet(Sets.newTreeSet(annotationTypes));
+        for (String annotationType : this.annotationTypes) {
+            byte[] descriptor = ("L" + annotationType.replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+            List<byte[]> sameLength = descriptors.get(descriptor.length);
+            if (sameLength == null) {
+                sameLength = Lists.newArrayList();
+                descriptors.put(descriptor.length, sameLength);
+            }
+            sameLength.add(descriptor);
+        }
+    }
+
+    /**
+     * @param annotationTypes the annotation types a class must mention to be scanned
+     */
+    @SafeVarargs
+    public static ConstantPoolFilter forAnnotations(final Class<? extends Annotation>... annotationTypes) {
+        List<String> names = Lists.newArrayList();
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            names.add(annotationType.getName());
+        }
+        return new ConstantPoolFilter(names);
+    }
+
+    public Set<String> getAnnotationTypes() {
+        return annotationTypes;
+    }
+
+    public boolean isSubTypesFallback() {
+        return subTypesFallback;
+    }
+
+    /**
+     * if true (the default), the super class and interfaces of classes which are not relevant are still given to
+     * the {@link com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner}. if false, those classes are skipped
+     * by all scanners.
+     */
+    public ConstantPoolFilter setSubTypesFallback(final boolean subTypesFallback) {
+        this.subTypesFallback = subTypesFallback;
+        return this;
+    }
+
+    /**
+     * reads the constant pool and header of the given class file
+     * @return the header, or null if the file could not be read as a class file
+     */
+    @Nullable
+    public ClassHeader read(final Vfs.File file) {
+        try {
+            ByteBuffer buffer;
+            if (file instanceof MappedZipFile) {
+                buffer = ((MappedZipFile) file).getContent();
+            } else {
+                InputStream inputStream = file.openInputStream();
+                try {
+                    buffer = ByteBuffer.wrap(ByteStreams.toByteArray(inputStream));
+                } finally {
+                    Utils.close(inputStream);
+                }
+            }
+
+            return read(buffer);
+        } catch (Exception e) {
+            if (log != null && log.isDebugEnabled()) {
+                log.debug("could not read constant pool of {}, scanning it", file.getRelativePath(), e);
+            }
+            return null;
+        }
+    }
+
+    @Nullable
+    ClassHeader read(final ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            return null;
+        }
+
+        int count = buffer.getShort(8) & 0xffff;
+        // offsets of utf8 constants and name indexes of class constants
+        int[] utf8 = new int[count];
+        int[] classes = new int[count];
+        boolean relevant = false;
+        int position = 10;
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get(position) & 0xff;
+            switch (tag) {
+                case 1: // utf8
+                    int length = buffer.getShort(position + 1) & 0xffff;
+                    utf8[i] = position;
+                    relevant = relevant || isDescriptor(buffer, position + 3, length);
+                    position += 3 + length;
+                    break;
+                case 7: // class
+                    classes[i] = buffer.getShort(position + 1) & 0xffff;
+                    position += 3;
+                    break;
+                case 8: case 16: case 19: case 20: // string, method type, module, package
+                    position += 3;
+                    break;
+                case 15: // method handle
+                    position += 4;
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    position += 5;
+                    break;
+                case 5: case 6: // long and double take two entries
+                    position += 9;
+                    i++;
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        int accessFlags = buffer.getShort(position) & 0xffff;
+        int thisClass = buffer.getShort(position + 2) & 0xffff;
+        int superClass = buffer.getShort(position + 4) & 0xffff;
+        int interfaceCount = buffer.getShort(position + 6) & 0xffff;
+        ImmutableList.Builder<String> interfaces = ImmutableList.builder();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(className(buffer, utf8, classes, buffer.getShort(position + 8 + 2 * i) & 0xffff));
+        }
+
+        return new ClassHeader(relevant, (accessFlags & ACC_INTERFACE) != 0, className(buffer, utf8, classes, thisClass),
+                superClass == 0 ? null : className(buffer, utf8, classes, superClass), interfaces.build());
+    }
+
+    private boolean isDescriptor(final ByteBuffer buffer, final int position, final int length) {
+        List<byte[]> candidates = descriptors.get(length);
+        if (candidates == null) {
+            return false;
+        }
+
+        for (byte[] descriptor : candidates) {
+            int i = 0;
+            while (i < length && buffer.get(position + i) == descriptor[i]) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String className(final ByteBuffer buffer, final int[] utf8, final int[] classes, final int index) {
+        int position = utf8[classes[index]];
+        byte[] bytes = new byte[buffer.getShort(position + 1) & 0xffff];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 3);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8).replace('/', '.');
+    }
+
+    @Override
+    public String toString() {
+        return "ConstantPoolFilter" + annotationTypes + (subTypesFallback ? "+SubTypes" : "");
+    }
+
+    /** the names of a class file and of its super types, and whether it is relevant */
+    public static class ClassHeader {
+        private final boolean relevant;
+        private final boolean isInterface;
+        private final String className;
+        @Nullable private final String superclassName;
+        private final List<String> interfaceNames;
+
+        ClassHeader(final boolean relevant, final boolean isInterface, final String className,
+                    @Nullable final String superclassName, final List<String> interfaceNames) {
+            this.relevant = relevant;
+            this.isInterface = isInterface;
+            this.className = className;
+            this.superclassName = superclassName;
+            this.interfaceNames = interfaceNames;
+        }
+
+        /** true if the constant pool mentions one of the annotation types */
+        public boolean isRelevant() {
+            return relevant;
+        }
+
+        /** true if the class file is an interface, whose super class is {@code java.lang.Object} */
+        public boolean isInterface() {
+            return isInterface;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        @Nullable
+        public String getSuperclassName() {
+            return superclassName;
+        }
+
+        public List<String> getInterfaceNames() {
+            return interfaceNames;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.michaelhradek.aurkitu.reflections.ReflectionsException;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -54,6 +55,55 @@ public class FilterBuilder implements Predicate<String> {
 
     public static String prefix(String qualifiedName) {return qualifiedName.replace(".","\\.") + ".*";}
 
+    /**
+     * the name prefixes which anything this filter accepts starts with, as '.' separated names, if the filter includes
+     * only prefixes, such as those of {@link #prefix(String)} and {@link #includePackage(String...)}, and then may
+     * exclude anything. the prefixes can be pushed down to a {@link com.michaelhradek.aurkitu.reflections.vfs.Vfs.PrefixedDir}
+     * @return null if the filter may accept other names
+     */
+    @Nullable public List<String> getPrefixes() {
+        if (chain.isEmpty() || !(chain.get(0) instanceof Include)) {
+            return null;
+        }
+
+        List<String> prefixes = new ArrayList<String>();
+        for (Predicate<String> filter : chain) {
+            if (filter instanceof Include) {
+                String prefix = literalPrefix(((Include) filter).pattern.pattern());
+                if (prefix == null) {
+                    return null;
+                }
+                prefixes.add(prefix);
+            } else if (!(filter instanceof Exclude)) {
+                return null;
+            }
+        }
+        return prefixes;
+    }
+
+    /** the literal prefix of a regex such as {@code com\.foo.*}, or null if it is not one */
+    @Nullable private static String literalPrefix(String regex) {
+        if (!regex.endsWith(".*") || regex.length() == 2) {
+            return null;
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        String literal = regex.substring(0, regex.length() - 2);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '\\' && i + 1 < literal.length() && ".$".indexOf(literal.charAt(i + 1)) >= 0) {
+                prefix.append(literal.charAt(++i));
+            } else if (c == '/') {
+                prefix.append('.');
+            } else if ((Character.isJavaIdentifierPart(c) && c != '$') || c == '-') {
+                prefix.append(c);
+            } else {
+                return null;
+            }
+        }
+        return prefix.toString();
+    }
+
     @Override public String toString() {return Joiner.on(", ").join(chain);}
 
     public boolean apply(String regex) {
@@ -0,0 +1,84 @@
+package com.michaelhradek.aurkitu.reflections.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.michaelhradek.aurkitu.reflections.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.michaelhradek.aurkitu.reflections.Reflections.log;
+
+/**
+ * finds the direct super types of classes by reading their class files as resources of the given class loaders,
+ * without loading the classes. only the constant pool and the class header are parsed, and the super types of each
+ * class are read once.
+ * <p>the result is that of {@link ReflectionUtils#getSuperTypes(Class)} on the loaded class, by name
+ */
+public class SuperTypeResolver {
+    private static final ConstantPoolFilter HEADER_READER = new ConstantPoolFilter(Collections.<String>emptyList());
+
+    private final ClassLoader[] classLoaders;
+    private final Map<String, List<String>> superTypes = new ConcurrentHashMap<String, List<String>>();
+
+    public SuperTypeResolver(final ClassLoader... classLoaders) {
+        this.classLoaders = ClasspathHelper.classLoaders(classLoaders);
+    }
+
+    /**
+     * @return the names of the super class and interfaces of the given type, or an empty list if its class file
+     * cannot be found or read
+     */
+    public List<String> getSuperTypes(final String typeName) {
+        List<String> result = superTypes.get(typeName);
+        if (result == null) {
+            result = read(typeName);
+            superTypes.put(typeName, result);
+        }
+        return result;
+    }
+
+    private List<String> read(final String typeName) {
+        if (typeName.contains("[")) {
+            return ImmutableList.of();
+        }
+
+        String resource = typeName.replace('.', '/') + ".class";
+        for (ClassLoader classLoader : classLoaders) {
+            InputStream inputStream = classLoader.getResourceAsStream(resource);
+            if (inputStream == null) {
+                continue;
+            }
+
+            try {
+                ConstantPoolFilter.ClassHeader header = HEADER_READER.read(ByteBuffer.wrap(ByteStreams.toByteArray(inputStream)));
+                if (header == null) {
+                    continue;
+                }
+
+                ImmutableList.Builder<String> builder = ImmutableList.builder();
+                String superclassName = header.getSuperclassName();
+                // as Class.getSuperclass(), which is null for interfaces
+                if (superclassName != null && !header.isInterface() &&
+                        (ReflectionUtils.includeObject || !superclassName.equals(Object.class.getName()))) {
+                    builder.add(superclassName);
+                }
+                builder.addAll(header.getInterfaceNames());
+                return builder.build();
+            } catch (Exception e) {
+                if (log != null && log.isDebugEnabled()) {
+                    log.debug("could not read class file of {}", typeName, e);
+                }
+            } finally {
+                Utils.close(inputStream);
+            }
+        }
+
+        return ImmutableList.of();
+    }
+}
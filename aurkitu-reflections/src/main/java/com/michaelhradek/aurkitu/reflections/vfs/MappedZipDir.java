@@ -0,0 +1,313 @@
+package com.michaelhradek.aurkitu.reflections.vfs;
+
+import com.google.common.collect.Lists;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * an implementation of {@link Vfs.Dir} which memory maps a jar file and reads its central directory directly,
+ * without {@link java.util.zip.ZipFile}.
+ * <p>stored entries are handed out as views of the mapped file, deflated entries are inflated into a buffer
+ * which is reused from entry to entry. use {@link #open(java.io.File)}, which returns null for jars this reader
+ * does not handle (zip64, encrypted or otherwise compressed entries), so that {@link ZipDir} can be used instead.
+ * <p>files are created as they are listed, and given prefixes, the names of the central directory are matched
+ * against them as they are, so that nothing is created for the entries of other packages.
+ * <p>the mapping cannot be released on {@link #close()}, as files may still be views of it, but only once garbage
+ * collected; so it is only used if {@link com.michaelhradek.aurkitu.reflections.Configuration#shouldMemoryMapJars()}.
+ */
+public class MappedZipDir implements Vfs.PrefixedDir {
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int END_SIZE = 22;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_SIZE = 46;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_SIZE = 30;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final java.io.File file;
+    private final ByteBuffer buffer;
+    // the central directory records of the file entries
+    private int[] records = new int[16];
+    private int recordCount;
+    // inflaters and buffers not in use; entries may be read by several threads at once
+    private final Queue<Inflation> inflations = new ConcurrentLinkedQueue<Inflation>();
+    private volatile boolean closed;
+
+    private MappedZipDir(final java.io.File file, final ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return a dir over the given jar file, or null if the jar cannot be read without {@link java.util.zip.ZipFile}
+     */
+    @Nullable
+    public static MappedZipDir open(final java.io.File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        MappedByteBuffer mapped;
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (channel.size() < END_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+
+        MappedZipDir dir = new MappedZipDir(file, mapped.order(ByteOrder.LITTLE_ENDIAN));
+        return dir.readCentralDirectory() ? dir : null;
+    }
+
+    public String getPath() {
+        return file.getPath();
+    }
+
+    public Iterable<Vfs.File> getFiles() {
+        List<Vfs.File> files = Lists.newArrayListWithCapacity(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            files.add(file(records[i]));
+        }
+        return files;
+    }
+
+    public Iterable<Vfs.File> getFiles(final Collection<String> prefixes) {
+        List<byte[]> names = Lists.newArrayListWithCapacity(prefixes.size());
+        for (String prefix : prefixes) {
+            names.add(prefix.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Vfs.File> files = Lists.newArrayList();
+        for (int i = 0; i < recordCount; i++) {
+            if (matchesPrefix(records[i], names)) {
+                files.add(file(records[i]));
+            }
+        }
+        return files;
+    }
+
+    public void close() {
+        // the mapping is released once garbage collected, after the files handed out are
+        closed = true;
+        Inflation inflation;
+        while ((inflation = inflations.poll()) != null) {
+            inflation.inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.getPath();
+    }
+
+    private boolean readCentralDirectory() {
+        int end = findEnd();
+        if (end < 0) {
+            return false;
+        }
+
+        int disk = buffer.getShort(end + 4) & 0xffff;
+        int entries = buffer.getShort(end + 10) & 0xffff;
+        long size = buffer.getInt(end + 12) & 0xffffffffL;
+        long offset = buffer.getInt(end + 16) & 0xffffffffL;
+        if (disk != 0 || entries == 0xffff || offset == 0xffffffffL || offset + size > end) {
+            // spanned or zip64
+            return false;
+        }
+
+        int position = (int) offset;
+        for (int i = 0; i < entries; i++) {
+            if (position + CENTRAL_SIZE > end || buffer.getInt(position) != CENTRAL_SIGNATURE) {
+                return false;
+            }
+
+            int flags = buffer.getShort(position + 8) & 0xffff;
+            int method = buffer.getShort(position + 10) & 0xffff;
+            long compressedSize = buffer.getInt(position + 20) & 0xffffffffL;
+            long uncompressedSize = buffer.getInt(position + 24) & 0xffffffffL;
+            int nameLength = buffer.getShort(position + 28) & 0xffff;
+            int extraLength = buffer.getShort(position + 30) & 0xffff;
+            int commentLength = buffer.getShort(position + 32) & 0xffff;
+            long localOffset = buffer.getInt(position + 42) & 0xffffffffL;
+
+            int central = position;
+            position += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+            if (nameLength > 0 && buffer.get(central + CENTRAL_SIZE + nameLength - 1) == '/') {
+                continue;
+            }
+
+            if ((flags & 1) != 0 || (method != STORED && method != DEFLATED) ||
+                    uncompressedSize > Integer.MAX_VALUE || localOffset + LOCAL_SIZE > offset) {
+                // encrypted, otherwise compressed or zip64 entries
+                return false;
+            }
+
+            int local = (int) localOffset;
+            if (buffer.getInt(local) != LOCAL_SIGNATURE) {
+                return false;
+            }
+            long data = localOffset + LOCAL_SIZE + (buffer.getShort(local + 26) & 0xffff) + (buffer.getShort(local + 28) & 0xffff);
+            if (data + compressedSize > offset) {
+                return false;
+            }
+
+            if (recordCount == records.length) {
+                records = Arrays.copyOf(records, recordCount * 2);
+            }
+            records[recordCount++] = central;
+        }
+
+        return true;
+    }
+
+    /** creates the file of a central directory record, which was checked by {@link #readCentralDirectory()} */
+    private MappedZipFile file(final int central) {
+        int method = buffer.getShort(central + 10) & 0xffff;
+        int compressedSize = buffer.getInt(central + 20);
+        int uncompressedSize = buffer.getInt(central + 24);
+        int nameLength = buffer.getShort(central + 28) & 0xffff;
+        int local = buffer.getInt(central + 42);
+        int data = local + LOCAL_SIZE + (buffer.getShort(local + 26) & 0xffff) + (buffer.getShort(local + 28) & 0xffff);
+        return new MappedZipFile(this, string(central + CENTRAL_SIZE, nameLength), method == DEFLATED,
+                data, compressedSize, uncompressedSize);
+    }
+
+    /** matches the name of a central directory record as {@link Vfs#matchesPrefix}, byte by byte */
+    private boolean matchesPrefix(final int central, final List<byte[]> prefixes) {
+        int nameLength = buffer.getShort(central + 28) & 0xffff;
+        int name = central + CENTRAL_SIZE;
+        for (byte[] prefix : prefixes) {
+            if (nameLength < prefix.length) {
+                continue;
+            }
+
+            int i = 0;
+            while (i < prefix.length) {
+                byte b = buffer.get(name + i);
+                if (b != prefix[i] && (b != '/' || prefix[i] != '.')) {
+                    break;
+                }
+                i++;
+            }
+            if (i == prefix.length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int findEnd() {
+        // the end record is followed by a comment of up to 64k
+        int last = buffer.capacity() - END_SIZE;
+        int first = Math.max(0, last - 0xffff);
+        for (int position = last; position >= first; position--) {
+            if (buffer.getInt(position) == END_SIGNATURE &&
+                    position + END_SIZE + (buffer.getShort(position + 20) & 0xffff) == buffer.capacity()) {
+                return position;
+            }
+        }
+
+        return -1;
+    }
+
+    private String string(final int position, final int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** a read only view of the mapped file */
+    ByteBuffer stored(final int position, final int size) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.limit(position + size);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    /** takes a free inflater and buffers, which are reused once given back with {@link #release(Inflation)} */
+    Inflation acquire() {
+        Inflation inflation = inflations.poll();
+        return inflation != null ? inflation : new Inflation();
+    }
+
+    void release(final Inflation inflation) {
+        inflations.offer(inflation);
+        if (closed && inflations.remove(inflation)) {
+            inflation.inflater.end();
+        }
+    }
+
+    /**
+     * inflates an entry using the given inflation
+     * @param reuse if true, the result is the output buffer of the inflation, which may be longer than the entry
+     */
+    byte[] inflate(final Inflation inflation, final int position, final int compressedSize, final int size,
+                   final boolean reuse) throws IOException {
+        byte[] result;
+        if (reuse) {
+            if (inflation.output.length < size) {
+                inflation.output = new byte[size];
+            }
+            result = inflation.output;
+        } else {
+            result = new byte[size];
+        }
+
+        // the inflater needs an extra dummy byte after raw deflate data
+        if (inflation.input.length < compressedSize + 1) {
+            inflation.input = new byte[compressedSize + 1];
+        }
+        byte[] input = inflation.input;
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(input, 0, compressedSize);
+        input[compressedSize] = 0;
+
+        Inflater inflater = inflation.inflater;
+        inflater.reset();
+        try {
+            inflater.setInput(input, 0, compressedSize + 1);
+            int inflated = 0;
+            while (inflated < size) {
+                int count = inflater.inflate(result, inflated, size - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != size) {
+                throw new IOException("could not inflate " + size + " bytes at " + position + " of " + file);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("could not inflate entry at " + position + " of " + file, e);
+        }
+
+        return result;
+    }
+
+    /** an inflater and its buffers, used by one thread at a time */
+    static class Inflation {
+        private final Inflater inflater = new Inflater(true);
+        private byte[] input = new byte[0];
+        private byte[] output = new byte[0];
+    }
+}
@@ -0,0 +1,123 @@
+package com.michaelhradek.aurkitu.reflections.vfs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * an implementation of {@link Vfs.File} for an entry of a {@link MappedZipDir}
+ */
+public class MappedZipFile implements Vfs.File {
+    private final MappedZipDir root;
+    private final String name;
+    private final boolean deflated;
+    private final int position;
+    private final int compressedSize;
+    private final int size;
+
+    MappedZipFile(final MappedZipDir root, final String name, final boolean deflated,
+                  final int position, final int compressedSize, final int size) {
+        this.root = root;
+        this.name = name;
+        this.deflated = deflated;
+        this.position = position;
+        this.compressedSize = compressedSize;
+        this.size = size;
+    }
+
+    public String getName() {
+        return name.substring(name.lastIndexOf("/") + 1);
+    }
+
+    public String getRelativePath() {
+        return name;
+    }
+
+    /**
+     * @return the content of the entry; a read only view of the mapped jar if the entry is stored
+     */
+    public ByteBuffer getContent() throws IOException {
+        if (!deflated) {
+            return root.stored(position, size);
+        }
+
+        MappedZipDir.Inflation inflation = root.acquire();
+        try {
+            return ByteBuffer.wrap(root.inflate(inflation, position, compressedSize, size, false));
+        } finally {
+            root.release(inflation);
+        }
+    }
+
+    /**
+     * the stream reads a deflated entry from a buffer which is reused by the next entry once the stream is closed
+     */
+    public InputStream openInputStream() throws IOException {
+        if (!deflated) {
+            return new ByteBufferInputStream(root.stored(position, size), null);
+        }
+
+        MappedZipDir.Inflation inflation = root.acquire();
+        try {
+            byte[] bytes = root.inflate(inflation, position, compressedSize, size, true);
+            return new ByteBufferInputStream(ByteBuffer.wrap(bytes, 0, size), inflation);
+        } catch (IOException e) {
+            root.release(inflation);
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return root.getPath() + "!" + java.io.File.separatorChar + name;
+    }
+
+    private class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+        private MappedZipDir.Inflation inflation;
+
+        private ByteBufferInputStream(final ByteBuffer buffer, final MappedZipDir.Inflation inflation) {
+            this.buffer = buffer;
+            this.inflation = inflation;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public void close() {
+            if (inflation != null) {
+                root.release(inflation);
+                inflation = null;
+            }
+        }
+    }
+}
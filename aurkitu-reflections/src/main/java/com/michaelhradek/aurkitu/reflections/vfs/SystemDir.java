@@ -1,18 +1,24 @@
 package com.michaelhradek.aurkitu.reflections.vfs;
 
-import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
 
+import javax.annotation.Nullable;
 import java.io.File;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Stack;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 /*
  * An implementation of {@link Vfs.Dir} for directory {@link java.io.File}.
+ * The tree is walked with nio, and can be walked by several threads, see {@link #getFiles(ForkJoinPool, Collection)}.
+ * Given prefixes, only the directories which may contain matching files are walked.
  */
-public class SystemDir implements Vfs.Dir {
+public class SystemDir implements Vfs.PrefixedDir {
     private final File file;
 
     public SystemDir(File file) {
@@ -31,39 +37,95 @@ public class SystemDir implements Vfs.Dir {
     }
 
     public Iterable<Vfs.File> getFiles() {
+        return getFiles((Collection<String>) null);
+    }
+
+    public Iterable<Vfs.File> getFiles(@Nullable final Collection<String> prefixes) {
         if (file == null || !file.exists()) {
             return Collections.emptyList();
         }
         return new Iterable<Vfs.File>() {
             public Iterator<Vfs.File> iterator() {
-                return new AbstractIterator<Vfs.File>() {
-                    final Stack<File> stack = new Stack<File>();
-                    {stack.addAll(listFiles(file));}
-
-                    protected Vfs.File computeNext() {
-                        while (!stack.isEmpty()) {
-                            final File file = stack.pop();
-                            if (file.isDirectory()) {
-                                stack.addAll(listFiles(file));
-                            } else {
-                                return new SystemFile(SystemDir.this, file);
-                            }
-                        }
+                final List<Vfs.File> files = Lists.newArrayList();
+                final Path root = file.toPath();
+                try {
+                    Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                            new SimpleFileVisitor<Path>() {
+                                @Override
+                                public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attributes) {
+                                    if (prefixes != null && !path.equals(root) &&
+                                            !Vfs.matchesPrefix(relativePath(root, path) + "/", prefixes, true)) {
+                                        return FileVisitResult.SKIP_SUBTREE;
+                                    }
+                                    return FileVisitResult.CONTINUE;
+                                }
 
-                        return endOfData();
-                    }
-                };
+                                @Override
+                                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+                                    if (!attributes.isDirectory()) {
+                                        String relativePath = relativePath(root, path);
+                                        if (prefixes == null || Vfs.matchesPrefix(relativePath, prefixes, false)) {
+                                            files.add(new SystemFile(SystemDir.this, path.toFile(), relativePath));
+                                        }
+                                    }
+                                    return FileVisitResult.CONTINUE;
+                                }
+
+                                @Override
+                                public FileVisitResult visitFileFailed(Path path, IOException e) {
+                                    // unreadable files and directories, and link cycles, are skipped
+                                    return FileVisitResult.CONTINUE;
+                                }
+                            });
+                } catch (IOException e) {
+                    throw new RuntimeException("could not walk dir " + file, e);
+                }
+                return files.iterator();
             }
         };
     }
 
-    private static List<File> listFiles(final File file) {
-        File[] files = file.listFiles();
+    /**
+     * lists the files of the tree with the threads of the given pool, each directory being listed by a task of its own
+     * @return the same files as {@link #getFiles()}, in no particular order
+     */
+    public List<Vfs.File> getFiles(final ForkJoinPool pool) {
+        return getFiles(pool, null);
+    }
+
+    /**
+     * lists the files of the tree with the threads of the given pool, walking only the directories which may contain
+     * files under the given prefixes, if any
+     * @return the same files as {@link #getFiles(Collection)}, in no particular order
+     */
+    public List<Vfs.File> getFiles(final ForkJoinPool pool, @Nullable final Collection<String> prefixes) {
+        if (file == null || !file.exists()) {
+            return Collections.emptyList();
+        }
+
+        Set<Object> visited = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+        try {
+            visited.add(key(file.toPath(), Files.readAttributes(file.toPath(), BasicFileAttributes.class)));
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        ListTask task = new ListTask(file.toPath(), "", visited, prefixes);
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    private static String relativePath(final Path root, final Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
 
-        if (files != null)
-            return Lists.newArrayList(files);
-        else
-            return Lists.newArrayList();
+    private static Object key(final Path path, final BasicFileAttributes attributes) {
+        if (attributes.fileKey() != null) {
+            return attributes.fileKey();
+        }
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path;
+        }
     }
 
     public void close() {
@@ -73,4 +135,62 @@ public class SystemDir implements Vfs.Dir {
     public String toString() {
         return getPath();
     }
+
+    /** lists one directory, forking a task for each of its sub directories */
+    private class ListTask extends RecursiveTask<List<Vfs.File>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final String relativePath;
+        private final Set<Object> visited;
+        @Nullable private final Collection<String> prefixes;
+
+        ListTask(final Path directory, final String relativePath, final Set<Object> visited,
+                 @Nullable final Collection<String> prefixes) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+            this.visited = visited;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        protected List<Vfs.File> compute() {
+            List<Vfs.File> files = Lists.newArrayList();
+            List<ListTask> subdirectories = Lists.newArrayList();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(directory);
+                try {
+                    for (Path path : stream) {
+                        BasicFileAttributes attributes;
+                        try {
+                            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        } catch (IOException e) {
+                            continue;
+                        }
+
+                        String name = relativePath + path.getFileName().toString();
+                        if (!attributes.isDirectory()) {
+                            if (prefixes == null || Vfs.matchesPrefix(name, prefixes, false)) {
+                                files.add(new SystemFile(SystemDir.this, path.toFile(), name));
+                            }
+                        } else if ((prefixes == null || Vfs.matchesPrefix(name + "/", prefixes, true)) &&
+                                visited.add(key(path, attributes))) {
+                            // linked directories are listed once
+                            subdirectories.add(new ListTask(path, name + "/", visited, prefixes));
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                // unreadable directories are skipped
+                return files;
+            }
+
+            for (ListTask task : invokeAll(subdirectories)) {
+                files.addAll(task.join());
+            }
+            return files;
+        }
+    }
 }
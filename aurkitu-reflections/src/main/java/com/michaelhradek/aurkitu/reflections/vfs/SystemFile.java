@@ -10,10 +10,16 @@ import java.io.InputStream;
 public class SystemFile implements Vfs.File {
     private final SystemDir root;
     private final java.io.File file;
+    private final String relativePath;
 
     public SystemFile(final SystemDir root, java.io.File file) {
+        this(root, file, null);
+    }
+
+    SystemFile(final SystemDir root, java.io.File file, String relativePath) {
         this.root = root;
         this.file = file;
+        this.relativePath = relativePath;
     }
 
     public String getName() {
@@ -21,6 +27,10 @@ public class SystemFile implements Vfs.File {
     }
 
     public String getRelativePath() {
+        if (relativePath != null) {
+            return relativePath;
+        }
+
         String filepath = file.getPath().replace("\\", "/");
         if (filepath.startsWith(root.getPath())) {
             return filepath.substring(root.getPath().length() + 1);
@@ -60,6 +60,19 @@ public abstract class Vfs {
         void close();
     }
 
+    /**
+     * a dir which lists only the files under given name prefixes, such as the package prefixes of
+     * {@link com.michaelhradek.aurkitu.reflections.util.FilterBuilder#getPrefixes()}, without going through the others
+     * where it can
+     */
+    public interface PrefixedDir extends Dir {
+        /**
+         * @return the files whose relative path, with '/' read as '.', starts with one of the given prefixes.
+         * it may include other files, which are to be filtered anyway
+         */
+        Iterable<File> getFiles(Collection<String> prefixes);
+    }
+
     /** an abstract vfs file */
     public interface File {
         String getName();
@@ -162,6 +175,29 @@ public abstract class Vfs {
         return result;
     }
 
+    /**
+     * true if the given relative path, with '/' read as '.', starts with one of the given prefixes, or, if
+     * {@code directory}, if one of the prefixes starts with it; that is if files under the directory may match
+     */
+    static boolean matchesPrefix(final String path, final Collection<String> prefixes, final boolean directory) {
+        for (String prefix : prefixes) {
+            int length = directory ? Math.min(path.length(), prefix.length()) : prefix.length();
+            if (path.length() < length) {
+                continue;
+            }
+
+            int i = 0;
+            while (i < length && (path.charAt(i) == prefix.charAt(i) || (path.charAt(i) == '/' && prefix.charAt(i) == '.'))) {
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**try to get {@link java.io.File} from url*/
     public static @Nullable java.io.File getFile(URL url) {
         java.io.File file;
@@ -203,6 +239,26 @@ public abstract class Vfs {
 		return url.toExternalForm().matches(".*\\.jar(\\!.*|$)");
     }
 
+    /**
+     * creates a {@link MappedZipDir} over a jar file, and leaves urls pointing into a jar, and jars it cannot read,
+     * to the url types after it. not a default url type, see
+     * {@link com.michaelhradek.aurkitu.reflections.Configuration#shouldMemoryMapJars()}
+     */
+    public static final UrlType mappedJarFile = new UrlType() {
+        public boolean matches(URL url) {
+            return url.getProtocol().equals("file") && hasJarFileInPath(url) && !url.toExternalForm().contains("!");
+        }
+
+        public Dir createDir(URL url) throws Exception {
+            return MappedZipDir.open(getFile(url));
+        }
+
+        @Override
+        public String toString() {
+            return "mappedJarFile";
+        }
+    };
+
     /** default url types used by {@link Vfs#fromURL(java.net.URL)}
      * <p>
      * <p>jarFile - creates a {@link ZipDir} over jar file
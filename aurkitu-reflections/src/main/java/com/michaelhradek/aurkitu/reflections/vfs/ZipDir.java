@@ -3,7 +3,9 @@ package com.michaelhradek.aurkitu.reflections.vfs;
 import com.google.common.collect.AbstractIterator;
 import com.michaelhradek.aurkitu.reflections.Reflections;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.jar.JarFile;
@@ -12,7 +14,7 @@ import java.util.zip.ZipEntry;
 /**
  * an implementation of {@link Vfs.Dir} for {@link java.util.zip.ZipFile}
  */
-public class ZipDir implements Vfs.Dir {
+public class ZipDir implements Vfs.PrefixedDir {
     final java.util.zip.ZipFile jarFile;
 
     public ZipDir(JarFile jarFile) {
@@ -24,6 +26,11 @@ public class ZipDir implements Vfs.Dir {
     }
 
     public Iterable<Vfs.File> getFiles() {
+        return getFiles(null);
+    }
+
+    /** entries not under the given prefixes are passed over without creating files for them */
+    public Iterable<Vfs.File> getFiles(@Nullable final Collection<String> prefixes) {
         return new Iterable<Vfs.File>() {
             public Iterator<Vfs.File> iterator() {
                 return new AbstractIterator<Vfs.File>() {
@@ -32,7 +39,8 @@ public class ZipDir implements Vfs.Dir {
                     protected Vfs.File computeNext() {
                         while (entries.hasMoreElements()) {
                             ZipEntry entry = entries.nextElement();
-                            if (!entry.isDirectory()) {
+                            if (!entry.isDirectory() &&
+                                    (prefixes == null || Vfs.matchesPrefix(entry.getName(), prefixes, false))) {
                                 return new ZipFile(ZipDir.this, entry);
                             }
                         }
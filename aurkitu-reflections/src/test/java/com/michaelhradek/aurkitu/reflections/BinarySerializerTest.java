@@ -0,0 +1,103 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.io.Files;
+import com.michaelhradek.aurkitu.reflections.scanners.*;
+import com.michaelhradek.aurkitu.reflections.serializers.BinarySerializer;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.michaelhradek.aurkitu.reflections.ReflectionsTest.TestModelFilter;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class BinarySerializerTest {
+    private static Reflections reflections;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void init() {
+        reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(
+                        new SubTypesScanner(false),
+                        new TypeAnnotationsScanner(),
+                        new FieldAnnotationsScanner(),
+                        new MethodAnnotationsScanner(),
+                        new MethodParameterScanner()));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        File file = new BinarySerializer().save(reflections, new File(folder.getRoot(), "test.bin").getPath());
+        Reflections mapped = new BinarySerializer().read(file);
+        assertStoreEquals(reflections.getStore(), mapped.getStore());
+
+        // queries run against the mapped file
+        assertEquals(reflections.getSubTypesOf(TestModel.I1.class), mapped.getSubTypesOf(TestModel.I1.class));
+        assertEquals(reflections.getTypesAnnotatedWith(TestModel.AC1.class), mapped.getTypesAnnotatedWith(TestModel.AC1.class));
+        assertEquals(reflections.getFieldsAnnotatedWith(TestModel.AF1.class), mapped.getFieldsAnnotatedWith(TestModel.AF1.class));
+        assertTrue(mapped.getStore().get(Utils.index(SubTypesScanner.class)).get("no.such.Type").isEmpty());
+
+        // and can be collected into another instance
+        Reflections collected = new Reflections(new ConfigurationBuilder().setSerializer(new BinarySerializer()));
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            collected.collect(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        assertStoreEquals(reflections.getStore(), collected.getStore());
+    }
+
+    @Test
+    public void testStream() {
+        BinarySerializer serializer = new BinarySerializer();
+        byte[] bytes = serializer.toString(reflections).getBytes(StandardCharsets.ISO_8859_1);
+        assertStoreEquals(reflections.getStore(), serializer.read(new ByteArrayInputStream(bytes)).getStore());
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException {
+        File file = folder.newFile("corrupt.bin");
+        Files.write(new byte[] {0, 1, 2, 3, 4, 5, 6, 7}, file);
+        try {
+            new BinarySerializer().read(file);
+            fail();
+        } catch (ReflectionsException expected) {
+        }
+
+        byte[] bytes = new BinarySerializer().toString(reflections).getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(Arrays.copyOf(bytes, bytes.length / 2), file);
+        try {
+            new BinarySerializer().read(file);
+            fail();
+        } catch (ReflectionsException expected) {
+        }
+    }
+
+    private static void assertStoreEquals(Store expected, Store actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String index : expected.keySet()) {
+            assertEquals(HashMultimap.create(expected.get(index)), HashMultimap.create(actual.get(index)));
+        }
+    }
+}
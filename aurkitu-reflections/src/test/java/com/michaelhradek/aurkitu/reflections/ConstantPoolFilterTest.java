@@ -0,0 +1,95 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.Sets;
+import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
+import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.ConstantPoolFilter;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.michaelhradek.aurkitu.reflections.ReflectionsTest.TestModelFilter;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ConstantPoolFilterTest {
+
+    @Test
+    public void testReadHeader() {
+        ConstantPoolFilter filter = ConstantPoolFilter.forAnnotations(TestModel.AC1.class);
+
+        ConstantPoolFilter.ClassHeader header = filter.read(classFile(TestModel.C1.class));
+        assertNotNull(header);
+        assertTrue(header.isRelevant());
+        assertEquals(TestModel.C1.class.getName(), header.getClassName());
+        assertEquals(Object.class.getName(), header.getSuperclassName());
+        assertEquals(Collections.singletonList(TestModel.I2.class.getName()), header.getInterfaceNames());
+
+        header = filter.read(classFile(TestModel.C2.class));
+        assertNotNull(header);
+        assertFalse(header.isRelevant());
+        assertEquals(TestModel.C1.class.getName(), header.getSuperclassName());
+        assertTrue(header.getInterfaceNames().isEmpty());
+
+        // fields, methods and parameters mention their annotations as well
+        assertTrue(ConstantPoolFilter.forAnnotations(TestModel.AM1.class).read(classFile(TestModel.C4.class)).isRelevant());
+        assertTrue(ConstantPoolFilter.forAnnotations(TestModel.AF1.class).read(classFile(TestModel.C4.class)).isRelevant());
+    }
+
+    @Test
+    public void testFilteredScan() {
+        Reflections all = scan(null);
+        Reflections filtered = scan(ConstantPoolFilter.forAnnotations(TestModel.AC1.class));
+
+        assertEquals(all.getTypeNamesAnnotatedWith(TestModel.AC1.class), filtered.getTypeNamesAnnotatedWith(TestModel.AC1.class));
+        assertEquals(Sets.newHashSet(TestModel.C1.class, TestModel.C2.class, TestModel.C3.class, TestModel.C5.class),
+                filtered.getTypesAnnotatedWith(TestModel.AC1.class, true));
+
+        // sub types are still known for every class
+        assertEquals(all.getSubTypesOf(TestModel.I1.class), filtered.getSubTypesOf(TestModel.I1.class));
+
+        // other annotations are not
+        assertFalse(all.getTypesAnnotatedWith(TestModel.AC2.class).isEmpty());
+        assertTrue(filtered.getTypesAnnotatedWith(TestModel.AC2.class).isEmpty());
+    }
+
+    @Test
+    public void testFilteredScanWithoutSubTypes() {
+        Reflections filtered = scan(ConstantPoolFilter.forAnnotations(TestModel.AC1.class).setSubTypesFallback(false));
+
+        assertEquals(Sets.newHashSet(TestModel.C1.class), filtered.getTypesAnnotatedWith(TestModel.AC1.class, true));
+        // classes which are not relevant are not scanned at all
+        assertTrue(filtered.getSubTypesOf(TestModel.C1.class).isEmpty());
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("ConstantPoolFilter[a.A, b.B]+SubTypes", new ConstantPoolFilter(Arrays.asList("b.B", "a.A")).toString());
+        assertEquals("ConstantPoolFilter[a.A]", new ConstantPoolFilter(asList("a.A")).setSubTypesFallback(false).toString());
+    }
+
+    private static Reflections scan(ConstantPoolFilter filter) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(new SubTypesScanner(false), new TypeAnnotationsScanner())
+                .setConstantPoolFilter(filter));
+    }
+
+    private static Vfs.File classFile(Class<?> type) {
+        String path = type.getName().replace('.', '/') + ".class";
+        for (Vfs.File file : Vfs.fromURL(ClasspathHelper.forClass(type)).getFiles()) {
+            if (file.getRelativePath().equals(path)) {
+                return file;
+            }
+        }
+        throw new AssertionError("no class file for " + type);
+    }
+}
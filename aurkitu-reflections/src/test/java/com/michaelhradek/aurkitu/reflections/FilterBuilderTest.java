@@ -3,7 +3,11 @@ package com.michaelhradek.aurkitu.reflections;
 import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -160,4 +164,24 @@ public class FilterBuilderTest {
         assertFalse(filter.apply("com.michaelhradek.aurkitu.foobar.Reflections"));
     }
 
+    @Test
+    public void test_prefixes() {
+        assertEquals(Arrays.asList("com.michaelhradek.aurkitu.reflections.", "org.foo"),
+                new FilterBuilder().includePackage("com.michaelhradek.aurkitu.reflections.")
+                        .include(FilterBuilder.prefix("org.foo"))
+                        .excludePackage("org.foo.bar").getPrefixes());
+        assertEquals(Arrays.asList("com.michaelhradek.aurkitu.reflections.TestModel$"),
+                new FilterBuilder().include("com\\.michaelhradek\\.aurkitu\\.reflections\\.TestModel\\$.*").getPrefixes());
+        assertEquals(Arrays.asList("com.michaelhradek."),
+                FilterBuilder.parsePackages("+com.michaelhradek, -com.michaelhradek.foo").getPrefixes());
+
+        // filters which may accept names under other prefixes
+        assertNull(new FilterBuilder().getPrefixes());
+        assertNull(new FilterBuilder().excludePackage("java").getPrefixes());
+        assertNull(new FilterBuilder().include(".*").getPrefixes());
+        assertNull(new FilterBuilder().include("com.michaelhradek.*").getPrefixes());
+        assertNull(new FilterBuilder().include("com\\.michaelhradek\\.(a|b).*").getPrefixes());
+        assertNull(new FilterBuilder().includePackage("com.michaelhradek").include(".*\\.xml").getPrefixes());
+        assertNull(new FilterBuilder().includePackage("com.michaelhradek").add(new FilterBuilder()).getPrefixes());
+    }
 }
@@ -0,0 +1,132 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.io.ByteStreams;
+import com.michaelhradek.aurkitu.reflections.adapters.ClassFileAdapter;
+import com.michaelhradek.aurkitu.reflections.adapters.JavassistAdapter;
+import com.michaelhradek.aurkitu.reflections.adapters.MetadataAdapter;
+import com.michaelhradek.aurkitu.reflections.scanners.*;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/** */
+public class ReflectionsClassFileAdapterTest extends ReflectionsTest {
+
+    @BeforeClass
+    public static void init() {
+        reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(
+                        new SubTypesScanner(false),
+                        new TypeAnnotationsScanner(),
+                        new FieldAnnotationsScanner(),
+                        new MethodAnnotationsScanner(),
+                        new MethodParameterScanner())
+                .setMetadataAdapter(new ClassFileAdapter()));
+
+        // these read method bodies, which the adapter skips
+        reflections.merge(new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(
+                        new MethodParameterNamesScanner(),
+                        new MemberUsageScanner())));
+    }
+
+    @Test
+    public void testSameStoreAsJavassist() {
+        // a jar with many kinds of members and annotations
+        URL url = ClasspathHelper.forClass(Test.class);
+        Reflections javassist = scanJunit(url, new JavassistAdapter());
+        Reflections classFile = scanJunit(url, new ClassFileAdapter());
+
+        assertEquals(javassist.getStore().keySet(), classFile.getStore().keySet());
+        assertFalse(javassist.getStore().get(Utils.index(MethodAnnotationsScanner.class)).isEmpty());
+        for (String index : javassist.getStore().keySet()) {
+            assertEquals(index, HashMultimap.create(javassist.getStore().get(index)),
+                    HashMultimap.create(classFile.getStore().get(index)));
+        }
+    }
+
+    @Test
+    public void testParameterAndReturnTypeNames() throws Exception {
+        ClassFileAdapter adapter = new ClassFileAdapter();
+        ClassFileAdapter.ClassMetadata cls = adapter.getOrCreateClassObject(classFile(TestModel.C4.class));
+        assertEquals(TestModel.C4.class.getName(), adapter.getClassName(cls));
+        assertEquals(Object.class.getName(), adapter.getSuperclassName(cls));
+
+        for (ClassFileAdapter.MethodMetadata method : adapter.getMethods(cls)) {
+            if (adapter.getMethodName(method).equals("m1") && adapter.getParameterNames(method).contains("int[][]")) {
+                assertEquals(asList("int[][]", "java.lang.String[][]"), adapter.getParameterNames(method));
+                assertEquals("void", adapter.getReturnTypeName(method));
+                assertEquals(TestModel.C4.class.getName() + ".m1(int[][], java.lang.String[][])",
+                        adapter.getMethodFullKey(cls, method));
+                return;
+            }
+        }
+        fail();
+    }
+
+    @Test(expected = ReflectionsException.class)
+    public void testTruncatedClassFile() throws Exception {
+        InputStream inputStream = classFile(TestModel.C4.class).openInputStream();
+        final byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+
+        new ClassFileAdapter().getOrCreateClassObject(new Vfs.File() {
+            public String getName() {
+                return "C4.class";
+            }
+
+            public String getRelativePath() {
+                return getName();
+            }
+
+            public InputStream openInputStream() {
+                return new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length / 2));
+            }
+        });
+    }
+
+    private static Vfs.File classFile(Class<?> type) {
+        String path = type.getName().replace('.', '/') + ".class";
+        for (Vfs.File file : Vfs.fromURL(ClasspathHelper.forClass(type)).getFiles()) {
+            if (file.getRelativePath().equals(path)) {
+                return file;
+            }
+        }
+        throw new AssertionError("no class file for " + type);
+    }
+
+    private static Reflections scanJunit(URL url, MetadataAdapter adapter) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(url)
+                .filterInputsBy(new FilterBuilder().includePackage("org.junit"))
+                .setScanners(
+                        new SubTypesScanner(false),
+                        new TypeAnnotationsScanner(),
+                        new FieldAnnotationsScanner(),
+                        new MethodAnnotationsScanner(),
+                        new MethodParameterScanner())
+                .setMetadataAdapter(adapter)
+                .setExpandSuperTypes(false));
+    }
+}
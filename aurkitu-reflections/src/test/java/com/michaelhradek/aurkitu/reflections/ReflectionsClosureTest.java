@@ -0,0 +1,84 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.michaelhradek.aurkitu.reflections.scanners.*;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/** */
+public class ReflectionsClosureTest extends ReflectionsTest {
+
+    @BeforeClass
+    public static void init() {
+        reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(
+                        new SubTypesScanner(false),
+                        new TypeAnnotationsScanner(),
+                        new FieldAnnotationsScanner(),
+                        new MethodAnnotationsScanner(),
+                        new MethodParameterScanner(),
+                        new MethodParameterNamesScanner(),
+                        new MemberUsageScanner())
+                .setComputeTransitiveClosure(true));
+    }
+
+    @Test
+    public void testSameAsRecursive() {
+        Reflections recursive = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(new SubTypesScanner(false), new TypeAnnotationsScanner()));
+
+        for (String index : asList(Utils.index(SubTypesScanner.class), Utils.index(TypeAnnotationsScanner.class))) {
+            Multimap<String, String> mmap = recursive.getStore().get(index);
+            assertFalse(mmap.isEmpty());
+            for (String key : mmap.keySet()) {
+                assertEquals(key, Sets.newHashSet(recursive.getStore().getAll(index, key)),
+                        Sets.newHashSet(reflections.getStore().getAll(index, key)));
+            }
+            assertEquals(Sets.newHashSet(recursive.getStore().getAll(index, mmap.keySet())),
+                    Sets.newHashSet(reflections.getStore().getAll(index, mmap.keySet())));
+        }
+    }
+
+    @Test
+    public void testStaleClosure() {
+        Store store = new Store();
+        store.getOrCreate("index").put("a", "b");
+        store.getOrCreate("index").put("b", "c");
+        store.computeTransitiveClosure("index");
+        assertEquals(Sets.newHashSet("b", "c"), Sets.newHashSet(store.getAll("index", "a")));
+
+        store.getOrCreate("index").put("c", "d");
+        assertEquals(Sets.newHashSet("b", "c", "d"), Sets.newHashSet(store.getAll("index", "a")));
+    }
+
+    @Test
+    public void testCyclicIndex() {
+        Store store = new Store();
+        store.getOrCreate("index").put("a", "b");
+        store.getOrCreate("index").put("b", "c");
+        store.getOrCreate("index").put("c", "a");
+        store.getOrCreate("index").put("c", "d");
+        store.getOrCreate("index").put("x", "a");
+        store.computeTransitiveClosure("index");
+
+        List<String> all = (List<String>) store.getAll("index", "b");
+        assertEquals(4, all.size());
+        assertEquals(Sets.newHashSet("a", "b", "c", "d"), Sets.newHashSet(all));
+        assertEquals(Sets.newHashSet("a", "b", "c", "d"), Sets.newHashSet(store.getAll("index", "x")));
+        assertEquals(Sets.newHashSet("a", "b", "c", "d"), Sets.newHashSet(store.getAll("index", asList("a", "x"))));
+        assertFalse(store.getAll("index", "d").iterator().hasNext());
+    }
+}
@@ -0,0 +1,87 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.michaelhradek.aurkitu.reflections.scanners.*;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/** */
+public class ReflectionsCompactTest extends ReflectionsTest {
+
+    @BeforeClass
+    public static void init() {
+        reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .setScanners(
+                        new SubTypesScanner(false),
+                        new TypeAnnotationsScanner(),
+                        new FieldAnnotationsScanner(),
+                        new MethodAnnotationsScanner(),
+                        new MethodParameterScanner(),
+                        new MethodParameterNamesScanner(),
+                        new MemberUsageScanner())
+                .setCompactStore(true));
+    }
+
+    @Test
+    public void testCompactMultimap() {
+        Multimap<String, String> source = HashMultimap.create();
+        source.put("b", "x");
+        source.put("b", "y");
+        source.put("a", "y");
+        source.put("c", "b");
+
+        CompactMultimap compact = new CompactMultimap(new SymbolTable(), source);
+        assertEquals(source, compact);
+        assertEquals(compact, source);
+        assertEquals(source.hashCode(), compact.hashCode());
+        assertEquals(source.entries(), compact.entries());
+        assertEquals(source.keys(), compact.keys());
+        assertEquals(4, compact.size());
+        assertEquals(4, compact.values().size());
+
+        assertTrue(compact.containsEntry("b", "y"));
+        assertFalse(compact.containsEntry("a", "x"));
+        assertFalse(compact.containsEntry("x", "y"));
+        assertTrue(compact.containsValue("b"));
+        assertFalse(compact.containsKey("y"));
+        assertFalse(compact.containsKey("z"));
+        assertTrue(compact.get("z").isEmpty());
+
+        try {
+            compact.put("a", "x");
+            fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testSymbolTable() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, symbols.intern("name" + i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, symbols.intern("name" + i));
+            assertEquals(i, symbols.find("name" + i));
+            assertEquals("name" + i, symbols.name(i));
+        }
+        assertEquals(10000, symbols.size());
+        assertEquals(-1, symbols.find("other"));
+        assertEquals(-1, symbols.find(1));
+    }
+
+    @Test
+    public void testStoreIsCompacted() {
+        for (String index : reflections.getStore().keySet()) {
+            assertTrue(reflections.getStore().get(index) instanceof CompactMultimap);
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package com.michaelhradek.aurkitu.reflections;
 
+import com.google.common.collect.Sets;
+import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
 import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.SuperTypeResolver;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
 import junit.framework.Assert;
 import org.junit.Test;
 
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
 
 public class ReflectionsExpandSupertypesTest {
@@ -36,6 +48,45 @@ public class ReflectionsExpandSupertypesTest {
         Assert.assertFalse(subTypesOf1.contains(TestModel.B.class));
     }
 
+    @Test
+    public void testExpandSupertypesWithoutLoadingClasses() throws Exception {
+        URL url = ClasspathHelper.forClass(TestModel.ScannedScope.C.class);
+        TrackingClassLoader classLoader = new TrackingClassLoader(url);
+        Reflections refExpand = new Reflections(new ConfigurationBuilder().
+                setUrls(url).
+                filterInputsBy(inputsFilter).
+                addClassLoader(classLoader));
+
+        Set<String> subTypesOf = Sets.newHashSet(refExpand.getStore().getAll(Utils.index(SubTypesScanner.class),
+                TestModel.A.class.getName()));
+        Assert.assertTrue("expanded", subTypesOf.contains(TestModel.B.class.getName()));
+        Assert.assertTrue("transitivity", subTypesOf.contains(TestModel.ScannedScope.C.class.getName()));
+        Assert.assertFalse(classLoader.isLoaded(TestModel.A.class.getName()));
+        Assert.assertFalse(classLoader.isLoaded(TestModel.B.class.getName()));
+    }
+
+    @Test
+    public void testSuperTypeResolver() {
+        SuperTypeResolver resolver = new SuperTypeResolver();
+        Assert.assertEquals(Arrays.asList(TestModel.A.class.getName()), resolver.getSuperTypes(TestModel.B.class.getName()));
+        Assert.assertEquals(Arrays.asList(AbstractList.class.getName(), List.class.getName(),
+                RandomAccess.class.getName(), Cloneable.class.getName(), Serializable.class.getName()),
+                resolver.getSuperTypes(ArrayList.class.getName()));
+        Assert.assertTrue(resolver.getSuperTypes(Object.class.getName()).isEmpty());
+        Assert.assertTrue(resolver.getSuperTypes("no.such.Type").isEmpty());
+    }
+
+    /** loads classes from the given urls only, and tells which it loaded */
+    private static class TrackingClassLoader extends URLClassLoader {
+        TrackingClassLoader(URL url) {
+            super(new URL[] {url}, null);
+        }
+
+        boolean isLoaded(String name) {
+            return findLoadedClass(name) != null;
+        }
+    }
+
     public interface TestModel {
         interface A {
         } // outside of scanned scope
@@ -1,11 +1,26 @@
 package com.michaelhradek.aurkitu.reflections;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.michaelhradek.aurkitu.reflections.scanners.*;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
 import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
 import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /** */
 public class ReflectionsParallelTest extends ReflectionsTest {
@@ -25,4 +40,102 @@ public class ReflectionsParallelTest extends ReflectionsTest {
                         new MemberUsageScanner())
                 .useParallelExecutor());
     }
+
+    @Test
+    public void testBatchedScan() {
+        // a jar with many more files than a batch
+        URL url = ClasspathHelper.forClass(ImmutableList.class);
+        Reflections serial = scanGuava(url, new ConfigurationBuilder());
+        Reflections batched = scanGuava(url, new ConfigurationBuilder().useParallelExecutor(4));
+
+        String subTypes = Utils.index(SubTypesScanner.class);
+        assertFalse(serial.getStore().get(subTypes).isEmpty());
+        assertEquals(serial.getStore().get(subTypes), batched.getStore().get(subTypes));
+        assertEquals(serial.getStore().get(Reflections.ORIGINS_INDEX), batched.getStore().get(Reflections.ORIGINS_INDEX));
+
+        Reflections mapped = scanGuava(url, new ConfigurationBuilder().useParallelExecutor(4).setMemoryMapJars(true));
+        assertEquals(serial.getStore().get(subTypes), mapped.getStore().get(subTypes));
+    }
+
+    @Test
+    public void testStoreShards() throws Exception {
+        final Store store = new Store(new ConfigurationBuilder().setExecutorService(MoreExecutors.newDirectExecutorService()));
+        final Multimap<String, String> index = store.getOrCreate("index");
+        index.put("a", "1");
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                store.getOrCreate("index").put("a", "2");
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // each thread puts into its own shard until they are merged
+        assertTrue(index.isEmpty());
+        store.mergeShards();
+        assertEquals(Sets.newHashSet("1", "2"), index.get("a"));
+
+        index.put("b", "3");
+        assertEquals(Sets.newHashSet("3"), store.get("index").get("b"));
+        // as are indices created after merging
+        store.getOrCreate("other").put("c", "4");
+        assertEquals(Sets.newHashSet("4"), store.get("other").get("c"));
+    }
+
+    @Test
+    public void testSharedExecutors() {
+        ForkJoinPool pool = ConfigurationBuilder.newParallelExecutor(2);
+        ExecutorService opening = Executors.newCachedThreadPool();
+        try {
+            for (int i = 0; i < 2; i++) {
+                Reflections shared = new Reflections(new ConfigurationBuilder()
+                        .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                        .filterInputsBy(TestModelFilter)
+                        .setScanners(new SubTypesScanner(false), new TypeAnnotationsScanner())
+                        .setExecutorService(pool)
+                        .setOpeningExecutorService(opening)
+                        .setSharedExecutors(true));
+
+                assertEquals(reflections.getSubTypesOf(TestModel.C1.class), shared.getSubTypesOf(TestModel.C1.class));
+                // the caller's executors are left running for the next instance
+                assertFalse(pool.isShutdown());
+                assertFalse(opening.isShutdown());
+            }
+        } finally {
+            pool.shutdown();
+            opening.shutdown();
+        }
+
+        ExecutorService owned = Executors.newCachedThreadPool();
+        Reflections reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(ClasspathHelper.forClass(TestModel.class)))
+                .filterInputsBy(TestModelFilter)
+                .useParallelExecutor(2)
+                .setOpeningExecutorService(owned));
+        assertTrue(reflections.getConfiguration().getExecutorService().isShutdown());
+        assertTrue(owned.isShutdown());
+    }
+
+    @Test
+    public void testVirtualThreadsForOpening() {
+        boolean virtualThreads;
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualThreads = true;
+        } catch (NoSuchMethodException e) {
+            virtualThreads = false;
+        }
+
+        ConfigurationBuilder configuration = new ConfigurationBuilder().useVirtualThreadsForOpening();
+        assertEquals(virtualThreads, configuration.getOpeningExecutorService() != null);
+    }
+
+    private static Reflections scanGuava(URL url, ConfigurationBuilder configuration) {
+        return new Reflections(configuration
+                .setUrls(url)
+                .filterInputsBy(new FilterBuilder().includePackage("com.google.common.collect"))
+                .setScanners(new SubTypesScanner(false))
+                .setRecordOrigins(true)
+                .setExpandSuperTypes(false));
+    }
 }
@@ -18,8 +18,11 @@ import org.junit.Test;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.lang.annotation.Annotation;
+import java.net.MalformedURLException;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -80,6 +83,29 @@ public class ReflectionsTest {
         };
     }
 
+    @Test
+    public void testTypesScannedFrom() throws MalformedURLException {
+        URL url = ClasspathHelper.forClass(TestModel.class);
+        Reflections withOrigins = new Reflections(new ConfigurationBuilder()
+                .setUrls(asList(url))
+                .filterInputsBy(TestModelFilter)
+                .setRecordOrigins(true));
+
+        Set<String> types = withOrigins.getTypesScannedFrom(url);
+        assertTrue(types.contains(TestModel.C1.class.getName()));
+        assertTrue(types.contains(TestModel.AI1.class.getName()));
+        assertFalse(types.contains(TestModel.class.getName()));
+        assertTrue(withOrigins.getTypesScannedFrom(new URL("file:/not/scanned/")).isEmpty());
+
+        try {
+            new Reflections(new ConfigurationBuilder().setUrls(asList(url)).filterInputsBy(TestModelFilter))
+                    .getTypesScannedFrom(url);
+            fail("expected ReflectionsException; origins were not recorded");
+        } catch (ReflectionsException e) {
+            //expected
+        }
+    }
+
     @Test
     public void testSubTypesOf() {
         assertThat(reflections.getSubTypesOf(TestModel.I1.class), are(TestModel.I2.class, TestModel.C1.class, TestModel.C2.class, TestModel.C3.class, TestModel.C5.class));
@@ -128,6 +154,19 @@ public class ReflectionsTest {
         assertThat(reflections.getTypesAnnotatedWith(ac2, true), are(TestModel.C3.class, TestModel.I3.class, TestModel.AC3.class));
     }
 
+    @Test
+    public void testTypeNamesAnnotatedWith() {
+        for (Class<? extends Annotation> annotation : Arrays.<Class<? extends Annotation>>asList(TestModel.MAI1.class, TestModel.AI1.class, TestModel.AC1.class)) {
+            Set<String> expected = new HashSet<>();
+            for (Class<?> type : reflections.getTypesAnnotatedWith(annotation)) {
+                expected.add(type.getName());
+            }
+            assertEquals(expected, reflections.getTypeNamesAnnotatedWith(annotation));
+        }
+
+        assertTrue(reflections.getTypeNamesAnnotatedWith(TestModel.AM1.class).isEmpty());
+    }
+
     @Test
     public void testMethodsAnnotatedWith() {
         try {
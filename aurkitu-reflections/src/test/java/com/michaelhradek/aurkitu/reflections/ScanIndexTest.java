@@ -0,0 +1,281 @@
+package com.michaelhradek.aurkitu.reflections;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.io.Files;
+import com.michaelhradek.aurkitu.reflections.scanners.SubTypesScanner;
+import com.michaelhradek.aurkitu.reflections.scanners.TypeAnnotationsScanner;
+import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.michaelhradek.aurkitu.reflections.util.ConfigurationBuilder;
+import com.michaelhradek.aurkitu.reflections.util.FilterBuilder;
+import com.michaelhradek.aurkitu.reflections.util.Utils;
+import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static com.michaelhradek.aurkitu.reflections.ReflectionsTest.TestModelFilter;
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ScanIndexTest {
+    private static final String PACKAGE = TestModel.class.getPackage().getName().replace('.', '/');
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File indexDirectory;
+    private File classes;
+
+    @Before
+    public void setUp() throws IOException {
+        indexDirectory = folder.newFolder("index");
+        classes = folder.newFolder("classes");
+
+        File testClasses = Vfs.getFile(ClasspathHelper.forClass(TestModel.class));
+        File target = new File(classes, PACKAGE);
+        assertTrue(target.mkdirs());
+        for (File file : new File(testClasses, PACKAGE).listFiles()) {
+            if (file.getName().startsWith("TestModel$")) {
+                Files.copy(file, new File(target, file.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void testDirectoryIndex() throws Exception {
+        URL url = classes.toURI().toURL();
+        CountingScanner scanner = new CountingScanner();
+        Map<String, Multimap<String, String>> expected = entries(scan(url, scanner, false));
+        int files = scanner.scanned.get();
+        assertTrue(files > 0);
+        assertEquals(1, indexDirectory.list().length);
+
+        // nothing changed, nothing is scanned
+        scanner = new CountingScanner();
+        assertEquals(expected, entries(scan(url, scanner, false)));
+        assertEquals(0, scanner.scanned.get());
+
+        // only the changed file is scanned
+        File changed = new File(classes, PACKAGE + "/TestModel$C1.class");
+        assertTrue(changed.setLastModified(changed.lastModified() + 10000));
+        scanner = new CountingScanner();
+        assertEquals(expected, entries(scan(url, scanner, false)));
+        assertEquals(1, scanner.scanned.get());
+
+        // a removed file is no longer part of the scan
+        assertTrue(new File(classes, PACKAGE + "/TestModel$C2.class").delete());
+        scanner = new CountingScanner();
+        Reflections reflections = scan(url, scanner, false);
+        assertEquals(0, scanner.scanned.get());
+        assertFalse(reflections.getStore().get(Utils.index(CountingScanner.class)).containsValue(TestModel.C2.class.getName()));
+
+        // a different configuration does not use the saved scan
+        scanner = new CountingScanner();
+        scan(url, scanner, true);
+        assertEquals(files - 1, scanner.scanned.get());
+        assertEquals(2, indexDirectory.list().length);
+    }
+
+    @Test
+    public void testJarIndex() throws Exception {
+        File jar = folder.newFile("test-model.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (File file : new File(classes, PACKAGE).listFiles()) {
+                out.putNextEntry(new JarEntry(PACKAGE + "/" + file.getName()));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+
+        URL url = jar.toURI().toURL();
+        CountingScanner scanner = new CountingScanner();
+        Map<String, Multimap<String, String>> expected = entries(scan(url, scanner, true));
+        assertTrue(scanner.scanned.get() > 0);
+        assertFalse(expected.get(Reflections.ORIGINS_INDEX).isEmpty());
+
+        scanner = new CountingScanner();
+        assertEquals(expected, entries(scan(url, scanner, true)));
+        assertEquals(0, scanner.scanned.get());
+
+        // a touched but otherwise unchanged jar is not scanned again
+        assertTrue(jar.setLastModified(jar.lastModified() + 10000));
+        scanner = new CountingScanner();
+        assertEquals(expected, entries(scan(url, scanner, true)));
+        assertEquals(0, scanner.scanned.get());
+
+        // a changed jar is
+        out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            File file = new File(classes, PACKAGE + "/TestModel$C1.class");
+            out.putNextEntry(new JarEntry(PACKAGE + "/" + file.getName()));
+            Files.copy(file, out);
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        scanner = new CountingScanner();
+        scan(url, scanner, true);
+        assertEquals(1, scanner.scanned.get());
+    }
+
+    @Test
+    public void testIndexedJarIsNotOpened() throws Exception {
+        File jar = folder.newFile("test-model.jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (File file : new File(classes, PACKAGE).listFiles()) {
+                out.putNextEntry(new JarEntry(PACKAGE + "/" + file.getName()));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+
+        final URL url = jar.toURI().toURL();
+        Map<String, Multimap<String, String>> expected = entries(scanOpening(url, new CountingScanner()));
+
+        // an unchanged jar is replayed from the index without opening it
+        final AtomicInteger opened = new AtomicInteger();
+        List<Vfs.UrlType> urlTypes = Vfs.getDefaultUrlTypes();
+        Vfs.setDefaultURLTypes(Lists.newArrayList(urlTypes));
+        Vfs.addDefaultURLTypes(new Vfs.UrlType() {
+            public boolean matches(URL other) {
+                if (other.equals(url)) {
+                    opened.incrementAndGet();
+                }
+                return false;
+            }
+
+            public Vfs.Dir createDir(URL other) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        try {
+            CountingScanner scanner = new CountingScanner();
+            assertEquals(expected, entries(scanOpening(url, scanner)));
+            assertEquals(0, scanner.scanned.get());
+            assertEquals(0, opened.get());
+        } finally {
+            Vfs.setDefaultURLTypes(urlTypes);
+        }
+    }
+
+    @Test
+    public void testBatchedJarIndex() throws Exception {
+        // files scanned by several threads are recorded as well
+        URL url = Vfs.getFile(ClasspathHelper.forClass(ImmutableList.class)).toURI().toURL();
+        CountingScanner scanner = new CountingScanner();
+        Map<String, Multimap<String, String>> expected = entries(scanBatched(url, scanner));
+        assertTrue(scanner.scanned.get() > Reflections.SCAN_BATCH_SIZE);
+
+        scanner = new CountingScanner();
+        assertEquals(expected, entries(scanBatched(url, scanner)));
+        assertEquals(0, scanner.scanned.get());
+    }
+
+    @Test
+    public void testJarWithoutPrefixesIsSkipped() throws Exception {
+        // nothing of the jar is under the included package, so it is neither scanned nor indexed
+        URL url = Vfs.getFile(ClasspathHelper.forClass(ImmutableList.class)).toURI().toURL();
+        CountingScanner scanner = new CountingScanner();
+        Reflections reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(url)
+                .filterInputsBy(new FilterBuilder().includePackage(PACKAGE.replace('/', '.') + "."))
+                .setScanners(scanner)
+                .setExpandSuperTypes(false)
+                .setScanIndexDirectory(indexDirectory));
+        assertEquals(0, scanner.scanned.get());
+        for (Multimap<String, String> entries : entries(reflections).values()) {
+            assertTrue(entries.isEmpty());
+        }
+        assertEquals(0, indexDirectory.list().length);
+    }
+
+    @Test
+    public void testCorruptIndexIsIgnored() throws Exception {
+        URL url = classes.toURI().toURL();
+        Map<String, Multimap<String, String>> expected = entries(scan(url, new CountingScanner(), false));
+
+        File index = indexDirectory.listFiles()[0];
+        Files.write(new byte[] {0, 0, 0, 1, 0, 0}, index);
+
+        CountingScanner scanner = new CountingScanner();
+        assertEquals(expected, entries(scan(url, scanner, false)));
+        assertTrue(scanner.scanned.get() > 0);
+    }
+
+    private Reflections scan(URL url, CountingScanner scanner, boolean recordOrigins) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(url)
+                .filterInputsBy(TestModelFilter)
+                .setScanners(scanner, new TypeAnnotationsScanner())
+                .setRecordOrigins(recordOrigins)
+                .setExpandSuperTypes(false)
+                .setScanIndexDirectory(indexDirectory));
+    }
+
+    private Reflections scanBatched(URL url, CountingScanner scanner) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(url)
+                .filterInputsBy(new FilterBuilder().includePackage("com.google.common.collect"))
+                .setScanners(scanner)
+                .setRecordOrigins(true)
+                .setExpandSuperTypes(false)
+                .useParallelExecutor(4)
+                .setScanIndexDirectory(indexDirectory));
+    }
+
+    private Reflections scanOpening(URL url, CountingScanner scanner) {
+        return new Reflections(new ConfigurationBuilder()
+                .setUrls(url)
+                .filterInputsBy(TestModelFilter)
+                .setScanners(scanner, new TypeAnnotationsScanner())
+                .setExpandSuperTypes(false)
+                .setOpeningExecutorService(Executors.newFixedThreadPool(2))
+                .setScanIndexDirectory(indexDirectory));
+    }
+
+    private static Map<String, Multimap<String, String>> entries(Reflections reflections) {
+        Map<String, Multimap<String, String>> result = Maps.newHashMap();
+        for (String index : reflections.getStore().keySet()) {
+            result.put(index, HashMultimap.create(reflections.getStore().get(index)));
+        }
+        return result;
+    }
+
+    private static class CountingScanner extends SubTypesScanner {
+        private final AtomicInteger scanned = new AtomicInteger();
+
+        CountingScanner() {
+            super(false);
+        }
+
+        @Override
+        public Object scan(Vfs.File file, Object classObject) {
+            scanned.incrementAndGet();
+            return super.scan(file, classObject);
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 import com.michaelhradek.aurkitu.reflections.adapters.JavassistAdapter;
 import com.michaelhradek.aurkitu.reflections.util.ClasspathHelper;
+import com.google.common.io.ByteStreams;
 import com.michaelhradek.aurkitu.reflections.vfs.JarInputDir;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipDir;
+import com.michaelhradek.aurkitu.reflections.vfs.MappedZipFile;
 import com.michaelhradek.aurkitu.reflections.vfs.SystemDir;
 import com.michaelhradek.aurkitu.reflections.vfs.Vfs;
 import com.michaelhradek.aurkitu.reflections.vfs.ZipDir;
@@ -16,10 +19,18 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.jar.JarFile;
 
 import static java.text.MessageFormat.format;
@@ -162,6 +173,192 @@ public class VfsTest {
         assertEquals(expectedJarFile, dir.getPath());
     }
 
+    @Test
+    public void mappedZipDirMatchesZipDir() throws Exception {
+        File file = Vfs.getFile(getSomeJar());
+        // jars are only mapped if asked to
+        assertEquals(ZipDir.class, Vfs.DefaultUrlTypes.jarFile.createDir(getSomeJar()).getClass());
+        assertEquals(MappedZipDir.class, Vfs.mappedJarFile.createDir(getSomeJar()).getClass());
+
+        MappedZipDir mapped = MappedZipDir.open(file);
+        ZipDir zip = new ZipDir(new JarFile(file));
+        try {
+            java.util.Iterator<Vfs.File> zipFiles = zip.getFiles().iterator();
+            for (Vfs.File mappedFile : mapped.getFiles()) {
+                Vfs.File zipFile = zipFiles.next();
+                assertEquals(zipFile.getRelativePath(), mappedFile.getRelativePath());
+                assertEquals(zipFile.getName(), mappedFile.getName());
+
+                byte[] expected = read(zipFile);
+                assertArrayEquals(expected, read(mappedFile));
+                java.nio.ByteBuffer content = ((MappedZipFile) mappedFile).getContent();
+                byte[] actual = new byte[content.remaining()];
+                content.get(actual);
+                assertArrayEquals(expected, actual);
+            }
+            assertFalse(zipFiles.hasNext());
+        } finally {
+            mapped.close();
+            zip.close();
+        }
+    }
+
+    @Test
+    public void mappedZipDirReadsStoredEntries() throws Exception {
+        File jar = File.createTempFile("stored", ".jar");
+        byte[] content = "stored content".getBytes("UTF-8");
+        java.util.jar.JarOutputStream out = new java.util.jar.JarOutputStream(new FileOutputStream(jar));
+        try {
+            java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+            crc.update(content);
+            java.util.jar.JarEntry entry = new java.util.jar.JarEntry("a/b/stored.txt");
+            entry.setMethod(java.util.zip.ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+            out.putNextEntry(entry);
+            out.write(content);
+            out.closeEntry();
+            out.putNextEntry(new java.util.jar.JarEntry("a/b/"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+
+        MappedZipDir dir = MappedZipDir.open(jar);
+        try {
+            assertNotNull(dir);
+            Vfs.File file = Iterables.getOnlyElement(dir.getFiles());
+            assertEquals("a/b/stored.txt", file.getRelativePath());
+            assertEquals("stored.txt", file.getName());
+            assertArrayEquals(content, read(file));
+            assertTrue(((MappedZipFile) file).getContent().isReadOnly());
+        } finally {
+            dir.close();
+            jar.delete();
+        }
+    }
+
+    @Test
+    public void mappedZipDirRejectsOtherFiles() throws Exception {
+        File notAJar = File.createTempFile("notajar", ".jar");
+        try {
+            FileOutputStream out = new FileOutputStream(notAJar);
+            out.write(new byte[64]);
+            out.close();
+            assertNull(MappedZipDir.open(notAJar));
+        } finally {
+            notAJar.delete();
+        }
+    }
+
+    @Test
+    public void systemDirListsInParallel() throws Exception {
+        File root = Files.createTempDirectory("systemdir").toFile();
+        try {
+            for (int i = 0; i < 20; i++) {
+                File directory = new File(root, "a/b" + i + "/c");
+                assertTrue(directory.mkdirs());
+                for (int j = 0; j < 5; j++) {
+                    assertTrue(new File(directory, "F" + j + ".class").createNewFile());
+                }
+            }
+            assertTrue(new File(root, "Top.class").createNewFile());
+            // a link back to the root is not listed again
+            Files.createSymbolicLink(new File(root, "a/loop").toPath(), root.toPath());
+
+            SystemDir dir = new SystemDir(root);
+            Set<String> serial = relativePaths(dir.getFiles());
+            assertEquals(101, serial.size());
+            assertTrue(serial.contains("Top.class"));
+            assertTrue(serial.contains("a/b7/c/F3.class"));
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                List<Vfs.File> parallel = dir.getFiles(pool);
+                assertEquals(serial.size(), parallel.size());
+                assertEquals(serial, relativePaths(parallel));
+            } finally {
+                pool.shutdown();
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    @Test
+    public void prefixedDirsListOnlyMatchingFiles() throws Exception {
+        File root = Files.createTempDirectory("prefixed").toFile();
+        try {
+            for (String path : Arrays.asList("a/b/c/F.class", "a/b/G.class", "a/bc/H.class", "a/d/I.class", "x/J.class", "a.b.txt")) {
+                File file = new File(root, path);
+                assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+                assertTrue(file.createNewFile());
+            }
+            Set<String> expected = new TreeSet<String>(Arrays.asList("a/b/c/F.class", "a/b/G.class", "a.b.txt"));
+            List<String> prefixes = Arrays.asList("a.b.", "y");
+
+            SystemDir dir = new SystemDir(root);
+            assertEquals(expected, relativePaths(dir.getFiles(prefixes)));
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                assertEquals(expected, relativePaths(dir.getFiles(pool, prefixes)));
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(6, relativePaths(dir.getFiles()).size());
+        } finally {
+            delete(root);
+        }
+
+        File file = Vfs.getFile(getSomeJar());
+        MappedZipDir mapped = MappedZipDir.open(file);
+        ZipDir zip = new ZipDir(new JarFile(file));
+        try {
+            Set<String> all = relativePaths(zip.getFiles());
+            String prefix = all.iterator().next().substring(0, 3).replace('/', '.');
+            Set<String> matching = new TreeSet<String>();
+            for (String path : all) {
+                if (path.replace('/', '.').startsWith(prefix)) {
+                    matching.add(path);
+                }
+            }
+            assertFalse(matching.isEmpty());
+            assertEquals(matching, relativePaths(zip.getFiles(Collections.singletonList(prefix))));
+            assertEquals(matching, relativePaths(mapped.getFiles(Collections.singletonList(prefix))));
+            assertTrue(relativePaths(mapped.getFiles(Collections.singletonList("no.such.package."))).isEmpty());
+            assertEquals(all, relativePaths(mapped.getFiles()));
+        } finally {
+            mapped.close();
+            zip.close();
+        }
+    }
+
+    private static Set<String> relativePaths(Iterable<Vfs.File> files) {
+        Set<String> paths = new TreeSet<String>();
+        for (Vfs.File file : files) {
+            paths.add(file.getRelativePath());
+        }
+        return paths;
+    }
+
+    private static void delete(File file) throws IOException {
+        if (file.isDirectory() && !Files.isSymbolicLink(file.toPath())) {
+            for (File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        Files.delete(file.toPath());
+    }
+
+    private static byte[] read(Vfs.File file) throws IOException {
+        InputStream inputStream = file.openInputStream();
+        try {
+            return ByteStreams.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
     @Test
     public void vfsFromJarFileUrl() throws MalformedURLException {
         testVfsDir(new URL("jar:file:" + getSomeJar().getPath() + "!/"));